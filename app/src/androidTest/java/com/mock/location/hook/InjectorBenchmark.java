@@ -0,0 +1,163 @@
+package com.mock.location.hook;
+
+import androidx.benchmark.BenchmarkState;
+import androidx.benchmark.junit4.BenchmarkRule;
+import androidx.test.ext.junit.runners.AndroidJUnit4;
+
+import com.mock.location.model.MockConfig;
+import com.mock.location.model.SerializableCellInfo;
+import com.mock.location.model.WifiFingerprint;
+
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assume.assumeNotNull;
+
+/**
+ * Hook 回调中的注入开销（设备上运行）：
+ * <ul>
+ *   <li>currentSnapshotRead：getter Hook 每次调用的实际路径，一次 volatile 读快照再取预装箱的值</li>
+ *   <li>*Cached：配置未变化时的常态，一次快照比较加列表拷贝（ScanResult 逐个经拷贝构造器复制）</li>
+ *   <li>*Build：配置变化后的首次调用，反射构造全部 ScanResult / CellInfo</li>
+ * </ul>
+ * 运行：./gradlew :app:connectedAndroidTest
+ * -Pandroid.testInstrumentationRunnerArguments.class=com.mock.location.hook.InjectorBenchmark
+ */
+@RunWith(AndroidJUnit4.class)
+public class InjectorBenchmark {
+
+    private static final int AP_COUNT = 64;
+    private static final int NEIGHBOR_COUNT = 16;
+
+    @Rule
+    public BenchmarkRule benchmarkRule = new BenchmarkRule();
+
+    private HookAccessors accessors;
+    private MockConfig config;
+    private MockSnapshot snapshot;
+    /** 防止读取被优化掉 */
+    private Object sink;
+
+    @Before
+    public void setUp() {
+        accessors = HookAccessors.get(getClass().getClassLoader());
+        config = config();
+        snapshot = new MockSnapshot(config, null);
+    }
+
+    @Test
+    public void currentSnapshotRead() {
+        BenchmarkState state = benchmarkRule.getState();
+        while (state.keepRunning()) {
+            sink = ConfigWatcher.current().fix().lat;
+        }
+    }
+
+    @Test
+    public void snapshotFix() {
+        BenchmarkState state = benchmarkRule.getState();
+        while (state.keepRunning()) {
+            snapshot.fix();
+        }
+    }
+
+    @Test
+    public void newLocation() {
+        BenchmarkState state = benchmarkRule.getState();
+        while (state.keepRunning()) {
+            snapshot.newLocation("gps");
+        }
+    }
+
+    @Test
+    public void scanResultsCached() throws ReflectiveOperationException {
+        assumeNotNull(accessors.scanResults);
+        assertNotNull(accessors.scanResults.scanResults(snapshot));
+        BenchmarkState state = benchmarkRule.getState();
+        // 跨越扫描周期时会重建一次，与 Hook 中的实际情况一致
+        while (state.keepRunning()) {
+            accessors.scanResults.scanResults(snapshot);
+        }
+    }
+
+    @Test
+    public void scanResultsBuild() throws ReflectiveOperationException {
+        assumeNotNull(accessors.scanResults);
+        BenchmarkState state = benchmarkRule.getState();
+        while (state.keepRunning()) {
+            MockSnapshot fresh = newSnapshot(state);
+            accessors.scanResults.scanResults(fresh);
+        }
+    }
+
+    @Test
+    public void cellInfosCached() throws ReflectiveOperationException {
+        assumeNotNull(accessors.cellInfos);
+        assertNotNull(accessors.cellInfos.cellInfos(snapshot));
+        BenchmarkState state = benchmarkRule.getState();
+        while (state.keepRunning()) {
+            accessors.cellInfos.cellInfos(snapshot);
+        }
+    }
+
+    @Test
+    public void cellInfosBuild() throws ReflectiveOperationException {
+        assumeNotNull(accessors.cellInfos);
+        BenchmarkState state = benchmarkRule.getState();
+        while (state.keepRunning()) {
+            MockSnapshot fresh = newSnapshot(state);
+            accessors.cellInfos.cellInfos(fresh);
+        }
+    }
+
+    /** 新的配置版本；快照本身的构造不计入耗时 */
+    private MockSnapshot newSnapshot(BenchmarkState state) {
+        state.pauseTiming();
+        MockSnapshot fresh = new MockSnapshot(config, null);
+        state.resumeTiming();
+        return fresh;
+    }
+
+    private static MockConfig config() {
+        MockConfig config = MockConfig.DefaultValue();
+        List<String> bssids = new ArrayList<>(AP_COUNT);
+        WifiFingerprint fp = new WifiFingerprint(AP_COUNT);
+        for (int i = 0; i < AP_COUNT; i++) {
+            bssids.add(String.format(Locale.US, "02:00:00:00:%02x:%02x", i >> 8, i & 0xFF));
+            fp.ssids[i] = "AP-" + i;
+            fp.levels[i] = -40 - i;
+            fp.frequencies[i] = i % 2 == 0 ? 2437 : 5180;
+            fp.capabilities[i] = "[WPA2-PSK-CCMP][ESS]";
+        }
+        config.wifiBssids = bssids;
+        config.wifiFingerprint = fp;
+
+        config.cellInfo = lte(460, 0, 4321, 123456789, 101);
+        List<SerializableCellInfo> neighbors = new ArrayList<>(NEIGHBOR_COUNT);
+        for (int i = 0; i < NEIGHBOR_COUNT; i++) {
+            neighbors.add(lte(-1, -1, -1, -1, 200 + i));
+        }
+        config.neighborCells = neighbors;
+        return config;
+    }
+
+    private static SerializableCellInfo lte(int mcc, int mnc, int tac, int ci, int pci) {
+        SerializableCellInfo cell = new SerializableCellInfo();
+        cell.networkType = "LTE";
+        cell.mcc = mcc;
+        cell.mnc = mnc;
+        cell.lac = tac;
+        cell.cid = ci;
+        cell.pci = pci;
+        cell.arfcn = 1850;
+        cell.dbm = -95;
+        return cell;
+    }
+}
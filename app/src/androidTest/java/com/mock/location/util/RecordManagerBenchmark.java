@@ -0,0 +1,184 @@
+package com.mock.location.util;
+
+import android.content.Context;
+import android.content.ContextWrapper;
+import android.content.SharedPreferences;
+import android.database.sqlite.SQLiteDatabase;
+import android.os.Build;
+
+import androidx.benchmark.BenchmarkState;
+import androidx.benchmark.junit4.BenchmarkRule;
+import androidx.test.platform.app.InstrumentationRegistry;
+
+import com.mock.location.model.LocationRecord;
+import com.mock.location.model.RecordQuery;
+
+import org.junit.Before;
+import org.junit.BeforeClass;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.junit.runners.Parameterized;
+
+import java.io.File;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.List;
+import java.util.Locale;
+import java.util.Random;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assume.assumeTrue;
+
+/**
+ * RecordManager 的读写耗时（设备上运行），记录数从 1 到 10 万。
+ * <p>
+ * 使用独立的数据库文件 benchmark_mock_records.db 与独立的 SharedPreferences，不会改动 App 自己的记录；
+ * 数据库路径通过 Context.getDatabasePath 重定向，需要 API 28+。
+ * 运行：./gradlew :app:connectedAndroidTest
+ * -Pandroid.testInstrumentationRunnerArguments.class=com.mock.location.util.RecordManagerBenchmark
+ */
+@RunWith(Parameterized.class)
+public class RecordManagerBenchmark {
+
+    @Parameterized.Parameters(name = "records={0}")
+    public static Collection<Object[]> counts() {
+        return Arrays.asList(new Object[][]{{1}, {100}, {1_000}, {10_000}, {100_000}});
+    }
+
+    @Parameterized.Parameter
+    public int recordCount;
+
+    @Rule
+    public BenchmarkRule benchmarkRule = new BenchmarkRule();
+
+    private static Context context;
+
+    /** 把数据库、SharedPreferences 与旧版记录文件重定向到独立位置 */
+    private static final class BenchmarkContext extends ContextWrapper {
+        BenchmarkContext(Context base) {
+            super(base);
+        }
+
+        @Override
+        public Context getApplicationContext() {
+            return this;
+        }
+
+        @Override
+        public File getDatabasePath(String name) {
+            return super.getDatabasePath("benchmark_" + name);
+        }
+
+        @Override
+        public SharedPreferences getSharedPreferences(String name, int mode) {
+            return super.getSharedPreferences("benchmark_" + name, mode);
+        }
+
+        @Override
+        public File getFilesDir() {
+            File dir = new File(super.getCacheDir(), "benchmark");
+            dir.mkdirs();
+            return dir;
+        }
+    }
+
+    @BeforeClass
+    public static void setUpClass() {
+        assumeTrue(Build.VERSION.SDK_INT >= Build.VERSION_CODES.P);
+        context = new BenchmarkContext(InstrumentationRegistry.getInstrumentation().getTargetContext());
+        // RecordDatabase 是进程内单例：若已被真实数据库占用则放弃，绝不写入 App 的记录
+        String path = RecordDatabase.getInstance(context).getWritableDatabase().getPath();
+        assumeTrue(path, new File(path).getName().startsWith("benchmark_"));
+    }
+
+    @Before
+    public void setUp() {
+        SQLiteDatabase db = RecordDatabase.getInstance(context).getWritableDatabase();
+        Random random = new Random(42);
+        db.beginTransaction();
+        try {
+            db.delete(RecordDatabase.TABLE, null, null);
+            // id 从 1 开始，getRecord 按 id 取中间的记录
+            db.delete("sqlite_sequence", "name=?", new String[]{RecordDatabase.TABLE});
+            for (int i = 0; i < recordCount; i++) {
+                db.insert(RecordDatabase.TABLE, null, RecordDatabase.toValues(newRecord(random, i)));
+            }
+            db.setTransactionSuccessful();
+        } finally {
+            db.endTransaction();
+        }
+        assertEquals(recordCount, RecordManager.getRecordCount(context));
+    }
+
+    @Test
+    public void getAllRecords() {
+        BenchmarkState state = benchmarkRule.getState();
+        while (state.keepRunning()) {
+            RecordManager.getAllRecords(context);
+        }
+    }
+
+    @Test
+    public void queryFirstPage() {
+        RecordQuery query = RecordQuery.all();
+        BenchmarkState state = benchmarkRule.getState();
+        while (state.keepRunning()) {
+            RecordManager.queryRecords(context, query, 0, RecordPager.PAGE_SIZE);
+        }
+    }
+
+    @Test
+    public void queryNamePrefix() {
+        RecordQuery query = RecordQuery.all().withName("记录1", true);
+        BenchmarkState state = benchmarkRule.getState();
+        while (state.keepRunning()) {
+            RecordManager.queryRecords(context, query, 0, RecordPager.PAGE_SIZE);
+        }
+    }
+
+    @Test
+    public void getRecord() {
+        long id = Math.max(1, recordCount / 2);
+        BenchmarkState state = benchmarkRule.getState();
+        while (state.keepRunning()) {
+            RecordManager.getRecord(context, id);
+        }
+    }
+
+    @Test
+    public void addRecord() {
+        Random random = new Random(7);
+        BenchmarkState state = benchmarkRule.getState();
+        while (state.keepRunning()) {
+            long id = RecordManager.addRecord(context, newRecord(random, recordCount));
+            // 删除不计入耗时，保持记录数不变
+            state.pauseTiming();
+            assertTrue(RecordManager.deleteRecord(context, id));
+            state.resumeTiming();
+        }
+    }
+
+    @Test
+    public void updateRecord() {
+        List<LocationRecord> first = RecordManager.queryRecords(context, RecordQuery.all(), 0, 1);
+        LocationRecord record = first.get(0);
+        BenchmarkState state = benchmarkRule.getState();
+        while (state.keepRunning()) {
+            record.lat += 1e-6;
+            RecordManager.updateRecord(context, record);
+        }
+    }
+
+    private static LocationRecord newRecord(Random random, int index) {
+        LocationRecord record = new LocationRecord(39.9 + random.nextDouble() * 0.1, 116.3 + random.nextDouble() * 0.1);
+        record.name = "记录" + (index + 1);
+        record.accuracy = 10;
+        for (int i = 0; i < 8; i++) {
+            record.wifiBssids.add(String.format(Locale.US, "02:00:%02x:%02x:%02x:%02x",
+                    random.nextInt(256), random.nextInt(256), random.nextInt(256), i));
+        }
+        return record;
+    }
+}
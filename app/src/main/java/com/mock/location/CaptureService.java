@@ -0,0 +1,273 @@
+package com.mock.location;
+
+import android.Manifest;
+import android.app.Notification;
+import android.app.NotificationChannel;
+import android.app.NotificationManager;
+import android.app.PendingIntent;
+import android.app.Service;
+import android.content.Context;
+import android.content.Intent;
+import android.content.pm.PackageManager;
+import android.content.pm.ServiceInfo;
+import android.location.Location;
+import android.location.LocationListener;
+import android.location.LocationManager;
+import android.os.Build;
+import android.os.Bundle;
+import android.os.Handler;
+import android.os.HandlerThread;
+import android.os.IBinder;
+import android.os.Looper;
+import android.os.SystemClock;
+import android.util.Log;
+
+import androidx.core.app.ActivityCompat;
+import androidx.core.app.NotificationCompat;
+import androidx.core.content.ContextCompat;
+
+import com.mock.location.model.LocationRecord;
+import com.mock.location.route.CaptureLog;
+import com.mock.location.util.BinaryConfig;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.Arrays;
+
+/**
+ * 连续采集真实轨迹的前台服务。
+ * <p>
+ * 按设定的间隔订阅定位更新，定位点与 WiFi / 基站快照追加到 {@link CaptureLog}：
+ * 记录先写入固定大小的块缓冲，块写满或每 {@link #FLUSH_INTERVAL_MS} 才落盘一次，
+ * 长时间采集既不会随点数增长占用堆，也不会每个定位点写一次磁盘。
+ * 所有回调都在后台 HandlerThread 上执行，日志只在该线程访问。
+ * <p>
+ * 停止后日志保留在 {@link #getLogFile}，由 {@link Listener} 通知界面保存为路线。
+ */
+public class CaptureService extends Service {
+
+    private static final String TAG = Constant.TAG;
+
+    private static final String ACTION_START = "com.mock.location.action.START_CAPTURE";
+    private static final String ACTION_STOP = "com.mock.location.action.STOP_CAPTURE";
+    private static final String EXTRA_INTERVAL_MS = "interval_ms";
+
+    private static final String CHANNEL_ID = "capture";
+    private static final int NOTIFICATION_ID = 1;
+
+    /** 落盘间隔：进程被杀时最多丢失这段时间内的点 */
+    private static final long FLUSH_INTERVAL_MS = 60_000;
+    /** WiFi / 基站快照间隔，内容没有变化时不写入 */
+    private static final long ENVIRONMENT_INTERVAL_MS = 30_000;
+
+    public interface Listener {
+        /** 采集停止且日志已关闭，在主线程回调 */
+        void onCaptureFinished(File log, int fixCount);
+    }
+
+    private static volatile boolean sRunning;
+    // 只在主线程访问
+    private static Listener sListener;
+
+    private HandlerThread thread;
+    private Handler handler;
+    private LocationManager lm;
+    private CaptureLog.Writer writer;
+    /** 上一条写入的快照编码，用于跳过没有变化的快照 */
+    private byte[] lastEnvironment;
+
+    public static File getLogFile(Context context) {
+        return new File(context.getFilesDir(), "capture.log");
+    }
+
+    public static boolean isRunning() {
+        return sRunning;
+    }
+
+    public static void setListener(Listener listener) {
+        sListener = listener;
+    }
+
+    public static void start(Context context, long intervalMs) {
+        Intent intent = new Intent(context, CaptureService.class)
+                .setAction(ACTION_START)
+                .putExtra(EXTRA_INTERVAL_MS, intervalMs);
+        ContextCompat.startForegroundService(context, intent);
+    }
+
+    public static void stop(Context context) {
+        context.stopService(new Intent(context, CaptureService.class));
+    }
+
+    @Override
+    public int onStartCommand(Intent intent, int flags, int startId) {
+        String action = intent != null ? intent.getAction() : null;
+        if (ACTION_STOP.equals(action)) {
+            stopSelf();
+            return START_NOT_STICKY;
+        }
+        if (ACTION_START.equals(action) && thread == null) {
+            startForegroundCompat(buildNotification(0));
+            long intervalMs = intent.getLongExtra(EXTRA_INTERVAL_MS, 1000);
+            if (!startCapture(intervalMs)) {
+                stopSelf();
+            }
+        }
+        return START_NOT_STICKY;
+    }
+
+    private boolean startCapture(long intervalMs) {
+        if (ActivityCompat.checkSelfPermission(this, Manifest.permission.ACCESS_FINE_LOCATION)
+                != PackageManager.PERMISSION_GRANTED) {
+            Log.e(TAG, "Capture: missing location permission");
+            return false;
+        }
+        lm = (LocationManager) getSystemService(Context.LOCATION_SERVICE);
+        String provider = lm.isProviderEnabled(LocationManager.GPS_PROVIDER)
+                ? LocationManager.GPS_PROVIDER
+                : LocationManager.NETWORK_PROVIDER;
+        try {
+            writer = new CaptureLog.Writer(getLogFile(this));
+        } catch (IOException e) {
+            Log.e(TAG, "Capture: cannot create log", e);
+            return false;
+        }
+
+        thread = new HandlerThread("LocationTrackCapture");
+        thread.start();
+        handler = new Handler(thread.getLooper());
+        lm.requestLocationUpdates(provider, intervalMs, 0, locationListener, thread.getLooper());
+        handler.post(environmentTask);
+        handler.postDelayed(flushTask, FLUSH_INTERVAL_MS);
+        sRunning = true;
+        Log.i(TAG, "Capture started: provider=" + provider + ", interval=" + intervalMs + "ms");
+        return true;
+    }
+
+    private final LocationListener locationListener = new LocationListener() {
+        @Override
+        public void onLocationChanged(Location location) {
+            try {
+                writer.addFix(location.getElapsedRealtimeNanos() / 1_000_000,
+                        location.getLatitude(), location.getLongitude(),
+                        location.hasAltitude() ? (float) location.getAltitude() : 0f,
+                        location.hasSpeed() ? location.getSpeed() : 0f,
+                        location.hasAccuracy() ? location.getAccuracy() : Float.MAX_VALUE);
+            } catch (IOException e) {
+                Log.e(TAG, "Capture: write failed", e);
+            }
+        }
+
+        @Override
+        public void onStatusChanged(String provider, int status, Bundle extras) {
+        }
+
+        @Override
+        public void onProviderEnabled(String provider) {
+        }
+
+        @Override
+        public void onProviderDisabled(String provider) {
+        }
+    };
+
+    private final Runnable environmentTask = new Runnable() {
+        @Override
+        public void run() {
+            // 后台扫描受系统限流，这里只读取缓存结果；WiFi 与基站都读不到时沿用上一条快照
+            LocationRecord environment = RealLocationCollector.getEnvironment(CaptureService.this);
+            byte[] encoded = environment.wifiBssids.isEmpty() && environment.cellInfo == null
+                    ? null
+                    : BinaryConfig.encode(environment, 0);
+            // 编码与回放使用的格式相同，字节相同即内容没有变化
+            if (encoded != null && !Arrays.equals(encoded, lastEnvironment)) {
+                try {
+                    writer.addEnvironment(SystemClock.elapsedRealtime(), encoded);
+                    lastEnvironment = encoded;
+                } catch (IOException e) {
+                    Log.e(TAG, "Capture: write failed", e);
+                }
+            }
+            handler.postDelayed(this, ENVIRONMENT_INTERVAL_MS);
+        }
+    };
+
+    private final Runnable flushTask = new Runnable() {
+        @Override
+        public void run() {
+            flush();
+            // 顺带刷新通知上的点数，不必每个点都发一次
+            NotificationManager nm = getSystemService(NotificationManager.class);
+            nm.notify(NOTIFICATION_ID, buildNotification(writer.fixCount()));
+            handler.postDelayed(this, FLUSH_INTERVAL_MS);
+        }
+    };
+
+    private void flush() {
+        if (writer.pendingBytes() == 0) return;
+        try {
+            writer.flush();
+        } catch (IOException e) {
+            Log.e(TAG, "Capture: flush failed", e);
+        }
+    }
+
+    @Override
+    public void onDestroy() {
+        super.onDestroy();
+        if (thread == null) return;
+        lm.removeUpdates(locationListener);
+        Handler mainHandler = new Handler(Looper.getMainLooper());
+        handler.removeCallbacksAndMessages(null);
+        // 排在已投递的定位回调之后关闭日志
+        handler.post(() -> {
+            int fixCount = writer.fixCount();
+            try {
+                writer.close();
+            } catch (IOException e) {
+                Log.e(TAG, "Capture: close failed", e);
+            }
+            Log.i(TAG, "Capture stopped: " + fixCount + " fixes");
+            thread.quitSafely();
+            mainHandler.post(() -> {
+                sRunning = false;
+                if (sListener != null) {
+                    sListener.onCaptureFinished(getLogFile(this), fixCount);
+                }
+            });
+        });
+    }
+
+    private void startForegroundCompat(Notification notification) {
+        if (Build.VERSION.SDK_INT >= Build.VERSION_CODES.Q) {
+            startForeground(NOTIFICATION_ID, notification, ServiceInfo.FOREGROUND_SERVICE_TYPE_LOCATION);
+        } else {
+            startForeground(NOTIFICATION_ID, notification);
+        }
+    }
+
+    private Notification buildNotification(int fixCount) {
+        NotificationManager nm = getSystemService(NotificationManager.class);
+        if (nm.getNotificationChannel(CHANNEL_ID) == null) {
+            nm.createNotificationChannel(new NotificationChannel(CHANNEL_ID, "轨迹采集",
+                    NotificationManager.IMPORTANCE_LOW));
+        }
+        PendingIntent open = PendingIntent.getActivity(this, 0,
+                new Intent(this, MainActivity.class), PendingIntent.FLAG_IMMUTABLE);
+        PendingIntent stop = PendingIntent.getService(this, 1,
+                new Intent(this, CaptureService.class).setAction(ACTION_STOP), PendingIntent.FLAG_IMMUTABLE);
+        return new NotificationCompat.Builder(this, CHANNEL_ID)
+                .setSmallIcon(android.R.drawable.ic_menu_mylocation)
+                .setContentTitle("正在采集轨迹")
+                .setContentText("已记录 " + fixCount + " 个点")
+                .setOngoing(true)
+                .setContentIntent(open)
+                .addAction(0, "停止", stop)
+                .build();
+    }
+
+    @Override
+    public IBinder onBind(Intent intent) {
+        return null;
+    }
+}
@@ -0,0 +1,189 @@
+package com.mock.location;
+
+import android.content.ContentProvider;
+import android.content.ContentValues;
+import android.content.Context;
+import android.database.Cursor;
+import android.net.Uri;
+import android.os.Binder;
+import android.os.Bundle;
+import android.os.Process;
+import android.util.AtomicFile;
+import android.util.Log;
+
+import androidx.annotation.NonNull;
+import androidx.annotation.Nullable;
+
+import com.mock.location.util.RecordManager;
+
+import java.io.File;
+import java.io.FileNotFoundException;
+import java.io.FileOutputStream;
+import java.nio.charset.StandardCharsets;
+
+/**
+ * 配置推送通道：被 Hook 进程通过 {@link #call} 读取当前配置 JSON，
+ * 并在 {@link #URI} 上注册 ContentObserver 接收变更通知，之后不再需要读 /data/local/tmp 下的文件。
+ * <p>
+ * 状态同时保存在 App 私有目录，App 进程重启后 Provider 仍能返回最近一次发布的配置。
+ * 目标应用看不到本 Provider（如 Android 11+ 的包可见性限制）时，Hook 侧继续使用文件通道。
+ * <p>
+ * Provider 必须导出才能被目标应用调用，因此 {@link #call} 按调用方 UID 校验：
+ * 只有本应用和已授权的包（见 {@link RecordManager#isProviderAllowed}）能读到配置，其余调用方视为没有状态。
+ */
+public class ConfigProvider extends ContentProvider {
+
+    public static final String AUTHORITY = "com.mock.location.config";
+    public static final Uri URI = Uri.parse("content://" + AUTHORITY + "/current");
+
+    public static final String METHOD_GET = "get";
+    /** 当前配置 JSON；停止模拟后不存在 */
+    public static final String KEY_JSON = "json";
+    /** true 表示已明确停止模拟 */
+    public static final String KEY_STOPPED = "stopped";
+
+    private static final String STATE_FILE = "provider_config.json";
+    private static final Object LOCK = new Object();
+
+    /** null：尚未加载；空串：已停止 */
+    private static String sJson;
+
+    /**
+     * 发布新配置并通知所有订阅的 Hook 进程。
+     *
+     * @return 状态是否已持久化；失败时 App 进程重启后 Provider 会返回旧状态
+     */
+    public static boolean publish(Context context, String json) {
+        return update(context, json != null ? json : "");
+    }
+
+    /**
+     * 停止模拟：订阅方回退到默认配置。
+     */
+    public static boolean clear(Context context) {
+        return update(context, "");
+    }
+
+    private static boolean update(Context context, String json) {
+        boolean persisted;
+        synchronized (LOCK) {
+            sJson = json;
+            // 整体替换而不是原地覆盖，写到一半被杀时下次加载读到的仍是上一次的完整状态
+            AtomicFile file = stateFile(context);
+            FileOutputStream fos = null;
+            try {
+                fos = file.startWrite();
+                fos.write(json.getBytes(StandardCharsets.UTF_8));
+                file.finishWrite(fos);
+                persisted = true;
+            } catch (Exception e) {
+                Log.e(Constant.TAG, "Failed to persist provider state", e);
+                if (fos != null) {
+                    file.failWrite(fos);
+                }
+                persisted = false;
+            }
+        }
+        context.getContentResolver().notifyChange(URI, null);
+        return persisted;
+    }
+
+    private static AtomicFile stateFile(Context context) {
+        return new AtomicFile(new File(context.getFilesDir(), STATE_FILE));
+    }
+
+    private String state() {
+        synchronized (LOCK) {
+            if (sJson == null) {
+                try {
+                    // readFully 会先从中断写入留下的备份恢复，不能只看基础文件是否存在
+                    sJson = new String(stateFile(getContext()).readFully(), StandardCharsets.UTF_8);
+                } catch (FileNotFoundException e) {
+                    // 从未通过 Provider 发布过
+                } catch (Exception e) {
+                    Log.e(Constant.TAG, "Failed to load provider state", e);
+                }
+            }
+            return sJson;
+        }
+    }
+
+    @Override
+    public boolean onCreate() {
+        return true;
+    }
+
+    /**
+     * 从未通过 Provider 发布过或调用方未授权时返回 null，Hook 侧以文件为准。
+     */
+    @Nullable
+    @Override
+    public Bundle call(@NonNull String method, @Nullable String arg, @Nullable Bundle extras) {
+        if (!METHOD_GET.equals(method) || !isCallerAllowed()) {
+            return null;
+        }
+        String json = state();
+        if (json == null) {
+            return null;
+        }
+        Bundle result = new Bundle();
+        if (json.isEmpty()) {
+            result.putBoolean(KEY_STOPPED, true);
+        } else {
+            result.putString(KEY_JSON, json);
+        }
+        return result;
+    }
+
+    /**
+     * 调用方 UID 下任一包名已授权即可；访问本 Provider 的应用对本应用总是可见，无需 &lt;queries&gt;。
+     */
+    private boolean isCallerAllowed() {
+        int uid = Binder.getCallingUid();
+        if (uid == Process.myUid()) {
+            return true;
+        }
+        String[] packages = getContext().getPackageManager().getPackagesForUid(uid);
+        if (packages != null) {
+            for (String packageName : packages) {
+                if (RecordManager.isProviderAllowed(getContext(), packageName)) {
+                    return true;
+                }
+            }
+        }
+        Log.w(Constant.TAG, "Config provider denied uid " + uid);
+        return false;
+    }
+
+    // 只通过 call 提供数据
+
+    @Nullable
+    @Override
+    public Cursor query(@NonNull Uri uri, @Nullable String[] projection, @Nullable String selection,
+                        @Nullable String[] selectionArgs, @Nullable String sortOrder) {
+        return null;
+    }
+
+    @Nullable
+    @Override
+    public String getType(@NonNull Uri uri) {
+        return null;
+    }
+
+    @Nullable
+    @Override
+    public Uri insert(@NonNull Uri uri, @Nullable ContentValues values) {
+        return null;
+    }
+
+    @Override
+    public int delete(@NonNull Uri uri, @Nullable String selection, @Nullable String[] selectionArgs) {
+        return 0;
+    }
+
+    @Override
+    public int update(@NonNull Uri uri, @Nullable ContentValues values, @Nullable String selection,
+                      @Nullable String[] selectionArgs) {
+        return 0;
+    }
+}
@@ -1,15 +1,23 @@
 package com.mock.location;
 
 import android.net.wifi.ScanResult;
+import android.os.Build;
+import android.os.SystemClock;
+import android.telephony.CellInfo;
+import android.telephony.TelephonyManager;
 
-import com.mock.location.model.LocationRecord;
-import com.mock.location.model.SerializableCellInfo;
-import com.mock.location.util.ConfigFileUtil;
-import com.mock.location.util.JsonUtils;
+import com.mock.location.hook.CellInfoInjector;
+import com.mock.location.hook.CellLocationInjector;
+import com.mock.location.hook.ConfigWatcher;
+import com.mock.location.hook.HookAccessors;
+import com.mock.location.hook.HookLog;
+import com.mock.location.hook.MockSnapshot;
+import com.mock.location.hook.ScanResultInjector;
+import com.mock.location.model.MockConfig;
 
-import java.util.ArrayList;
-import java.util.Collections;
+import java.lang.reflect.Method;
 import java.util.List;
+import java.util.concurrent.Executor;
 
 import de.robv.android.xposed.IXposedHookLoadPackage;
 import de.robv.android.xposed.XC_MethodHook;
@@ -18,7 +26,6 @@ import de.robv.android.xposed.XposedHelpers;
 import de.robv.android.xposed.callbacks.XC_LoadPackage.LoadPackageParam;
 
 public class HookMain implements IXposedHookLoadPackage {
-    private static final String TAG = "MockLocation";
 
     @Override
     public void handleLoadPackage(LoadPackageParam lpparam) throws Throwable {
@@ -28,249 +35,281 @@ public class HookMain implements IXposedHookLoadPackage {
             return;
         }
 
+        // 加载配置并在后台监听变化，Hook 回调只读取已发布的快照
+        ConfigWatcher.start(lpparam.packageName);
+
+        // 加载时已读到配置文件则按包的 Hook 计划安装，未选中的分组完全不安装。
+        // 仅 Provider 模式下此时还读不到配置（Provider 要等应用创建后才能访问），先安装全部分组，
+        // 回调再按 Provider 推送后的快照（MockSnapshot#hooks）决定是否注入
+        MockConfig loaded = ConfigWatcher.current().config;
+        int plan = loaded.generation != 0 ? loaded.hookPlanFor(lpparam.packageName) : MockConfig.HOOK_ALL;
+
         // Hook 基础 Android 定位
-        hookLocation(lpparam);
+        if ((plan & MockConfig.HOOK_LOCATION) != 0) {
+            hookLocation(lpparam);
+        }
 
         // 屏蔽 WiFi / 基站定位（防止辅助定位泄露真实位置）
-        hookNetworkLocation(lpparam);
-    }
-    public void handleLoad(LoadPackageParam lpparam) throws Throwable {
-
-        // 使用目标包的 ClassLoader 获取 android.location.Location 类
-        Class<?> locationClass = XposedHelpers.findClass("android.location.Location", lpparam.classLoader);
-
-        // Hook getLatitude
-        XposedHelpers.findAndHookMethod(
-                locationClass,
-                "getLatitude",
-                new XC_MethodHook() {
-                    @Override
-                    protected void afterHookedMethod(MethodHookParam param) {
-                        LocationRecord LocationRecord = readMockLocation();
-                        param.setResult(LocationRecord.getLat());
-                        XposedBridge.log(TAG + " locationClass: Location.getLatitude() -> "
-                                + LocationRecord.getLat()
-                        ); }
-                }
-        );
-
-        // Hook getLongitude
-        XposedHelpers.findAndHookMethod(
-                locationClass,
-                "getLongitude",
-                new XC_MethodHook() {
-                    @Override
-                    protected void afterHookedMethod(MethodHookParam param) {
-                        LocationRecord LocationRecord = readMockLocation();
-                        param.setResult(LocationRecord.getLng());
-                        XposedBridge.log(TAG + " locationClass: Location.getLongitude() -> "
-                                + LocationRecord.getLng()
-                        );
-                    }
-                }
-        );
+        if ((plan & (MockConfig.HOOK_WIFI | MockConfig.HOOK_CELL)) != 0) {
+            hookNetworkLocation(lpparam, plan);
+        }
     }
+
     // ==================== Hook Android 原生 Location ====================
     private void hookLocation(LoadPackageParam lpparam) {
         try {
-            final String packageName = lpparam.packageName;
+            Class<?> locationClass = XposedHelpers.findClass("android.location.Location", lpparam.classLoader);
 
-            XposedHelpers.findAndHookMethod(
-                    "android.location.Location",
-                    lpparam.classLoader,
-                    "getLatitude",
-                    new XC_MethodHook() {
-                        @Override
-                        protected void afterHookedMethod(MethodHookParam param) {
-                            try {
-                                LocationRecord LocationRecord = readMockLocation();
-                                param.setResult(LocationRecord.getLat());
-                                XposedBridge.log(TAG + ": Location.getLatitude() -> "
-                                        + LocationRecord.getLat()
-                                        + " pkg=" + packageName);
-                            } catch (Throwable t) {
-                                XposedBridge.log(TAG + ": Location.getLatitude hook error: " + t.getMessage());
-                            }
-                        }
-                    }
-            );
+            // 所有 getter 从同一个快照取值，每次调用只做一次 volatile 读
+            hookGetter(locationClass, "getLatitude", s -> s.fix().lat);
+            hookGetter(locationClass, "getLongitude", s -> s.fix().lng);
+            hookGetter(locationClass, "getAltitude", s -> s.fix().altitude);
+            hookGetter(locationClass, "getAccuracy", s -> s.fix().accuracy);
+            hookGetter(locationClass, "getBearing", s -> s.fix().bearing);
+            hookGetter(locationClass, "getSpeed", s -> s.fix().speed);
+            hookGetter(locationClass, "hasAltitude", s -> Boolean.TRUE);
+            hookGetter(locationClass, "hasAccuracy", s -> Boolean.TRUE);
+            hookGetter(locationClass, "hasBearing", s -> Boolean.TRUE);
+            hookGetter(locationClass, "hasSpeed", s -> Boolean.TRUE);
+            // 时间每次取当前值，setResult 只接受 Object，每次调用装箱一个 Long
+            hookGetter(locationClass, "getTime", s -> System.currentTimeMillis());
+            hookGetter(locationClass, "getElapsedRealtimeNanos", s -> SystemClock.elapsedRealtimeNanos());
+            hookGetter(locationClass, "isFromMockProvider", s -> Boolean.FALSE);
+            // API 31+
+            hookGetter(locationClass, "isMock", s -> Boolean.FALSE);
+        } catch (Throwable e) {
+            HookLog.e("Failed to hook Location: " + e.getMessage());
+        }
 
-            XposedHelpers.findAndHookMethod(
-                    "android.location.Location",
-                    lpparam.classLoader,
-                    "getLongitude",
-                    new XC_MethodHook() {
-                        @Override
-                        protected void afterHookedMethod(MethodHookParam param) {
-                            try {
-                                LocationRecord LocationRecord = readMockLocation();
-                                param.setResult(LocationRecord.getLng());
-                                XposedBridge.log(TAG + ": Location.getLongitude() -> "
-                                        + LocationRecord.getLng()
-                                        + " pkg=" + packageName);
-                            } catch (Throwable t) {
-                                XposedBridge.log(TAG + ": Location.getLongitude hook error: " + t.getMessage());
-                            }
+        // 监听器收到的 Location 同样经过上面的 getter，这里只需处理直接返回对象的 getLastKnownLocation
+        try {
+            Class<?> locationManagerClass = XposedHelpers.findClass(
+                    "android.location.LocationManager", lpparam.classLoader);
+            XposedBridge.hookAllMethods(locationManagerClass, "getLastKnownLocation", new XC_MethodHook() {
+                private final HookLog.Site log = HookLog.site("LocationManager.getLastKnownLocation()");
+
+                @Override
+                protected void afterHookedMethod(MethodHookParam param) {
+                    try {
+                        String provider = param.args.length > 0 && param.args[0] instanceof String
+                                ? (String) param.args[0]
+                                : null;
+                        MockSnapshot snapshot = ConfigWatcher.current();
+                        if (!snapshot.hooks(MockConfig.HOOK_LOCATION)) {
+                            return;
                         }
+                        param.setResult(snapshot.newLocation(provider));
+                        HookLog.d(log, "-> mocked location");
+                    } catch (Throwable t) {
+                        HookLog.e(log, "hook error: ", t);
                     }
-            );
+                }
+            });
         } catch (Throwable e) {
-            XposedBridge.log(TAG + ": Failed to hook Location: " + e.getMessage());
+            HookLog.e("Failed to hook LocationManager: " + e.getMessage());
+        }
+    }
+
+    /**
+     * 从快照取出 getter 的返回值；实现不捕获外部变量。
+     * 坐标与 Boolean 返回快照中预装箱的实例，不产生分配；路线回放每个时间片插值一次，
+     * 时间类 getter 每次调用装箱一个 Long。
+     */
+    private interface SnapshotValue {
+        Object get(MockSnapshot snapshot);
+    }
+
+    private static final class SnapshotGetterHook extends XC_MethodHook {
+        private final HookLog.Site log;
+        private final SnapshotValue value;
+
+        SnapshotGetterHook(String name, SnapshotValue value) {
+            this.log = HookLog.site(name);
+            this.value = value;
+        }
+
+        @Override
+        protected void afterHookedMethod(MethodHookParam param) {
+            try {
+                MockSnapshot snapshot = ConfigWatcher.current();
+                if (!snapshot.hooks(MockConfig.HOOK_LOCATION)) {
+                    return;
+                }
+                Object result = value.get(snapshot);
+                param.setResult(result);
+                HookLog.d(log, "-> ", result);
+            } catch (Throwable t) {
+                HookLog.e(log, "hook error: ", t);
+            }
+        }
+    }
+
+    /**
+     * Hook 无参 getter；方法在当前系统版本不存在时跳过。
+     */
+    private static void hookGetter(Class<?> cls, String methodName, SnapshotValue value) {
+        Method method = XposedHelpers.findMethodExactIfExists(cls, methodName);
+        if (method == null) {
+            return;
         }
+        XposedBridge.hookMethod(method, new SnapshotGetterHook(
+                cls.getSimpleName() + "." + methodName + "()", value));
     }
 
     // ==================== 屏蔽/注入网络定位（WiFi/基站）====================
-    private void hookNetworkLocation(LoadPackageParam lpparam) {
+    private void hookNetworkLocation(LoadPackageParam lpparam, int plan) {
         try {
-            final String packageName = lpparam.packageName;
             final ClassLoader classLoader = lpparam.classLoader;
 
-            // WiFi 扫描结果注入：使用保存的 BSSID 构造 List<ScanResult>
-            XposedHelpers.findAndHookMethod(
-                    "android.net.wifi.WifiManager",
-                    classLoader,
-                    "getScanResults",
-                    new XC_MethodHook() {
-                        @Override
-                        protected void afterHookedMethod(MethodHookParam param) {
-                            try {
-                                LocationRecord record = readMockLocation();
-                                if (record == null) {
-                                    return;
-                                }
-                                List<String> bssids = record.getWifiBssids();
-                                if (bssids == null || bssids.isEmpty()) {
-                                    // 没有保存的 WiFi 列表，保留原始结果
-                                    return;
-                                }
+            // 反射访问器按 ClassLoader 解析一次，失败结果同样缓存
+            HookAccessors accessors = HookAccessors.get(classLoader);
+            final ScanResultInjector scanResults = accessors.scanResults;
+            final CellLocationInjector cellLocation = accessors.cellLocation;
+            final CellInfoInjector cellInfos = accessors.cellInfos;
 
-                                Class<?> scanResultClass = XposedHelpers.findClass(
-                                        "android.net.wifi.ScanResult",
-                                        classLoader
-                                );
+            // WiFi 扫描结果注入：按保存的指纹构造 List<ScanResult>，每个扫描周期只构造一次
+            if (scanResults != null && (plan & MockConfig.HOOK_WIFI) != 0) {
+                XposedHelpers.findAndHookMethod(
+                        "android.net.wifi.WifiManager",
+                        classLoader,
+                        "getScanResults",
+                        new XC_MethodHook() {
+                            private final HookLog.Site log = HookLog.site("WifiManager.getScanResults()");
 
-                                List<ScanResult> mockedList = new ArrayList<>();
-                                for (String bssid : bssids) {
-                                    if (bssid == null || bssid.isEmpty()) {
-                                        continue;
+                            @Override
+                            protected void afterHookedMethod(MethodHookParam param) {
+                                try {
+                                    MockSnapshot snapshot = ConfigWatcher.current();
+                                    if (!snapshot.hooks(MockConfig.HOOK_WIFI)) {
+                                        return;
+                                    }
+                                    List<ScanResult> mockedList = scanResults.scanResults(snapshot);
+                                    if (mockedList == null) {
+                                        // 没有保存的 WiFi 列表，保留原始结果
+                                        return;
                                     }
-                                    Object obj = XposedHelpers.newInstance(scanResultClass);
-                                    ScanResult sr = (ScanResult) obj;
-
-                                    // 通过反射安全设置字段，任一失败则整体回退到原始结果
-                                    XposedHelpers.setObjectField(sr, "BSSID", bssid);
-                                    XposedHelpers.setObjectField(sr, "SSID", "mock");
-                                    try {
-                                        XposedHelpers.setIntField(sr, "level", -50);
-                                    } catch (Throwable ignored) {
-                                        // 某些版本字段名可能变化，忽略
+
+                                    param.setResult(mockedList);
+                                    HookLog.i(log, "-> injected BSSID(s): ", mockedList.size());
+                                } catch (Throwable t) {
+                                    // 任何反射错误都回退到原始结果，避免崩溃
+                                    HookLog.e(log, "inject error: ", t);
+                                }
+                            }
+                        }
+                );
+            }
+
+            // 基站定位注入：主小区按制式构造 GsmCellLocation
+            if (cellLocation != null && (plan & MockConfig.HOOK_CELL) != 0) {
+                XposedHelpers.findAndHookMethod(
+                        "android.telephony.TelephonyManager",
+                        classLoader,
+                        "getCellLocation",
+                        new XC_MethodHook() {
+                            private final HookLog.Site log = HookLog.site("TelephonyManager.getCellLocation()");
+
+                            @Override
+                            protected void afterHookedMethod(MethodHookParam param) {
+                                try {
+                                    MockSnapshot snapshot = ConfigWatcher.current();
+                                    if (!snapshot.hooks(MockConfig.HOOK_CELL)) {
+                                        return;
                                     }
-                                    try {
-                                        XposedHelpers.setIntField(sr, "frequency", 2412);
-                                    } catch (Throwable ignored) {
+                                    Object gsmCellLocation = cellLocation.cellLocation(snapshot);
+                                    if (gsmCellLocation == null) {
+                                        return;
                                     }
 
-                                    mockedList.add(sr);
+                                    param.setResult(gsmCellLocation);
+                                    HookLog.i(log, "-> injected GsmCellLocation");
+                                } catch (Throwable t) {
+                                    HookLog.e(log, "inject error: ", t);
                                 }
+                            }
+                        }
+                );
+            }
 
-                                param.setResult(mockedList);
-                                XposedBridge.log(TAG + ": WifiManager.getScanResults() -> injected "
-                                        + mockedList.size() + " BSSID(s), pkg=" + packageName);
-                            } catch (Throwable t) {
-                                // 任何反射错误都回退到原始结果，避免崩溃
-                                XposedBridge.log(TAG + ": WifiManager.getScanResults inject error: " + t.getMessage());
+            // 基站列表注入：主小区与邻区的 CellInfo 按配置版本构造一次
+            if (cellInfos != null && (plan & MockConfig.HOOK_CELL) != 0) {
+                XposedHelpers.findAndHookMethod(
+                        "android.telephony.TelephonyManager",
+                        classLoader,
+                        "getAllCellInfo",
+                        new XC_MethodHook() {
+                            private final HookLog.Site log = HookLog.site("TelephonyManager.getAllCellInfo()");
+
+                            @Override
+                            protected void afterHookedMethod(MethodHookParam param) {
+                                try {
+                                    MockSnapshot snapshot = ConfigWatcher.current();
+                                    if (!snapshot.hooks(MockConfig.HOOK_CELL)) {
+                                        return;
+                                    }
+                                    List<CellInfo> cells = cellInfos.cellInfos(snapshot);
+                                    if (cells == null) {
+                                        return;
+                                    }
+
+                                    param.setResult(cells);
+                                    HookLog.i(log, "-> injected CellInfo(s): ", cells.size());
+                                } catch (Throwable t) {
+                                    HookLog.e(log, "inject error: ", t);
+                                }
                             }
                         }
-                    }
-            );
+                );
+                hookRequestCellInfoUpdate(classLoader, cellInfos);
+            }
+        } catch (Throwable e) {
+            HookLog.e("Network location hook failed: " + e.getMessage());
+        }
+    }
 
-            // 基站定位注入：仅对 GSM/WCDMA 构造 GsmCellLocation
+    /**
+     * requestCellInfoUpdate（API 29+）：有注入列表时不发起真实请求，直接在调用方的 Executor 上回调。
+     */
+    private void hookRequestCellInfoUpdate(ClassLoader classLoader, CellInfoInjector cellInfos) {
+        if (Build.VERSION.SDK_INT < Build.VERSION_CODES.Q) {
+            return;
+        }
+        try {
             XposedHelpers.findAndHookMethod(
                     "android.telephony.TelephonyManager",
                     classLoader,
-                    "getCellLocation",
+                    "requestCellInfoUpdate",
+                    Executor.class,
+                    TelephonyManager.CellInfoCallback.class,
                     new XC_MethodHook() {
+                        private final HookLog.Site log = HookLog.site("TelephonyManager.requestCellInfoUpdate()");
+
                         @Override
-                        protected void afterHookedMethod(MethodHookParam param) {
+                        protected void beforeHookedMethod(MethodHookParam param) {
                             try {
-                                LocationRecord record = readMockLocation();
-                                if (record == null) {
-                                    return;
-                                }
-                                SerializableCellInfo cellInfo = record.getCellInfo();
-                                if (cellInfo == null) {
+                                MockSnapshot snapshot = ConfigWatcher.current();
+                                if (!snapshot.hooks(MockConfig.HOOK_CELL)) {
                                     return;
                                 }
-
-                                String nt = cellInfo.networkType != null
-                                        ? cellInfo.networkType.toUpperCase()
-                                        : "";
-                                if (!"GSM".equals(nt) && !"WCDMA".equals(nt)) {
-                                    // LTE/NR 等保持原始结果
+                                List<CellInfo> cells = cellInfos.cellInfos(snapshot);
+                                if (cells == null) {
                                     return;
                                 }
 
-                                Class<?> gsmCellLocationClass = XposedHelpers.findClass(
-                                        "android.telephony.gsm.GsmCellLocation",
-                                        classLoader
-                                );
-                                Object gsmCellLocation = XposedHelpers.newInstance(gsmCellLocationClass);
-
-                                boolean applied = false;
-                                try {
-                                    XposedHelpers.callMethod(gsmCellLocation, "setLacAndCid",
-                                            cellInfo.lac, cellInfo.cid);
-                                    applied = true;
-                                } catch (Throwable methodError) {
-                                    try {
-                                        XposedHelpers.setIntField(gsmCellLocation, "mLac", cellInfo.lac);
-                                        XposedHelpers.setIntField(gsmCellLocation, "mCid", cellInfo.cid);
-                                        applied = true;
-                                    } catch (Throwable fieldError) {
-                                        XposedBridge.log(TAG + ": GsmCellLocation setLacAndCid/mLac/mCid failed: "
-                                                + fieldError.getMessage());
-                                    }
-                                }
-
-                                if (!applied) {
-                                    // 无法安全设置 LAC/CID，保留原始结果
-                                    return;
-                                }
-
-                                param.setResult(gsmCellLocation);
-                                XposedBridge.log(TAG + ": TelephonyManager.getCellLocation() -> injected LAC="
-                                        + cellInfo.lac + ", CID=" + cellInfo.cid + ", pkg=" + packageName);
+                                Executor executor = (Executor) param.args[0];
+                                TelephonyManager.CellInfoCallback callback =
+                                        (TelephonyManager.CellInfoCallback) param.args[1];
+                                executor.execute(() -> callback.onCellInfo(cells));
+                                param.setResult(null);
+                                HookLog.i(log, "-> injected CellInfo(s): ", cells.size());
                             } catch (Throwable t) {
-                                XposedBridge.log(TAG + ": getCellLocation inject error: " + t.getMessage());
+                                HookLog.e(log, "inject error: ", t);
                             }
                         }
                     }
             );
-
-            // 注意：不再 Hook getAllCellInfo，避免脆弱的 CellInfo 模拟
         } catch (Throwable e) {
-            XposedBridge.log(TAG + ": Network location hook failed: " + e.getMessage());
-        }
-    }
-
-    // ==================== 工具方法 ====================
-
-    /**
-     * 从 /data/local/tmp/mock_location.loc 读取 JSON，反序列化为 LocationRecord
-     */
-    private static LocationRecord readMockLocation() {
-        String jsonStr = ConfigFileUtil.readString();
-        if (jsonStr != null) {
-            try {
-                LocationRecord info = JsonUtils.fromJson(jsonStr, LocationRecord.class);
-                if (info != null) {
-                    return info;
-                }
-            } catch (Throwable e) {
-                XposedBridge.log(TAG + ": Parse JSON failed: " + e.getMessage());
-            }
+            HookLog.e("Failed to hook requestCellInfoUpdate: " + e.getMessage());
         }
-        // 兜底：返回默认坐标，保证不为 null
-        return LocationRecord.DefaultValue();
     }
 }
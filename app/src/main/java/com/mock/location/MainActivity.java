@@ -5,11 +5,18 @@ import android.content.Context;
 import android.content.Intent;
 import android.content.pm.PackageManager;
 import android.location.Criteria;
+import android.database.Cursor;
 import android.location.LocationManager;
+import android.net.Uri;
+import android.os.Build;
 import android.os.Bundle;
 import android.os.Handler;
 import android.os.Looper;
+import android.os.SystemClock;
+import android.provider.OpenableColumns;
 import android.provider.Settings;
+import android.text.InputType;
+import android.text.TextUtils;
 import android.util.Log;
 import android.view.Menu;
 import android.view.MenuItem;
@@ -19,6 +26,7 @@ import android.widget.Toast;
 import androidx.annotation.NonNull;
 import androidx.appcompat.app.AlertDialog;
 import androidx.appcompat.app.AppCompatActivity;
+import androidx.appcompat.widget.SearchView;
 import androidx.core.app.ActivityCompat;
 import androidx.core.content.ContextCompat;
 import androidx.recyclerview.widget.LinearLayoutManager;
@@ -27,18 +35,42 @@ import androidx.recyclerview.widget.RecyclerView;
 import com.google.android.material.textfield.TextInputEditText;
 import com.mock.location.adapter.RecordSelectAdapter;
 import com.mock.location.model.LocationRecord;
+import com.mock.location.model.MockConfig;
+import com.mock.location.model.RecordQuery;
+import com.mock.location.route.CaptureLog;
+import com.mock.location.route.RouteImporter;
+import com.mock.location.route.RoutePlayer;
 import com.mock.location.util.ConfigFileUtil;
+import com.mock.location.util.IoExecutor;
 import com.mock.location.util.RecordManager;
+import com.mock.location.util.RecordPager;
+import com.mock.location.util.RecordRepository;
+import com.mock.location.util.RouteManager;
 
+import java.io.File;
+import java.io.InputStream;
+import java.util.HashSet;
 import java.util.List;
+import java.util.Set;
 
-public class MainActivity extends AppCompatActivity {
+public class MainActivity extends AppCompatActivity implements RecordRepository.Listener {
 
     private static final int REQUEST_LOCATION_PERMISSION = 100;
+    private static final int REQUEST_IMPORT_ROUTE = 101;
+    private static final int REQUEST_CAPTURE_PERMISSION = 102;
+    private static final String[] CAPTURE_INTERVAL_LABELS = {"1 秒", "2 秒", "5 秒", "10 秒"};
+    private static final long[] CAPTURE_INTERVALS_MS = {1000, 2000, 5000, 10_000};
+    /** 开始/停止模拟共用的合并 key：连续点击只发布最后一次 */
+    private static final String KEY_PUBLISH = "publish-config";
+    /** 搜索输入停顿这么久后才查询 */
+    private static final long SEARCH_DELAY_MS = 300;
     private AlertDialog loadingDialog;
     private boolean isCollecting = false; // 防止重复点击
 
     private RecordSelectAdapter adapter;
+    private RecordRepository repository;
+    private RecordPager pager;
+    private final Handler searchHandler = new Handler(Looper.getMainLooper());
     private Button btnStartMock, btnCancelMock;
 
     @Override
@@ -46,6 +78,7 @@ public class MainActivity extends AppCompatActivity {
         super.onCreate(savedInstanceState);
         setContentView(R.layout.activity_main);
 
+        repository = RecordRepository.getInstance(this);
         RecyclerView recyclerView = findViewById(R.id.recycler_records);
         btnStartMock = findViewById(R.id.btn_start_mock);
         btnCancelMock = findViewById(R.id.btn_cancel_mock);
@@ -55,8 +88,8 @@ public class MainActivity extends AppCompatActivity {
             btnStartMock.setEnabled(true);
         });
         recyclerView.setAdapter(adapter);
-
-        loadRecords();
+        pager = new RecordPager(this, adapter::updateRecords);
+        pager.attachTo(recyclerView);
 
         btnStartMock.setOnClickListener(v -> startMock());
         btnCancelMock.setOnClickListener(v -> cancelMock());
@@ -76,9 +109,39 @@ public class MainActivity extends AppCompatActivity {
     @Override
     public boolean onCreateOptionsMenu(Menu menu) {
         getMenuInflater().inflate(R.menu.menu_main, menu);
+        SearchView searchView = (SearchView) menu.findItem(R.id.action_search).getActionView();
+        searchView.setQueryHint("按名称搜索");
+        searchView.setOnQueryTextListener(new SearchView.OnQueryTextListener() {
+            @Override
+            public boolean onQueryTextSubmit(String query) {
+                search(query);
+                return true;
+            }
+
+            @Override
+            public boolean onQueryTextChange(String newText) {
+                searchHandler.removeCallbacksAndMessages(null);
+                searchHandler.postDelayed(() -> search(newText), SEARCH_DELAY_MS);
+                return true;
+            }
+        });
         return true;
     }
 
+    @Override
+    public boolean onPrepareOptionsMenu(Menu menu) {
+        menu.findItem(R.id.action_capture).setTitle(CaptureService.isRunning() ? "停止采集轨迹" : "连续采集轨迹");
+        return super.onPrepareOptionsMenu(menu);
+    }
+
+    private void search(String text) {
+        searchHandler.removeCallbacksAndMessages(null);
+        String name = text != null ? text.trim() : "";
+        RecordQuery current = pager.getQuery();
+        if (name.equals(current.name != null ? current.name : "")) return;
+        pager.setQuery(RecordQuery.all().withName(name, false));
+    }
+
     @Override
     public boolean onOptionsItemSelected(@NonNull MenuItem item) {
         int id = item.getItemId();
@@ -88,10 +151,313 @@ public class MainActivity extends AppCompatActivity {
         } else if (id == R.id.action_manage) {
             startActivity(new Intent(this, RecordListActivity.class));
             return true;
+        } else if (id == R.id.action_hook_plan) {
+            showHookPlanDialog();
+            return true;
+        } else if (id == R.id.action_hook_log) {
+            showHookLogLevelDialog();
+            return true;
+        } else if (id == R.id.action_config_channel) {
+            showConfigChannelDialog();
+            return true;
+        } else if (id == R.id.action_import_route) {
+            pickRouteFile();
+            return true;
+        } else if (id == R.id.action_play_route) {
+            showRouteListDialog();
+            return true;
+        } else if (id == R.id.action_capture) {
+            toggleCapture();
+            return true;
         }
         return super.onOptionsItemSelected(item);
     }
 
+    private void showHookPlanDialog() {
+        TextInputEditText input = new TextInputEditText(this);
+        input.setHint("目标应用包名，如 com.example.app");
+
+        new AlertDialog.Builder(this)
+                .setTitle("按应用设置 Hook 范围")
+                .setView(input)
+                .setPositiveButton("下一步", (dialog, which) -> {
+                    String packageName = input.getText() != null ? input.getText().toString().trim() : "";
+                    if (packageName.isEmpty()) {
+                        Toast.makeText(this, "请输入包名", Toast.LENGTH_SHORT).show();
+                        return;
+                    }
+                    showHookGroupsDialog(packageName);
+                })
+                .setNegativeButton("取消", null)
+                .show();
+    }
+
+    private void showHookGroupsDialog(String packageName) {
+        String[] groups = {"定位 (Location)", "WiFi 扫描", "基站"};
+        int[] flags = {MockConfig.HOOK_LOCATION, MockConfig.HOOK_WIFI, MockConfig.HOOK_CELL};
+        Integer saved = RecordManager.getHookPlans(this).get(packageName);
+        int plan = saved != null ? saved : MockConfig.HOOK_ALL;
+        boolean[] checked = new boolean[groups.length];
+        for (int i = 0; i < flags.length; i++) {
+            checked[i] = (plan & flags[i]) != 0;
+        }
+
+        new AlertDialog.Builder(this)
+                .setTitle(packageName)
+                .setMultiChoiceItems(groups, checked, (dialog, which, isChecked) -> checked[which] = isChecked)
+                .setPositiveButton("保存", (dialog, which) -> {
+                    int newPlan = 0;
+                    for (int i = 0; i < flags.length; i++) {
+                        if (checked[i]) newPlan |= flags[i];
+                    }
+                    RecordManager.setHookPlan(this, packageName, newPlan);
+                    Toast.makeText(this, "重新开始模拟并重启目标应用后生效", Toast.LENGTH_SHORT).show();
+                })
+                .setNegativeButton("取消", null)
+                .show();
+    }
+
+    private void showHookLogLevelDialog() {
+        String[] levels = {"关闭", "错误", "信息", "调试"};
+        int current = RecordManager.getHookLogLevel(this);
+        new AlertDialog.Builder(this)
+                .setTitle("Hook 日志级别")
+                .setSingleChoiceItems(levels, current, (dialog, which) -> {
+                    RecordManager.setHookLogLevel(this, which);
+                    dialog.dismiss();
+                    Toast.makeText(this, "重新开始模拟后生效", Toast.LENGTH_SHORT).show();
+                })
+                .setNegativeButton("取消", null)
+                .show();
+    }
+
+    private void showConfigChannelDialog() {
+        String[] channels = {"Root 文件（同时推送给 Provider）", "仅 Provider（无需 Root，不支持路线回放）"};
+        int current = RecordManager.isProviderOnly(this) ? 1 : 0;
+        new AlertDialog.Builder(this)
+                .setTitle("配置推送通道")
+                .setSingleChoiceItems(channels, current, (dialog, which) -> {
+                    RecordManager.setProviderOnly(this, which == 1);
+                    dialog.dismiss();
+                    showProviderPackagesDialog();
+                })
+                .setNegativeButton("取消", null)
+                .show();
+    }
+
+    /**
+     * Provider 只向授权的包返回配置；设置过 Hook 范围的包自动授权。
+     */
+    private void showProviderPackagesDialog() {
+        TextInputEditText input = new TextInputEditText(this);
+        input.setHint("每行一个包名，如 com.example.app");
+        input.setText(TextUtils.join("\n", RecordManager.getProviderPackages(this)));
+
+        new AlertDialog.Builder(this)
+                .setTitle("允许通过 Provider 读取配置的应用")
+                .setView(input)
+                .setPositiveButton("保存", (dialog, which) -> {
+                    Set<String> packages = new HashSet<>();
+                    String text = input.getText() != null ? input.getText().toString() : "";
+                    for (String line : text.split("\\s+")) {
+                        if (!line.isEmpty()) packages.add(line);
+                    }
+                    RecordManager.setProviderPackages(this, packages);
+                    Toast.makeText(this, "重新开始模拟后生效", Toast.LENGTH_SHORT).show();
+                })
+                .setNegativeButton("取消", null)
+                .show();
+    }
+
+    // ===== 路线导入与回放 =====
+    private void pickRouteFile() {
+        Intent intent = new Intent(Intent.ACTION_OPEN_DOCUMENT);
+        intent.addCategory(Intent.CATEGORY_OPENABLE);
+        intent.setType("*/*");
+        startActivityForResult(intent, REQUEST_IMPORT_ROUTE);
+    }
+
+    @Override
+    protected void onActivityResult(int requestCode, int resultCode, Intent data) {
+        super.onActivityResult(requestCode, resultCode, data);
+        if (requestCode == REQUEST_IMPORT_ROUTE && resultCode == RESULT_OK && data != null && data.getData() != null) {
+            showImportRouteDialog(data.getData());
+        }
+    }
+
+    private void showImportRouteDialog(Uri uri) {
+        String fileName = queryDisplayName(uri);
+        RouteImporter.Format format = RouteImporter.Format.fromFileName(fileName);
+        if (format == null) {
+            Toast.makeText(this, "仅支持 GPX / KML / GeoJSON 文件", Toast.LENGTH_SHORT).show();
+            return;
+        }
+
+        TextInputEditText input = new TextInputEditText(this);
+        input.setInputType(InputType.TYPE_CLASS_NUMBER | InputType.TYPE_NUMBER_FLAG_DECIMAL);
+        input.setText(String.valueOf(RecordManager.getRouteTolerance(this)));
+        input.setHint("简化容差（米），0 表示不简化");
+
+        new AlertDialog.Builder(this)
+                .setTitle("导入路线：" + fileName)
+                .setView(input)
+                .setPositiveButton("导入", (dialog, which) -> {
+                    float tolerance;
+                    try {
+                        tolerance = Float.parseFloat(input.getText() != null ? input.getText().toString().trim() : "");
+                    } catch (NumberFormatException e) {
+                        tolerance = RecordManager.getRouteTolerance(this);
+                    }
+                    RecordManager.setRouteTolerance(this, tolerance);
+                    importRoute(uri, fileName, format, tolerance);
+                })
+                .setNegativeButton("取消", null)
+                .show();
+    }
+
+    private void importRoute(Uri uri, String fileName, RouteImporter.Format format, float tolerance) {
+        showLoadingDialog("正在导入路线", "大文件可能需要一些时间...");
+        File target = RouteManager.newRouteFile(this, fileName);
+        Context appContext = getApplicationContext();
+        IoExecutor.submitLong(() -> {
+            try (InputStream in = appContext.getContentResolver().openInputStream(uri)) {
+                if (in == null) {
+                    throw new java.io.IOException("Cannot open " + uri);
+                }
+                int count = RouteImporter.importRoute(in, format, target, tolerance);
+                return "✅ 已导入 " + RouteManager.displayName(target) + "（" + count + " 个航点）";
+            } catch (Exception e) {
+                Log.e(TAG, "Failed to import route", e);
+                target.delete();
+                return "❌ 导入失败：" + e.getMessage();
+            }
+        }, this::onLongTaskFinished);
+    }
+
+    private void onLongTaskFinished(String message) {
+        if (isDestroyed()) return;
+        dismissLoadingDialog();
+        Toast.makeText(this, message, Toast.LENGTH_LONG).show();
+    }
+
+    private String queryDisplayName(Uri uri) {
+        try (Cursor cursor = getContentResolver().query(uri,
+                new String[]{OpenableColumns.DISPLAY_NAME}, null, null, null)) {
+            if (cursor != null && cursor.moveToFirst()) {
+                String name = cursor.getString(0);
+                if (name != null) return name;
+            }
+        } catch (Exception e) {
+            Log.w(TAG, "Failed to query display name", e);
+        }
+        return uri.getLastPathSegment();
+    }
+
+    // ===== 连续采集轨迹 =====
+    private void toggleCapture() {
+        if (CaptureService.isRunning()) {
+            CaptureService.stop(this);
+            return;
+        }
+        File log = CaptureService.getLogFile(this);
+        if (log.length() > 0) {
+            new AlertDialog.Builder(this)
+                    .setTitle("上次采集的轨迹尚未保存")
+                    .setPositiveButton("保存为路线", (dialog, which) -> showSaveCaptureDialog(log))
+                    .setNegativeButton("丢弃并重新采集", (dialog, which) -> {
+                        log.delete();
+                        requestCapture();
+                    })
+                    .show();
+            return;
+        }
+        requestCapture();
+    }
+
+    private void requestCapture() {
+        if (ContextCompat.checkSelfPermission(this, Manifest.permission.ACCESS_FINE_LOCATION)
+                == PackageManager.PERMISSION_GRANTED) {
+            showCaptureIntervalDialog();
+            return;
+        }
+        // 通知权限可选：未授予时服务照常运行，只是不显示通知
+        String[] permissions = Build.VERSION.SDK_INT >= Build.VERSION_CODES.TIRAMISU
+                ? new String[]{Manifest.permission.ACCESS_FINE_LOCATION, Manifest.permission.POST_NOTIFICATIONS}
+                : new String[]{Manifest.permission.ACCESS_FINE_LOCATION};
+        ActivityCompat.requestPermissions(this, permissions, REQUEST_CAPTURE_PERMISSION);
+    }
+
+    private void showCaptureIntervalDialog() {
+        new AlertDialog.Builder(this)
+                .setTitle("采集间隔")
+                .setItems(CAPTURE_INTERVAL_LABELS, (dialog, which) -> {
+                    CaptureService.start(this, CAPTURE_INTERVALS_MS[which]);
+                    Toast.makeText(this, "开始采集，可在通知栏或菜单中停止", Toast.LENGTH_SHORT).show();
+                    invalidateOptionsMenu();
+                })
+                .setNegativeButton("取消", null)
+                .show();
+    }
+
+    private void onCaptureFinished(File log, int fixCount) {
+        invalidateOptionsMenu();
+        if (fixCount == 0) {
+            log.delete();
+            Toast.makeText(this, "未采集到定位点", Toast.LENGTH_SHORT).show();
+            return;
+        }
+        showSaveCaptureDialog(log);
+    }
+
+    private void showSaveCaptureDialog(File log) {
+        TextInputEditText input = new TextInputEditText(this);
+        input.setHint("路线名称");
+        input.setText("轨迹" + (RouteManager.getAllRoutes(this).size() + 1));
+
+        new AlertDialog.Builder(this)
+                .setTitle("保存采集的轨迹")
+                .setView(input)
+                .setPositiveButton("保存", (dialog, which) -> {
+                    String name = input.getText() != null ? input.getText().toString().trim() : "";
+                    saveCapture(log, name, RecordManager.getRouteTolerance(this));
+                })
+                .setNegativeButton("稍后", null)
+                .show();
+    }
+
+    private void saveCapture(File log, String name, float tolerance) {
+        showLoadingDialog("正在保存路线", "请稍候...");
+        File target = RouteManager.newRouteFile(this, name);
+        IoExecutor.submitLong(() -> {
+            try {
+                int count = CaptureLog.toRoute(log, target, tolerance);
+                log.delete();
+                return "✅ 已保存 " + RouteManager.displayName(target) + "（" + count + " 个航点）";
+            } catch (Exception e) {
+                Log.e(TAG, "Failed to save captured route", e);
+                target.delete();
+                return "❌ 保存失败：" + e.getMessage();
+            }
+        }, this::onLongTaskFinished);
+    }
+
+    private void showRouteListDialog() {
+        List<File> routes = RouteManager.getAllRoutes(this);
+        if (routes.isEmpty()) {
+            Toast.makeText(this, "暂无路线，请先导入", Toast.LENGTH_SHORT).show();
+            return;
+        }
+        String[] names = new String[routes.size()];
+        for (int i = 0; i < names.length; i++) {
+            names[i] = RouteManager.displayName(routes.get(i));
+        }
+        new AlertDialog.Builder(this)
+                .setTitle("播放路线")
+                .setItems(names, (dialog, which) -> startRoute(routes.get(which)))
+                .setNegativeButton("取消", null)
+                .show();
+    }
+
     private void collectAndAddRecord() {
         if (isCollecting) return; // 防止重复触发
         isCollecting = true;
@@ -133,6 +499,13 @@ public class MainActivity extends AppCompatActivity {
                 isCollecting = false;
                 Toast.makeText(this, "需要定位和电话状态权限才能记录位置", Toast.LENGTH_SHORT).show();
             }
+        } else if (requestCode == REQUEST_CAPTURE_PERMISSION) {
+            if (ContextCompat.checkSelfPermission(this, Manifest.permission.ACCESS_FINE_LOCATION)
+                    == PackageManager.PERMISSION_GRANTED) {
+                showCaptureIntervalDialog();
+            } else {
+                Toast.makeText(this, "需要定位权限才能采集轨迹", Toast.LENGTH_SHORT).show();
+            }
         }
     }
 
@@ -142,31 +515,13 @@ public class MainActivity extends AppCompatActivity {
         Log.d(TAG, "【doCollectLocation】开始请求定位");
 
         // 显示 Loading 弹窗
-        if (loadingDialog == null || !loadingDialog.isShowing()) {
-            AlertDialog.Builder builder = new AlertDialog.Builder(this);
-            builder.setTitle("正在获取当前位置");
-            builder.setMessage("请稍候...\n确保 GPS 或网络定位已开启");
-            builder.setCancelable(false);
-            builder.setView(R.layout.dialog_loading);
-            loadingDialog = builder.create();
-            loadingDialog.show();
-        }
-
-        Handler handler = new Handler(Looper.getMainLooper());
-        Runnable timeoutRunnable = () -> {
-            Log.w(TAG, "【TIMEOUT】定位请求超时（15秒）");
-            runOnUiThread(() -> {
-                dismissLoadingDialog();
-                Toast.makeText(MainActivity.this, "❌ 获取位置超时，请重试", Toast.LENGTH_LONG).show();
-                isCollecting = false;
-            });
-        };
-        handler.postDelayed(timeoutRunnable, 15000);
+        showLoadingDialog("正在获取当前位置", "请稍候...\n确保 GPS 或网络定位已开启");
 
         Log.d(TAG, "【CALL】调用 RealLocationCollector.collectCurrentLocation(...)");
         RealLocationCollector.collectCurrentLocation(this, new RealLocationCollector.OnLocationCollectedCallback() {
             @Override
             public void onCollected(LocationRecord record) {
+                if (isDestroyed()) return;
                 int wifiCount = (record.wifiBssids != null) ? record.wifiBssids.size() : 0;
                 boolean hasCellInfo = record.cellInfo != null;
                 Log.d(TAG, "【onCollected】lat=" + record.lat + ", lng=" + record.lng
@@ -180,6 +535,7 @@ public class MainActivity extends AppCompatActivity {
             @Override
             public void onError(String error) {
                 Log.w(TAG, "【onCollected:onError】" + error);
+                if (isDestroyed()) return;
                 dismissLoadingDialog();
                 Toast.makeText(MainActivity.this, error, Toast.LENGTH_SHORT).show();
                 isCollecting = false;
@@ -189,6 +545,18 @@ public class MainActivity extends AppCompatActivity {
         Log.d(TAG, "【END】doCollectLocation 执行完毕（已发起定位请求）");
     }
 
+    private void showLoadingDialog(String title, String message) {
+        if (loadingDialog == null || !loadingDialog.isShowing()) {
+            AlertDialog.Builder builder = new AlertDialog.Builder(this);
+            builder.setTitle(title);
+            builder.setMessage(message);
+            builder.setCancelable(false);
+            builder.setView(R.layout.dialog_loading);
+            loadingDialog = builder.create();
+            loadingDialog.show();
+        }
+    }
+
     private void dismissLoadingDialog() {
         if (loadingDialog != null && loadingDialog.isShowing()) {
             loadingDialog.dismiss();
@@ -197,12 +565,8 @@ public class MainActivity extends AppCompatActivity {
     }
 
     private void showSaveDialog(LocationRecord record) {
-        List<LocationRecord> existing = RecordManager.getAllRecords(this);
-        String defaultName = "记录" + (existing.size() + 1);
-
         TextInputEditText input = new TextInputEditText(this);
-        input.setText(defaultName);
-        input.setHint("输入记录名称");
+        input.setHint("输入记录名称，留空按序号自动命名");
 
         AlertDialog.Builder builder = new AlertDialog.Builder(this);
         builder.setTitle("保存新记录");
@@ -211,10 +575,13 @@ public class MainActivity extends AppCompatActivity {
         String cellInfoPreview;
         if (record.cellInfo != null && record.cellInfo.networkType != null) {
             cellInfoPreview = record.cellInfo.networkType
-                    + "/" + record.cellInfo.mcc
-                    + "/" + record.cellInfo.mnc
+                    + "/" + (record.cellInfo.mccStr != null ? record.cellInfo.mccStr : record.cellInfo.mcc)
+                    + "/" + (record.cellInfo.mncStr != null ? record.cellInfo.mncStr : record.cellInfo.mnc)
                     + "/" + record.cellInfo.lac
-                    + "/" + record.cellInfo.cid;
+                    + "/" + (record.cellInfo.nci >= 0 ? record.cellInfo.nci : record.cellInfo.cid);
+            if (record.neighborCells != null) {
+                cellInfoPreview += "（邻区 " + record.neighborCells.size() + " 个）";
+            }
         } else {
             cellInfoPreview = "无";
         }
@@ -225,13 +592,14 @@ public class MainActivity extends AppCompatActivity {
 
         builder.setPositiveButton("确认", (dialog, which) -> {
             String name = input.getText().toString().trim();
-            if (name.isEmpty()) name = defaultName;
-            record.name = name;
+            // 留空时由 RecordManager.addRecord 按新记录的 id 命名
+            record.name = name.isEmpty() ? null : name;
             record.timestamp = System.currentTimeMillis();
 
-            RecordManager.addRecord(this, record);
-            loadRecords();
-            Toast.makeText(this, "✅ 已保存：" + name, Toast.LENGTH_SHORT).show();
+            repository.add(record, id -> {
+                if (isDestroyed()) return;
+                Toast.makeText(this, id > 0 ? "✅ 已保存：" + record.name : "❌ 保存失败", Toast.LENGTH_SHORT).show();
+            });
             isCollecting = false;
         });
 
@@ -243,27 +611,80 @@ public class MainActivity extends AppCompatActivity {
         builder.show();
     }
 
-    private void loadRecords() {
-        List<LocationRecord> records = RecordManager.getAllRecords(this);
-        adapter.updateRecords(records);
-        int currentIndex = RecordManager.getCurrentRecordIndex(this);
-        adapter.setSelectedIndex(currentIndex);
-        btnStartMock.setEnabled(currentIndex >= 0);
+    @Override
+    public void onRecordsChanged() {
+        pager.refresh();
+    }
+
+    @Override
+    public void onCurrentChanged() {
+        LocationRecord current = repository.getCurrent();
+        adapter.setSelectedId(current != null ? current.id : -1);
+        btnStartMock.setEnabled(current != null);
     }
 
     private void startMock() {
-        LocationRecord current = RecordManager.getCurrentRecord(this);
+        LocationRecord current = repository.getCurrent();
         if (current == null) return;
         if (!canUseMockLocation(this)) {
             return;
         }
-        boolean success = ConfigFileUtil.writeObject(this, current);
-        if (success) {
-            MockLocationHelper.startMockingLocation(this, current.getLat(), current.getLng());
-            Toast.makeText(this, "✅ Mock 定位已生效！", Toast.LENGTH_SHORT).show();
-        } else {
-            Toast.makeText(this, "❌ 写入失败（需 Root + Xposed）", Toast.LENGTH_SHORT).show();
+        MockConfig config = buildConfig(current);
+        Context appContext = getApplicationContext();
+        IoExecutor.submitLatest(KEY_PUBLISH, () -> ConfigFileUtil.writeObject(appContext, config), success -> {
+            if (isDestroyed()) return;
+            if (Boolean.TRUE.equals(success)) {
+                MockLocationHelper.startMockingLocation(this, current.getLat(), current.getLng());
+                Toast.makeText(this, "✅ Mock 定位已生效！", Toast.LENGTH_SHORT).show();
+            } else {
+                Toast.makeText(this, "❌ 写入失败（需 Root + Xposed）", Toast.LENGTH_SHORT).show();
+            }
+        });
+    }
+
+    /**
+     * 沿路线回放：WiFi / 基站沿用当前选中的记录，坐标由 Hook 侧按路线插值。
+     * 先发布路线文件再写配置，Hook 侧读到新配置时路线已就位。
+     */
+    private void startRoute(File route) {
+        if (!canUseMockLocation(this)) {
+            return;
+        }
+        RoutePlayer player = RoutePlayer.open(route.getAbsolutePath(), true);
+        if (player == null) {
+            Toast.makeText(this, "❌ 路线文件无效", Toast.LENGTH_SHORT).show();
+            return;
         }
+        RoutePlayer.Sample start = player.sample(0);
+        LocationRecord current = repository.getCurrent();
+        MockConfig config = buildConfig(current != null ? current : new LocationRecord());
+        config.lat = start.lat;
+        config.lng = start.lng;
+        config.routeLoop = true;
+
+        Context appContext = getApplicationContext();
+        IoExecutor.submitLatest(KEY_PUBLISH, () -> {
+            if (!ConfigFileUtil.writeRoute(route)) {
+                return false;
+            }
+            config.routeStartElapsed = SystemClock.elapsedRealtime();
+            return ConfigFileUtil.writeObject(appContext, config);
+        }, success -> {
+            if (isDestroyed()) return;
+            if (Boolean.TRUE.equals(success)) {
+                MockLocationHelper.startMockingLocation(this, start.lat, start.lng);
+                Toast.makeText(this, "✅ 开始回放：" + RouteManager.displayName(route), Toast.LENGTH_SHORT).show();
+            } else {
+                Toast.makeText(this, "❌ 写入失败（需 Root + Xposed）", Toast.LENGTH_SHORT).show();
+            }
+        });
+    }
+
+    private MockConfig buildConfig(LocationRecord record) {
+        MockConfig config = MockConfig.from(record);
+        config.logLevel = RecordManager.getHookLogLevel(this);
+        config.hookPlans = RecordManager.getHookPlans(this);
+        return config;
     }
     public boolean canUseMockLocation(Context context) {
         LocationManager lm = (LocationManager) context.getSystemService(Context.LOCATION_SERVICE);
@@ -294,18 +715,34 @@ public class MainActivity extends AppCompatActivity {
 
 
     private void cancelMock() {
-        boolean deleted = ConfigFileUtil.deleteMockFile(this);
         MockLocationHelper.stopMockingLocation(this);
-        if (deleted) {
-            Toast.makeText(this, "⏹️ 模拟已停止", Toast.LENGTH_SHORT).show();
-        } else {
-            Toast.makeText(this, "ℹ️ 无模拟配置", Toast.LENGTH_SHORT).show();
-        }
+        Context appContext = getApplicationContext();
+        IoExecutor.submitLatest(KEY_PUBLISH, () -> ConfigFileUtil.deleteMockFile(appContext), deleted -> {
+            if (isDestroyed()) return;
+            if (Boolean.TRUE.equals(deleted)) {
+                Toast.makeText(this, "⏹️ 模拟已停止", Toast.LENGTH_SHORT).show();
+            } else {
+                Toast.makeText(this, "ℹ️ 无模拟配置", Toast.LENGTH_SHORT).show();
+            }
+        });
+    }
+
+    @Override
+    protected void onStart() {
+        super.onStart();
+        repository.addListener(this);
+        CaptureService.setListener(this::onCaptureFinished);
+        invalidateOptionsMenu();
+        // 同步在其他页面做的修改
+        pager.refresh();
+        onCurrentChanged();
     }
 
     @Override
-    protected void onResume() {
-        super.onResume();
-        loadRecords(); // 刷新列表
+    protected void onStop() {
+        super.onStop();
+        repository.removeListener(this);
+        CaptureService.setListener(null);
+        searchHandler.removeCallbacksAndMessages(null);
     }
 }
\ No newline at end of file
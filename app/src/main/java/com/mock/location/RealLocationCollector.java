@@ -3,6 +3,9 @@ package com.mock.location;
 import android.Manifest;
 import android.content.Context;
 import android.content.pm.PackageManager;
+import android.content.BroadcastReceiver;
+import android.content.Intent;
+import android.content.IntentFilter;
 import android.location.Location;
 import android.location.LocationListener;
 import android.location.LocationManager;
@@ -10,14 +13,20 @@ import android.net.wifi.ScanResult;
 import android.net.wifi.WifiManager;
 import android.os.Build;
 import android.os.Bundle;
+import android.os.Handler;
+import android.os.HandlerThread;
 import android.os.Looper;
+import android.os.SystemClock;
 import android.telephony.CellIdentityGsm;
 import android.telephony.CellIdentityLte;
+import android.telephony.CellIdentityNr;
 import android.telephony.CellIdentityWcdma;
 import android.telephony.CellInfo;
 import android.telephony.CellInfoGsm;
 import android.telephony.CellInfoLte;
+import android.telephony.CellInfoNr;
 import android.telephony.CellInfoWcdma;
+import android.telephony.CellSignalStrength;
 import android.telephony.TelephonyManager;
 import android.util.Log;
 
@@ -25,9 +34,12 @@ import androidx.core.app.ActivityCompat;
 
 import com.mock.location.model.LocationRecord;
 import com.mock.location.model.SerializableCellInfo;
+import com.mock.location.model.WifiFingerprint;
+import com.mock.location.util.BinaryConfig;
 
 import java.util.ArrayList;
 import java.util.List;
+import java.util.Locale;
 
 public class RealLocationCollector {
 
@@ -38,6 +50,32 @@ public class RealLocationCollector {
         void onError(String error);
     }
 
+    /** 各来源的截止时间（毫秒），从开始采集算起 */
+    private static final long GPS_DEADLINE_MS = 12_000;
+    private static final long NETWORK_DEADLINE_MS = 6_000;
+    private static final long WIFI_DEADLINE_MS = 5_000;
+    private static final long CELL_DEADLINE_MS = 4_000;
+
+    /** 综合误差不超过该值（米）即认为定位足够好，不再等待其余定位来源 */
+    private static final float GOOD_ERROR_M = 20f;
+    /** 位置每陈旧 1 秒按该速度（米/秒）计入误差，即这段时间内可能移动的距离 */
+    private static final float AGE_PENALTY_MPS = 1.5f;
+    /** 没有精度信息的位置按该精度（米）计算 */
+    private static final float UNKNOWN_ACCURACY_M = 100f;
+    private static final long MAX_FIX_AGE_MS = 5 * 60 * 1000;
+
+    /** 每条记录最多保存的邻区数 */
+    private static final int MAX_NEIGHBOR_CELLS = 16;
+    /** 同 CellInfo.UNAVAILABLE（API 29 才公开） */
+    private static final int UNAVAILABLE = Integer.MAX_VALUE;
+
+    /**
+     * 同时采集 GPS、网络定位、WiFi 扫描与基站信息，每个来源有各自的截止时间，
+     * 总耗时约等于最慢的有效来源而不是各来源之和。
+     * <p>
+     * 定位按精度与陈旧程度取最优；WiFi 或基站超时时使用已有结果（缓存的扫描结果或为空），
+     * 只有截止时仍没有任何有效定位才回调 onError。回调在主线程执行，且只回调一次。
+     */
     public static void collectCurrentLocation(Context context, OnLocationCollectedCallback callback) {
         Log.d(TAG, "collectCurrentLocation 被调用");
 
@@ -62,231 +100,504 @@ public class RealLocationCollector {
             return;
         }
 
-        // 创建监听器（只处理第一个有效位置）
-        LocationListener listener = new LocationListener() {
-            private boolean hasReceived = false;
+        Capture capture = new Capture(appContext, lm, callback);
+        capture.handler.post(() -> capture.start(gpsEnabled, networkEnabled));
+    }
 
-            @Override
-            public void onLocationChanged(Location location) {
-                synchronized (this) {
-                    if (hasReceived) return;
-                    hasReceived = true;
+    /**
+     * 一次采集。所有来源的回调都投递到同一个后台 HandlerThread，状态只在该线程访问，不需要加锁。
+     */
+    private static final class Capture {
+        final Context context;
+        final LocationManager lm;
+        final OnLocationCollectedCallback callback;
+        final HandlerThread thread;
+        final Handler handler;
+        final Handler mainHandler = new Handler(Looper.getMainLooper());
+        final long startElapsed = SystemClock.elapsedRealtime();
+
+        final ProviderListener gps = new ProviderListener(LocationManager.GPS_PROVIDER);
+        final ProviderListener network = new ProviderListener(LocationManager.NETWORK_PROVIDER);
+        boolean wifiPending;
+        boolean cellPending;
+        boolean finished;
+
+        Location best;
+        float bestError = Float.MAX_VALUE;
+        List<ScanResult> wifiResults = new ArrayList<>();
+        List<CellInfo> cells;
+        BroadcastReceiver wifiReceiver;
+
+        Capture(Context context, LocationManager lm, OnLocationCollectedCallback callback) {
+            this.context = context;
+            this.lm = lm;
+            this.callback = callback;
+            thread = new HandlerThread("LocationCapture");
+            thread.start();
+            handler = new Handler(thread.getLooper());
+        }
+
+        void start(boolean gpsEnabled, boolean networkEnabled) {
+            try {
+                // 最近已知位置立即作为候选，实时定位更好时再替换
+                for (String provider : lm.getProviders(true)) {
+                    offer(lm.getLastKnownLocation(provider));
                 }
+                if (gpsEnabled) {
+                    gps.start(GPS_DEADLINE_MS);
+                }
+                if (networkEnabled) {
+                    network.start(NETWORK_DEADLINE_MS);
+                }
+            } catch (SecurityException e) {
+                Log.e(TAG, "SecurityException", e);
+                fail("定位权限异常");
+                return;
+            } catch (Exception e) {
+                Log.e(TAG, "定位请求异常", e);
+                fail("定位服务异常: " + e.getMessage());
+                return;
+            }
+            startWifi();
+            startCell();
+            checkDone();
+        }
 
-                Log.i(TAG, "成功获取位置: " + location.getLatitude() + ", " + location.getLongitude());
-                lm.removeUpdates(this); // 注销监听
+        // ==================== 定位 ====================
 
-                // 过滤无效或陈旧位置
-                long age = System.currentTimeMillis() - location.getTime();
-                if (age > 5 * 60 * 1000) {
-                    Log.w(TAG, "位置过旧（" + (age / 1000) + "秒），忽略");
-                    callback.onError("无法获取最新位置，请稍后重试");
-                    return;
-                }
+        void offer(Location location) {
+            if (location == null) return;
+            if (location.getLatitude() == 0 && location.getLongitude() == 0) {
+                Log.w(TAG, "位置为 (0,0)，无效");
+                return;
+            }
+            float error = effectiveError(location);
+            Log.d(TAG, "候选位置 " + location.getProvider() + " 精度=" + location.getAccuracy() + " 综合误差=" + error);
+            if (error < bestError) {
+                best = location;
+                bestError = error;
+            }
+        }
+
+        final class ProviderListener implements LocationListener {
+            final String provider;
+            boolean pending;
 
-                if (location.getLatitude() == 0 && location.getLongitude() == 0) {
-                    Log.w(TAG, "位置为 (0,0)，无效");
-                    callback.onError("获取到无效位置");
-                    return;
+            ProviderListener(String provider) {
+                this.provider = provider;
+            }
+
+            void start(long deadlineMs) {
+                pending = true;
+                lm.requestLocationUpdates(provider, 0, 0, this, thread.getLooper());
+                handler.postDelayed(() -> {
+                    if (pending) Log.d(TAG, provider + " 定位超时");
+                    stop();
+                    checkDone();
+                }, deadlineMs);
+            }
+
+            void stop() {
+                if (!pending) return;
+                pending = false;
+                lm.removeUpdates(this);
+            }
+
+            @Override
+            public void onLocationChanged(Location location) {
+                if (!pending) return;
+                offer(location);
+                if (effectiveError(location) <= GOOD_ERROR_M) {
+                    // 该来源已给出足够好的位置，继续监听只会耗电
+                    stop();
                 }
+                checkDone();
+            }
+
+            @Override
+            public void onStatusChanged(String provider, int status, Bundle extras) {
+            }
 
-                // 构建完整记录
-                LocationRecord record = new LocationRecord(location.getLatitude(), location.getLongitude());
-                record.wifiBssids = getWifiBssids(appContext);
-                record.cellInfo = getCellInfo(appContext);
-                callback.onCollected(record);
+            @Override
+            public void onProviderEnabled(String provider) {
             }
 
             @Override
             public void onProviderDisabled(String provider) {
                 Log.d(TAG, "Provider 被禁用: " + provider);
+                stop();
+                checkDone();
             }
-        };
+        }
 
-        try {
-            // 尝试使用最近已知位置（快速路径）
-            Location lastGps = gpsEnabled ? lm.getLastKnownLocation(LocationManager.GPS_PROVIDER) : null;
-            Location lastNetwork = networkEnabled ? lm.getLastKnownLocation(LocationManager.NETWORK_PROVIDER) : null;
-
-            Location bestLast = null;
-            if (lastGps != null && isValidRecent(lastGps)) {
-                bestLast = lastGps;
-            } else if (lastNetwork != null && isValidRecent(lastNetwork)) {
-                bestLast = lastNetwork;
+        // ==================== WiFi ====================
+
+        @SuppressWarnings("deprecation")
+        void startWifi() {
+            WifiManager wifiManager = (WifiManager) context.getSystemService(Context.WIFI_SERVICE);
+            if (wifiManager == null || !wifiManager.isWifiEnabled()) {
+                Log.d(TAG, "WiFi 未开启或不可用");
+                return;
+            }
+            wifiPending = true;
+            wifiReceiver = new BroadcastReceiver() {
+                @Override
+                public void onReceive(Context c, Intent intent) {
+                    onWifiResults();
+                }
+            };
+            context.registerReceiver(wifiReceiver,
+                    new IntentFilter(WifiManager.SCAN_RESULTS_AVAILABLE_ACTION), null, handler);
+            // Android 9 起前台应用每 2 分钟只能扫描 4 次，被限流时直接使用缓存的扫描结果
+            if (!wifiManager.startScan()) {
+                Log.d(TAG, "WiFi 扫描被限流，使用缓存结果");
+                onWifiResults();
+                return;
+            }
+            handler.postDelayed(this::onWifiResults, WIFI_DEADLINE_MS);
+        }
+
+        void onWifiResults() {
+            if (!wifiPending) return;
+            wifiPending = false;
+            unregisterWifi();
+            // 超时时读到的是上一次扫描的结果
+            wifiResults = getScanResults(context);
+            checkDone();
+        }
+
+        void unregisterWifi() {
+            if (wifiReceiver != null) {
+                context.unregisterReceiver(wifiReceiver);
+                wifiReceiver = null;
             }
+        }
+
+        // ==================== 基站 ====================
 
-            if (bestLast != null) {
-                Log.i(TAG, "使用 getLastKnownLocation 快速返回");
-                LocationRecord record = new LocationRecord(bestLast.getLatitude(), bestLast.getLongitude());
-                record.wifiBssids = getWifiBssids(appContext);
-                record.cellInfo = getCellInfo(appContext);
-                callback.onCollected(record);
+        void startCell() {
+            TelephonyManager tm = (TelephonyManager) context.getSystemService(Context.TELEPHONY_SERVICE);
+            if (tm == null) return;
+            if (ActivityCompat.checkSelfPermission(context, Manifest.permission.READ_PHONE_STATE) != PackageManager.PERMISSION_GRANTED) {
+                Log.w(TAG, "缺少基站相关权限，跳过基站信息");
                 return;
             }
+            cellPending = true;
+            try {
+                if (Build.VERSION.SDK_INT >= Build.VERSION_CODES.Q) {
+                    // 主动刷新基站信息；超时则使用系统缓存
+                    tm.requestCellInfoUpdate(handler::post, new TelephonyManager.CellInfoCallback() {
+                        @Override
+                        public void onCellInfo(List<CellInfo> cells) {
+                            onCells(cells);
+                        }
 
-            // 启动实时监听
-            Log.d(TAG, "开始监听实时位置更新...");
-            if (gpsEnabled) {
-                lm.requestSingleUpdate(LocationManager.GPS_PROVIDER, listener, Looper.getMainLooper());
+                        @Override
+                        public void onError(int errorCode, Throwable detail) {
+                            Log.w(TAG, "requestCellInfoUpdate 失败: " + errorCode);
+                            onCells(cachedCells(tm));
+                        }
+                    });
+                    handler.postDelayed(() -> {
+                        if (cellPending) onCells(cachedCells(tm));
+                    }, CELL_DEADLINE_MS);
+                } else {
+                    onCells(cachedCells(tm));
+                }
+            } catch (SecurityException e) {
+                Log.e(TAG, "获取基站信息失败", e);
+                onCells(null);
             }
-            if (networkEnabled) {
-                lm.requestSingleUpdate(LocationManager.NETWORK_PROVIDER, listener, Looper.getMainLooper());
+        }
+
+        List<CellInfo> cachedCells(TelephonyManager tm) {
+            try {
+                return tm.getAllCellInfo();
+            } catch (SecurityException e) {
+                Log.e(TAG, "获取基站信息失败", e);
+                return null;
             }
+        }
 
-        } catch (SecurityException e) {
-            Log.e(TAG, "SecurityException", e);
-            callback.onError("定位权限异常");
-        } catch (Exception e) {
-            Log.e(TAG, "定位请求异常", e);
-            callback.onError("定位服务异常: " + e.getMessage());
+        void onCells(List<CellInfo> cells) {
+            if (!cellPending) return;
+            cellPending = false;
+            this.cells = cells;
+            checkDone();
+        }
+
+        // ==================== 汇总 ====================
+
+        void checkDone() {
+            if (finished) return;
+            boolean fixSettled = (!gps.pending && !network.pending) || bestError <= GOOD_ERROR_M;
+            if (fixSettled && !wifiPending && !cellPending) {
+                finish();
+            }
+        }
+
+        void finish() {
+            Log.d(TAG, "采集完成，耗时 " + (SystemClock.elapsedRealtime() - startElapsed) + "ms");
+            if (best == null) {
+                fail("获取位置超时，请重试");
+                return;
+            }
+            LocationRecord record = toRecord(best);
+            applyWifi(record, wifiResults);
+            applyCells(record, cells);
+            release();
+            mainHandler.post(() -> callback.onCollected(record));
+        }
+
+        void fail(String error) {
+            release();
+            mainHandler.post(() -> callback.onError(error));
+        }
+
+        void release() {
+            finished = true;
+            gps.stop();
+            network.stop();
+            wifiPending = false;
+            cellPending = false;
+            unregisterWifi();
+            handler.removeCallbacksAndMessages(null);
+            thread.quitSafely();
         }
     }
 
-    private static boolean isValidRecent(Location location) {
-        if (location == null) return false;
-        long age = System.currentTimeMillis() - location.getTime();
-        return age >= 0 && age <= 5 * 60 * 1000; // 5分钟内
+    /**
+     * 综合误差：精度加上陈旧期间可能移动的距离；无效或过旧的位置返回 Float.MAX_VALUE。
+     */
+    private static float effectiveError(Location location) {
+        long ageMs = (SystemClock.elapsedRealtimeNanos() - location.getElapsedRealtimeNanos()) / 1_000_000;
+        if (ageMs < 0 || ageMs > MAX_FIX_AGE_MS) {
+            return Float.MAX_VALUE;
+        }
+        float accuracy = location.hasAccuracy() ? location.getAccuracy() : UNKNOWN_ACCURACY_M;
+        return accuracy + ageMs / 1000f * AGE_PENALTY_MPS;
+    }
+
+    private static LocationRecord toRecord(Location location) {
+        LocationRecord record = new LocationRecord(location.getLatitude(), location.getLongitude());
+        record.accuracy = location.hasAccuracy() ? location.getAccuracy() : 0f;
+        record.altitude = location.hasAltitude() ? location.getAltitude() : 0d;
+        record.bearing = location.hasBearing() ? location.getBearing() : 0f;
+        record.speed = location.hasSpeed() ? location.getSpeed() : 0f;
+        return record;
     }
 
-    private static List<String> getWifiBssids(Context context) {
-        List<String> bssids = new ArrayList<>();
+    /**
+     * 读取系统缓存的 WiFi 扫描结果，不发起新的扫描：只保留有效 BSSID，按信号从强到弱，
+     * 最多 {@link BinaryConfig#MAX_BSSIDS} 个。
+     */
+    @SuppressWarnings("deprecation")
+    static List<ScanResult> getScanResults(Context context) {
+        List<ScanResult> valid = new ArrayList<>();
         try {
             if (ActivityCompat.checkSelfPermission(context, Manifest.permission.ACCESS_FINE_LOCATION) != PackageManager.PERMISSION_GRANTED ||
                     ActivityCompat.checkSelfPermission(context, Manifest.permission.ACCESS_WIFI_STATE) != PackageManager.PERMISSION_GRANTED) {
-                return bssids;
+                return valid;
             }
 
             WifiManager wifiManager = (WifiManager) context.getSystemService(Context.WIFI_SERVICE);
             if (wifiManager == null || !wifiManager.isWifiEnabled()) {
                 Log.d(TAG, "WiFi 未开启或不可用");
-                return bssids;
+                return valid;
             }
 
             List<ScanResult> scanResults = wifiManager.getScanResults();
             if (scanResults != null) {
                 for (ScanResult result : scanResults) {
                     if (result.BSSID != null && !result.BSSID.equals("00:00:00:00:00:00") && !result.BSSID.equals("")) {
-                        bssids.add(result.BSSID.toLowerCase().replaceAll("-", ":"));
+                        valid.add(result);
                     }
                 }
-                Log.d(TAG, "采集到 " + bssids.size() + " 个 WiFi BSSID");
+                valid.sort((x, y) -> Integer.compare(y.level, x.level));
+                if (valid.size() > BinaryConfig.MAX_BSSIDS) {
+                    valid = new ArrayList<>(valid.subList(0, BinaryConfig.MAX_BSSIDS));
+                }
+                Log.d(TAG, "采集到 " + valid.size() + " 个 WiFi AP");
             }
         } catch (Exception e) {
             Log.e(TAG, "获取 WiFi 列表失败", e);
         }
-        return bssids;
+        return valid;
     }
 
-    private static SerializableCellInfo getCellInfo(Context context) {
+    /**
+     * 读取系统缓存的 WiFi 扫描结果与基站列表（不发起新的扫描），只填写 WiFi / 基站字段，
+     * 格式与 {@link #collectCurrentLocation} 保存的记录相同。供轨迹采集周期性调用。
+     */
+    static LocationRecord getEnvironment(Context context) {
+        LocationRecord record = new LocationRecord();
+        applyWifi(record, getScanResults(context));
+        if (ActivityCompat.checkSelfPermission(context, Manifest.permission.ACCESS_FINE_LOCATION)
+                != PackageManager.PERMISSION_GRANTED) {
+            return record;
+        }
+        TelephonyManager tm = (TelephonyManager) context.getSystemService(Context.TELEPHONY_SERVICE);
         try {
-            TelephonyManager tm = (TelephonyManager) context.getSystemService(Context.TELEPHONY_SERVICE);
-            if (tm == null) return null;
-
-            boolean hasReadPhoneState = ActivityCompat.checkSelfPermission(context, Manifest.permission.READ_PHONE_STATE) == PackageManager.PERMISSION_GRANTED;
-            boolean hasFineLocation = ActivityCompat.checkSelfPermission(context, Manifest.permission.ACCESS_FINE_LOCATION) == PackageManager.PERMISSION_GRANTED;
-            if (!hasReadPhoneState || !hasFineLocation) {
-                Log.w(TAG, "缺少基站相关权限，跳过基站信息");
-                return null;
-            }
-
-            List<CellInfo> allCells = tm.getAllCellInfo();
-            if (allCells == null || allCells.isEmpty()) {
-                Log.w(TAG, "getAllCellInfo() 返回 null 或空");
-                return null;
+            List<CellInfo> cells = tm != null ? tm.getAllCellInfo() : null;
+            if (cells != null && !cells.isEmpty()) {
+                applyCells(record, cells);
             }
+        } catch (SecurityException e) {
+            Log.e(TAG, "获取基站信息失败", e);
+        }
+        return record;
+    }
 
-            CellInfo cell = allCells.get(0); // 主小区
-            SerializableCellInfo sci = new SerializableCellInfo();
-
-            if (cell instanceof CellInfoGsm) {
-                CellIdentityGsm id = ((CellInfoGsm) cell).getCellIdentity();
-                sci.networkType = "GSM";
-                sci.mcc = id.getMcc();
-                sci.mnc = id.getMnc();
-                sci.lac = id.getLac();
-                sci.cid = id.getCid();
-            } else if (cell instanceof CellInfoWcdma) {
-                CellIdentityWcdma id = ((CellInfoWcdma) cell).getCellIdentity();
-                sci.networkType = "WCDMA";
-                sci.mcc = id.getMcc();
-                sci.mnc = id.getMnc();
-                sci.lac = id.getLac();
-                sci.cid = id.getCid();
-            } else if (Build.VERSION.SDK_INT >= Build.VERSION_CODES.Q) {
-                try {
-                    Class<?> cellInfoNrClass = Class.forName("android.telephony.CellInfoNr");
-                    if (!cellInfoNrClass.isInstance(cell)) {
-                        Log.w(TAG, "不支持的 CellInfo 类型: " + cell.getClass().getSimpleName());
-                        return null;
-                    }
-
-                    Object cellIdentity = cellInfoNrClass.getMethod("getCellIdentity").invoke(cell);
-                    if (cellIdentity == null) {
-                        Log.w(TAG, "CellIdentityNr 为 null");
-                        return null;
-                    }
-
-                    Class<?> cellIdentityNrClass = Class.forName("android.telephony.CellIdentityNr");
-
-                    int mcc = -1;
-                    int mnc = -1;
-                    int tac = -1;
-                    long nci = 0L;
-
-                    try {
-                        Object mccObj = cellIdentityNrClass.getMethod("getMcc").invoke(cellIdentity);
-                        if (mccObj instanceof Integer) {
-                            mcc = (Integer) mccObj;
-                        }
-                    } catch (Exception ignored) {
-                    }
+    /**
+     * 写入 BSSID 列表及下标对应的指纹（SSID、RSSI、频率、加密能力），供 Hook 侧原样回放。
+     */
+    @SuppressWarnings("deprecation")
+    static void applyWifi(LocationRecord record, List<ScanResult> results) {
+        int n = results.size();
+        List<String> bssids = new ArrayList<>(n);
+        WifiFingerprint fp = new WifiFingerprint(n);
+        for (int i = 0; i < n; i++) {
+            ScanResult result = results.get(i);
+            bssids.add(normalizeBssid(result.BSSID));
+            fp.ssids[i] = result.SSID;
+            fp.levels[i] = result.level;
+            fp.frequencies[i] = result.frequency;
+            fp.capabilities[i] = result.capabilities;
+        }
+        record.wifiBssids = bssids;
+        record.wifiFingerprint = n > 0 ? fp : null;
+    }
 
-                    try {
-                        Object mncObj = cellIdentityNrClass.getMethod("getMnc").invoke(cellIdentity);
-                        if (mncObj instanceof Integer) {
-                            mnc = (Integer) mncObj;
-                        }
-                    } catch (Exception ignored) {
-                    }
+    private static String normalizeBssid(String bssid) {
+        return bssid.toLowerCase(Locale.US).replace('-', ':');
+    }
 
-                    try {
-                        Object tacObj = cellIdentityNrClass.getMethod("getTac").invoke(cellIdentity);
-                        if (tacObj instanceof Integer) {
-                            tac = (Integer) tacObj;
-                        }
-                    } catch (Exception ignored) {
-                    }
+    /**
+     * 把 getAllCellInfo() 的结果写入记录：主小区存入 cellInfo，其余（最多 {@link #MAX_NEIGHBOR_CELLS} 个）存入 neighborCells。
+     */
+    static void applyCells(LocationRecord record, List<CellInfo> allCells) {
+        CellInfo serving = servingCell(allCells);
+        if (serving == null) {
+            Log.w(TAG, "getAllCellInfo() 返回 null 或空");
+            return;
+        }
+        record.cellInfo = toCellInfo(serving);
+        List<SerializableCellInfo> neighbors = new ArrayList<>();
+        for (CellInfo cell : allCells) {
+            if (cell == serving || neighbors.size() == MAX_NEIGHBOR_CELLS) continue;
+            SerializableCellInfo sci = toCellInfo(cell);
+            if (sci != null) neighbors.add(sci);
+        }
+        record.neighborCells = neighbors.isEmpty() ? null : neighbors;
+        Log.d(TAG, "采集基站信息: " + record.cellInfo + ", 邻区 " + neighbors.size() + " 个");
+    }
 
-                    try {
-                        Object nciObj = cellIdentityNrClass.getMethod("getNci").invoke(cellIdentity);
-                        if (nciObj instanceof Long) {
-                            nci = (Long) nciObj;
-                        }
-                    } catch (Exception ignored) {
-                    }
+    /**
+     * 第一个已注册的小区；都未标记注册时取第一个。
+     */
+    private static CellInfo servingCell(List<CellInfo> allCells) {
+        if (allCells == null || allCells.isEmpty()) {
+            return null;
+        }
+        for (CellInfo cell : allCells) {
+            if (cell.isRegistered()) {
+                return cell;
+            }
+        }
+        return allCells.get(0);
+    }
 
-                    sci.networkType = "NR";
-                    sci.mcc = mcc;
-                    sci.mnc = mnc;
-                    sci.lac = tac;
-                    sci.cid = (int) (nci & 0xFFFFFFFFL);
-                } catch (ClassNotFoundException e) {
-                    Log.w(TAG, "NR 基站类型在当前系统上不可用");
-                    return null;
-                } catch (Exception e) {
-                    Log.w(TAG, "解析 NR 基站信息失败: " + e.getMessage());
-                    return null;
-                }
+    /**
+     * 单个 CellInfo → SerializableCellInfo；系统标记为不可用的字段存为 -1，不支持的制式（CDMA 等）返回 null。
+     */
+    @SuppressWarnings("deprecation")
+    private static SerializableCellInfo toCellInfo(CellInfo cell) {
+        SerializableCellInfo sci = new SerializableCellInfo();
+        CellSignalStrength signal;
+        if (cell instanceof CellInfoGsm) {
+            CellIdentityGsm id = ((CellInfoGsm) cell).getCellIdentity();
+            sci.networkType = "GSM";
+            if (Build.VERSION.SDK_INT >= Build.VERSION_CODES.P) {
+                setCodes(sci, id.getMccString(), id.getMncString());
             } else {
-                Log.w(TAG, "不支持的 CellInfo 类型: " + cell.getClass().getSimpleName());
-                return null;
+                sci.mcc = known(id.getMcc());
+                sci.mnc = known(id.getMnc());
             }
-
-            Log.d(TAG, "采集基站信息: " + sci.toString());
-            return sci;
-        } catch (Exception e) {
-            Log.e(TAG, "获取基站信息失败", e);
+            sci.lac = known(id.getLac());
+            sci.cid = known(id.getCid());
+            sci.pci = known(id.getBsic());
+            sci.arfcn = known(id.getArfcn());
+            signal = ((CellInfoGsm) cell).getCellSignalStrength();
+        } else if (cell instanceof CellInfoWcdma) {
+            CellIdentityWcdma id = ((CellInfoWcdma) cell).getCellIdentity();
+            sci.networkType = "WCDMA";
+            if (Build.VERSION.SDK_INT >= Build.VERSION_CODES.P) {
+                setCodes(sci, id.getMccString(), id.getMncString());
+            } else {
+                sci.mcc = known(id.getMcc());
+                sci.mnc = known(id.getMnc());
+            }
+            sci.lac = known(id.getLac());
+            sci.cid = known(id.getCid());
+            sci.pci = known(id.getPsc());
+            sci.arfcn = known(id.getUarfcn());
+            signal = ((CellInfoWcdma) cell).getCellSignalStrength();
+        } else if (cell instanceof CellInfoLte) {
+            CellIdentityLte id = ((CellInfoLte) cell).getCellIdentity();
+            sci.networkType = "LTE";
+            if (Build.VERSION.SDK_INT >= Build.VERSION_CODES.P) {
+                setCodes(sci, id.getMccString(), id.getMncString());
+            } else {
+                sci.mcc = known(id.getMcc());
+                sci.mnc = known(id.getMnc());
+            }
+            sci.lac = known(id.getTac());
+            sci.cid = known(id.getCi());
+            sci.pci = known(id.getPci());
+            sci.arfcn = known(id.getEarfcn());
+            signal = ((CellInfoLte) cell).getCellSignalStrength();
+        } else if (Build.VERSION.SDK_INT >= Build.VERSION_CODES.Q && cell instanceof CellInfoNr) {
+            CellIdentityNr id = (CellIdentityNr) ((CellInfoNr) cell).getCellIdentity();
+            sci.networkType = "NR";
+            setCodes(sci, id.getMccString(), id.getMncString());
+            sci.lac = known(id.getTac());
+            sci.nci = id.getNci() != CellInfo.UNAVAILABLE_LONG ? id.getNci() : -1;
+            // cid 只保留低 32 位，供只认 int 的旧格式与日志使用；注入以 nci 为准
+            sci.cid = sci.nci >= 0 ? (int) sci.nci : -1;
+            sci.pci = known(id.getPci());
+            sci.arfcn = known(id.getNrarfcn());
+            signal = ((CellInfoNr) cell).getCellSignalStrength();
+        } else {
+            Log.w(TAG, "不支持的 CellInfo 类型: " + cell.getClass().getSimpleName());
             return null;
         }
+        int dbm = signal != null ? signal.getDbm() : UNAVAILABLE;
+        sci.dbm = dbm != UNAVAILABLE ? dbm : 0;
+        return sci;
+    }
+
+    private static int known(int value) {
+        return value != UNAVAILABLE ? value : -1;
+    }
+
+    /**
+     * 原样保存 MCC / MNC 字符串（两位与三位 MNC 不能由整数还原），同时填入整数形式。
+     */
+    private static void setCodes(SerializableCellInfo sci, String mcc, String mnc) {
+        sci.mccStr = mcc;
+        sci.mncStr = mnc;
+        sci.mcc = parseCode(mcc);
+        sci.mnc = parseCode(mnc);
+    }
+
+    private static int parseCode(String code) {
+        if (code == null) {
+            return -1;
+        }
+        try {
+            return Integer.parseInt(code);
+        } catch (NumberFormatException e) {
+            return -1;
+        }
     }
-}
\ No newline at end of file
+}
@@ -2,50 +2,135 @@
 package com.mock.location;
 
 import android.os.Bundle;
+import android.os.Handler;
+import android.os.Looper;
+import android.view.Menu;
+import android.view.MenuItem;
+
+import androidx.annotation.NonNull;
+import androidx.appcompat.app.AlertDialog;
 import androidx.appcompat.app.AppCompatActivity;
+import androidx.appcompat.widget.SearchView;
 import androidx.recyclerview.widget.LinearLayoutManager;
 import androidx.recyclerview.widget.RecyclerView;
 import com.mock.location.adapter.RecordListAdapter;
-import com.mock.location.model.LocationRecord;
-import com.mock.location.util.RecordManager;
-import java.util.List;
+import com.mock.location.model.RecordQuery;
+import com.mock.location.util.RecordPager;
+import com.mock.location.util.RecordRepository;
+
+public class RecordListActivity extends AppCompatActivity implements RecordRepository.Listener {
+
+    /** 搜索输入停顿这么久后才查询 */
+    private static final long SEARCH_DELAY_MS = 300;
 
-public class RecordListActivity extends AppCompatActivity {
+    private static final String[] TIME_RANGE_LABELS = {"全部", "最近 24 小时", "最近 7 天", "最近 30 天"};
+    private static final int[] TIME_RANGE_DAYS = {0, 1, 7, 30};
+    private static final long DAY_MS = 24 * 60 * 60 * 1000L;
 
     private RecordListAdapter adapter;
+    private RecordRepository repository;
+    private RecordPager pager;
+    private final Handler searchHandler = new Handler(Looper.getMainLooper());
+
+    private String searchName = "";
+    private int timeRange;
 
     @Override
     protected void onCreate(Bundle savedInstanceState) {
         super.onCreate(savedInstanceState);
         setContentView(R.layout.activity_record_list);
 
+        repository = RecordRepository.getInstance(this);
         RecyclerView recyclerView = findViewById(R.id.recycler_records);
         recyclerView.setLayoutManager(new LinearLayoutManager(this));
 
-        adapter = new RecordListAdapter(this, new RecordListAdapter.OnRecordActionListener() {
+        adapter = new RecordListAdapter(this, record -> repository.setCurrent(record));
+
+        recyclerView.setAdapter(adapter);
+        pager = new RecordPager(this, adapter::updateRecords);
+        pager.attachTo(recyclerView);
+    }
+
+    @Override
+    public boolean onCreateOptionsMenu(Menu menu) {
+        getMenuInflater().inflate(R.menu.menu_record_list, menu);
+        SearchView searchView = (SearchView) menu.findItem(R.id.action_search).getActionView();
+        searchView.setQueryHint("按名称搜索");
+        searchView.setOnQueryTextListener(new SearchView.OnQueryTextListener() {
             @Override
-            public void onSetCurrent(int index) {
-                RecordManager.setCurrentRecordIndex(RecordListActivity.this, index);
+            public boolean onQueryTextSubmit(String query) {
+                search(query);
+                return true;
             }
 
             @Override
-            public void onDataSetChanged() {
-                loadRecords();
+            public boolean onQueryTextChange(String newText) {
+                searchHandler.removeCallbacksAndMessages(null);
+                searchHandler.postDelayed(() -> search(newText), SEARCH_DELAY_MS);
+                return true;
             }
         });
+        return true;
+    }
 
-        recyclerView.setAdapter(adapter);
-        loadRecords();
+    @Override
+    public boolean onOptionsItemSelected(@NonNull MenuItem item) {
+        if (item.getItemId() == R.id.action_time_range) {
+            new AlertDialog.Builder(this)
+                    .setTitle("按时间筛选")
+                    .setSingleChoiceItems(TIME_RANGE_LABELS, timeRange, (dialog, which) -> {
+                        dialog.dismiss();
+                        if (which != timeRange) {
+                            timeRange = which;
+                            applyQuery();
+                        }
+                    })
+                    .show();
+            return true;
+        }
+        return super.onOptionsItemSelected(item);
     }
 
-    private void loadRecords() {
-        List<LocationRecord> records = RecordManager.getAllRecords(this);
-        adapter.updateRecords(records);
+    private void search(String text) {
+        searchHandler.removeCallbacksAndMessages(null);
+        String name = text != null ? text.trim() : "";
+        if (name.equals(searchName)) return;
+        searchName = name;
+        applyQuery();
+    }
+
+    private void applyQuery() {
+        RecordQuery query = RecordQuery.all().withName(searchName, false);
+        int days = TIME_RANGE_DAYS[timeRange];
+        if (days > 0) {
+            query.withTimeRange(System.currentTimeMillis() - days * DAY_MS, null);
+        }
+        pager.setQuery(query);
+    }
+
+    @Override
+    protected void onStart() {
+        super.onStart();
+        repository.addListener(this);
+        // 返回时同步离开期间的变更
+        pager.refresh();
+        onCurrentChanged();
+    }
+
+    @Override
+    protected void onStop() {
+        super.onStop();
+        repository.removeListener(this);
+        searchHandler.removeCallbacksAndMessages(null);
+    }
+
+    @Override
+    public void onRecordsChanged() {
+        pager.refresh();
     }
 
     @Override
-    protected void onResume() {
-        super.onResume();
-        loadRecords(); // 返回时刷新
+    public void onCurrentChanged() {
+        adapter.setCurrentId(repository.getCurrentId());
     }
-}
\ No newline at end of file
+}
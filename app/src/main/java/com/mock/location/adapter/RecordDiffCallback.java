@@ -0,0 +1,34 @@
+package com.mock.location.adapter;
+
+import androidx.annotation.NonNull;
+import androidx.recyclerview.widget.DiffUtil;
+
+import com.mock.location.model.LocationRecord;
+
+import java.util.Objects;
+
+/**
+ * 两个记录列表共用的差异比较：按数据库 id 判断是否同一条记录，
+ * 内容只比较列表上显示的字段。追加下一页时已加载的记录复用同一对象，在引用比较时就返回。
+ */
+final class RecordDiffCallback extends DiffUtil.ItemCallback<LocationRecord> {
+
+    static final RecordDiffCallback INSTANCE = new RecordDiffCallback();
+
+    private RecordDiffCallback() {
+    }
+
+    @Override
+    public boolean areItemsTheSame(@NonNull LocationRecord oldItem, @NonNull LocationRecord newItem) {
+        return oldItem.id == newItem.id;
+    }
+
+    @Override
+    public boolean areContentsTheSame(@NonNull LocationRecord oldItem, @NonNull LocationRecord newItem) {
+        return oldItem == newItem
+                || (Objects.equals(oldItem.name, newItem.name)
+                && oldItem.lat == newItem.lat
+                && oldItem.lng == newItem.lng
+                && oldItem.timestamp == newItem.timestamp);
+    }
+}
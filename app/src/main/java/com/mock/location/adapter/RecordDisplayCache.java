@@ -0,0 +1,60 @@
+package com.mock.location.adapter;
+
+import android.util.LruCache;
+
+import com.mock.location.model.LocationRecord;
+import com.mock.location.util.RecordPager;
+
+import java.text.SimpleDateFormat;
+import java.util.Locale;
+
+/**
+ * 列表项显示文本的缓存，两个记录列表共用，只在主线程访问。
+ * <p>
+ * 按记录 id 缓存格式化好的坐标与时间。分页刷新时同一条记录会重新查询成新对象，
+ * 因此比较参与格式化的字段判断缓存是否过期，只在首次出现或坐标/时间被修改时格式化一次。
+ * 按最近使用淘汰，只保留几页的条目：滚动过的记录再多，占用也不会随之增长。
+ */
+final class RecordDisplayCache {
+
+    static final class Entry {
+        final double lat;
+        final double lng;
+        final long timestamp;
+        final String coords;
+        final String time;
+
+        Entry(LocationRecord source, String coords, String time) {
+            this.lat = source.lat;
+            this.lng = source.lng;
+            this.timestamp = source.timestamp;
+            this.coords = coords;
+            this.time = time;
+        }
+
+        boolean matches(LocationRecord record) {
+            return lat == record.lat && lng == record.lng && timestamp == record.timestamp;
+        }
+    }
+
+    /** 两个列表各自的可见区域加上最近翻过的页 */
+    private static final int MAX_ENTRIES = RecordPager.PAGE_SIZE * 4;
+
+    private static final LruCache<Long, Entry> CACHE = new LruCache<>(MAX_ENTRIES);
+    // 仅主线程使用，SimpleDateFormat 本身不是线程安全的
+    private static final SimpleDateFormat TIME_FORMAT = new SimpleDateFormat("yyyy-MM-dd HH:mm", Locale.getDefault());
+
+    private RecordDisplayCache() {
+    }
+
+    static Entry get(LocationRecord record) {
+        Entry entry = CACHE.get(record.id);
+        if (entry == null || !entry.matches(record)) {
+            entry = new Entry(record,
+                    String.format(Locale.getDefault(), "(%.4f, %.4f)", record.lat, record.lng),
+                    TIME_FORMAT.format(record.timestamp));
+            CACHE.put(record.id, entry);
+        }
+        return entry;
+    }
+}
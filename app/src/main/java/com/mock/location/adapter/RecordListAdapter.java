@@ -11,152 +11,143 @@ import android.widget.TextView;
 import android.widget.Toast;
 import android.util.Log;
 import androidx.annotation.NonNull;
+import androidx.recyclerview.widget.AsyncListDiffer;
 import androidx.recyclerview.widget.RecyclerView;
 
 import com.mock.location.R;
 import com.mock.location.model.LocationRecord;
-import com.mock.location.util.RecordManager;
-import java.text.SimpleDateFormat;
+import com.mock.location.util.RecordRepository;
 import java.util.List;
-import java.util.Locale;
 
 public class RecordListAdapter extends RecyclerView.Adapter<RecordListAdapter.ViewHolder> {
 
     private static final String TAG = "RecordListAdapter";
 
+    /** 只刷新当前记录高亮的局部更新 */
+    private static final Object PAYLOAD_CURRENT = new Object();
+
     private final Context context;
-    private List<LocationRecord> records;
+    private final RecordRepository repository;
+    // 在后台线程计算差异，删除等操作只刷新变化的行
+    private final AsyncListDiffer<LocationRecord> differ = new AsyncListDiffer<>(this, RecordDiffCallback.INSTANCE);
+    private long currentId = -1;
     private final OnRecordActionListener listener;
 
     public interface OnRecordActionListener {
-        void onSetCurrent(int index);
-        void onDataSetChanged();
+        void onSetCurrent(LocationRecord record);
     }
 
     public RecordListAdapter(Context context, OnRecordActionListener listener) {
         this.context = context;
+        this.repository = RecordRepository.getInstance(context);
         this.listener = listener;
+        setHasStableIds(true);
     }
 
     public void updateRecords(List<LocationRecord> records) {
-        this.records = records;
-        notifyDataSetChanged();
+        differ.submitList(records);
     }
 
-    @NonNull
-    @Override
-    public ViewHolder onCreateViewHolder(@NonNull ViewGroup parent, int viewType) {
-        View view = LayoutInflater.from(context).inflate(R.layout.item_record, parent, false);
-        return new ViewHolder(view);
+    public void setCurrentId(long id) {
+        if (id == currentId) return;
+        int oldIndex = indexOf(currentId);
+        int newIndex = indexOf(id);
+        currentId = id;
+        if (oldIndex >= 0) notifyItemChanged(oldIndex, PAYLOAD_CURRENT); // 刷新旧的
+        if (newIndex >= 0) notifyItemChanged(newIndex, PAYLOAD_CURRENT); // 刷新新的
     }
 
-    @Override
-    public void onBindViewHolder(@NonNull ViewHolder holder, int position) {
-        LocationRecord record = records.get(position);
-
-        holder.tvName.setText(record.name);
-        holder.tvCoords.setText(String.format("(%.4f, %.4f)", record.lat, record.lng));
-
-        SimpleDateFormat sdf = new SimpleDateFormat("yyyy-MM-dd HH:mm", Locale.getDefault());
-        holder.tvTime.setText(sdf.format(record.timestamp));
-
-        // 获取当前选中索引（用于高亮显示）
-        int currentIndex = getCurrentIndex();
-
-        // 高亮当前记录
-        if (position == currentIndex) {
-            holder.tvName.setTextColor(0xFF2196F3); // 蓝色
-        } else {
-            holder.tvName.setTextColor(0xFF000000); // 黑色
+    private int indexOf(long id) {
+        if (id < 0) return -1;
+        List<LocationRecord> records = differ.getCurrentList();
+        for (int i = 0; i < records.size(); i++) {
+            if (records.get(i).id == id) return i;
         }
+        return -1;
+    }
 
+    @NonNull
+    @Override
+    public ViewHolder onCreateViewHolder(@NonNull ViewGroup parent, int viewType) {
+        View view = LayoutInflater.from(context).inflate(R.layout.item_record, parent, false);
+        ViewHolder holder = new ViewHolder(view);
+        // 每个 ViewHolder 只创建一次监听器，点击时再取当前位置的记录
+        // 高亮由 RecordRepository 的变更通知经 setCurrentId 刷新
         holder.btnSetCurrent.setOnClickListener(v -> {
-            listener.onSetCurrent(position);
-            notifyItemChanged(currentIndex); // 刷新旧的
-            notifyItemChanged(position);      // 刷新新的
+            LocationRecord record = recordAt(holder);
+            if (record != null) listener.onSetCurrent(record);
         });
-
-        final long recordTimestamp = record.timestamp;
-        final String recordName = record.name;
-
         holder.btnDelete.setOnClickListener(v -> {
+            LocationRecord record = recordAt(holder);
+            if (record == null) return;
+            final long recordId = record.id;
             new AlertDialog.Builder(context)
                     .setTitle("确认删除")
-                    .setMessage("确定要删除“" + recordName + "”吗？")
-                    .setPositiveButton("删除", (dialog, which) -> deleteRecordByTimestamp(recordTimestamp))
+                    .setMessage("确定要删除“" + record.name + "”吗？")
+                    .setPositiveButton("删除", (dialog, which) -> deleteRecordById(recordId))
                     .setNegativeButton("取消", null)
                     .show();
         });
+        return holder;
     }
 
-    private int findIndexByTimestamp(long timestamp) {
-        if (records == null || records.isEmpty()) {
-            return -1;
-        }
-        for (int i = 0; i < records.size(); i++) {
-            LocationRecord item = records.get(i);
-            if (item != null && item.timestamp == timestamp) {
-                return i;
-            }
-        }
-        return -1;
+    private LocationRecord recordAt(ViewHolder holder) {
+        int position = holder.getBindingAdapterPosition();
+        return position != RecyclerView.NO_POSITION ? differ.getCurrentList().get(position) : null;
     }
 
-    private void deleteRecordByTimestamp(long timestamp) {
-        if (records == null || records.isEmpty()) {
-            Toast.makeText(context, "删除失败：记录列表为空", Toast.LENGTH_SHORT).show();
-            Log.w(TAG, "deleteRecordByTimestamp: records is null or empty");
+    @Override
+    public void onBindViewHolder(@NonNull ViewHolder holder, int position, @NonNull List<Object> payloads) {
+        if (payloads.isEmpty()) {
+            onBindViewHolder(holder, position);
             return;
         }
+        bindCurrent(holder, differ.getCurrentList().get(position));
+    }
 
-        int adapterIndex = findIndexByTimestamp(timestamp);
-        if (adapterIndex < 0 || adapterIndex >= records.size()) {
-            Toast.makeText(context, "删除失败：记录不存在或已被删除", Toast.LENGTH_SHORT).show();
-            Log.w(TAG, "deleteRecordByTimestamp: record not found, timestamp=" + timestamp);
-            return;
-        }
+    @Override
+    public void onBindViewHolder(@NonNull ViewHolder holder, int position) {
+        LocationRecord record = differ.getCurrentList().get(position);
 
-        int currentAdapterIndex = getCurrentIndex();
+        RecordDisplayCache.Entry display = RecordDisplayCache.get(record);
 
-        records.remove(adapterIndex);
-        List<LocationRecord> updatedList = records;
-        RecordManager.saveAllRecords(context, updatedList);
+        holder.tvName.setText(record.name);
+        holder.tvCoords.setText(display.coords);
+        holder.tvTime.setText(display.time);
 
-        // 如果删除的是当前记录，重置当前索引；否则在其之后的索引前移一位
-        if (currentAdapterIndex == adapterIndex) {
-            RecordManager.setCurrentRecordIndex(context, -1);
-        } else if (currentAdapterIndex > adapterIndex) {
-            RecordManager.setCurrentRecordIndex(context, currentAdapterIndex - 1);
-        }
+        bindCurrent(holder, record);
+    }
 
-        notifyItemRemoved(adapterIndex);
-        if (listener != null) {
-            listener.onDataSetChanged();
+    // 高亮当前记录
+    private void bindCurrent(ViewHolder holder, LocationRecord record) {
+        if (record.id == currentId) {
+            holder.tvName.setTextColor(0xFF2196F3); // 蓝色
+        } else {
+            holder.tvName.setTextColor(0xFF000000); // 黑色
         }
-        Toast.makeText(context, "已删除", Toast.LENGTH_SHORT).show();
-        Log.d(TAG, "deleteRecordByTimestamp: removed index=" + adapterIndex
-                + ", currentAdapterIndex(before adjust)=" + currentAdapterIndex
-                + ", listSizeNow=" + updatedList.size());
     }
 
-    private int getCurrentIndex() {
-        List<LocationRecord> all = RecordManager.getAllRecords(context);
-        int currentIndex = RecordManager.getCurrentRecordIndex(context);
-        // 安全校验
-        if (currentIndex >= 0 && currentIndex < all.size()) {
-            // 找到当前记录在 records 中的位置（可能已被过滤）
-            for (int i = 0; i < records.size(); i++) {
-                if (records.get(i).timestamp == all.get(currentIndex).timestamp) {
-                    return i;
-                }
+    private void deleteRecordById(long id) {
+        repository.delete(id, deleted -> {
+            if (!deleted) {
+                Toast.makeText(context, "删除失败：记录不存在或已被删除", Toast.LENGTH_SHORT).show();
+                Log.w(TAG, "deleteRecordById: record not found, id=" + id);
+                return;
             }
-        }
-        return -1;
+            // 列表由 RecordRepository 的变更通知刷新
+            Toast.makeText(context, "已删除", Toast.LENGTH_SHORT).show();
+            Log.d(TAG, "deleteRecordById: removed id=" + id + ", sizeNow=" + repository.size());
+        });
+    }
+
+    @Override
+    public long getItemId(int position) {
+        return differ.getCurrentList().get(position).id;
     }
 
     @Override
     public int getItemCount() {
-        return records == null ? 0 : records.size();
+        return differ.getCurrentList().size();
     }
 
     public static class ViewHolder extends RecyclerView.ViewHolder {
@@ -172,4 +163,4 @@ public class RecordListAdapter extends RecyclerView.Adapter<RecordListAdapter.Vi
             btnDelete = itemView.findViewById(R.id.btn_delete);
         }
     }
-}
\ No newline at end of file
+}
@@ -1,27 +1,28 @@
 // RecordSelectAdapter.java
 package com.mock.location.adapter;
 
-import android.annotation.SuppressLint;
 import android.content.Context;
 import android.view.LayoutInflater;
 import android.view.View;
 import android.view.ViewGroup;
 import android.widget.TextView;
 import androidx.annotation.NonNull;
+import androidx.recyclerview.widget.AsyncListDiffer;
 import androidx.recyclerview.widget.RecyclerView;
 import com.mock.location.R;
 import com.mock.location.model.LocationRecord;
-import com.mock.location.util.RecordManager;
-import java.text.SimpleDateFormat;
-import java.util.ArrayList;
+import com.mock.location.util.RecordRepository;
 import java.util.List;
-import java.util.Locale;
 
 public class RecordSelectAdapter extends RecyclerView.Adapter<RecordSelectAdapter.ViewHolder> {
 
+    /** 只刷新选中状态的局部更新 */
+    private static final Object PAYLOAD_SELECTION = new Object();
+
     private final Context context;
-    private List<LocationRecord> records = new ArrayList<>();
-    private int selectedIndex = -1;
+    // 在后台线程计算差异，只刷新变化的行
+    private final AsyncListDiffer<LocationRecord> differ = new AsyncListDiffer<>(this, RecordDiffCallback.INSTANCE);
+    private long selectedId = -1;
     private final OnItemSelectedListener listener;
 
     public interface OnItemSelectedListener {
@@ -31,55 +32,83 @@ public class RecordSelectAdapter extends RecyclerView.Adapter<RecordSelectAdapte
     public RecordSelectAdapter(Context context, OnItemSelectedListener listener) {
         this.context = context;
         this.listener = listener;
+        setHasStableIds(true);
     }
 
     public void updateRecords(List<LocationRecord> records) {
-        this.records = records;
-        notifyDataSetChanged();
+        differ.submitList(records);
     }
 
-    public void setSelectedIndex(int index) {
-        this.selectedIndex = index;
-        notifyDataSetChanged();
+    public void setSelectedId(long id) {
+        if (id == selectedId) return;
+        int oldIndex = indexOf(selectedId);
+        int newIndex = indexOf(id);
+        selectedId = id;
+        if (oldIndex >= 0) notifyItemChanged(oldIndex, PAYLOAD_SELECTION);
+        if (newIndex >= 0) notifyItemChanged(newIndex, PAYLOAD_SELECTION);
+    }
+
+    private int indexOf(long id) {
+        if (id < 0) return -1;
+        List<LocationRecord> records = differ.getCurrentList();
+        for (int i = 0; i < records.size(); i++) {
+            if (records.get(i).id == id) return i;
+        }
+        return -1;
     }
 
     @NonNull
     @Override
     public ViewHolder onCreateViewHolder(@NonNull ViewGroup parent, int viewType) {
         View view = LayoutInflater.from(context).inflate(R.layout.item_record_selectable, parent, false);
-        return new ViewHolder(view);
+        ViewHolder holder = new ViewHolder(view);
+        // 每个 ViewHolder 只创建一次监听器，点击时再取当前位置
+        view.setOnClickListener(v -> {
+            int position = holder.getBindingAdapterPosition();
+            if (position == RecyclerView.NO_POSITION) return;
+            LocationRecord record = differ.getCurrentList().get(position);
+            setSelectedId(record.id);
+            RecordRepository.getInstance(context).setCurrent(record);
+            listener.onItemSelected(position);
+        });
+        return holder;
     }
 
     @Override
-    public void onBindViewHolder(@NonNull ViewHolder holder, @SuppressLint("RecyclerView") int position) {
-        LocationRecord record = records.get(position);
+    public void onBindViewHolder(@NonNull ViewHolder holder, int position, @NonNull List<Object> payloads) {
+        if (payloads.isEmpty()) {
+            onBindViewHolder(holder, position);
+            return;
+        }
+        bindSelection(holder, differ.getCurrentList().get(position));
+    }
+
+    @Override
+    public void onBindViewHolder(@NonNull ViewHolder holder, int position) {
+        LocationRecord record = differ.getCurrentList().get(position);
+
+        RecordDisplayCache.Entry display = RecordDisplayCache.get(record);
 
         holder.tvName.setText(record.name);
-        holder.tvCoords.setText(String.format("(%.4f, %.4f)", record.lat, record.lng));
+        holder.tvCoords.setText(display.coords);
+        holder.tvTime.setText(display.time);
 
-        SimpleDateFormat sdf = new SimpleDateFormat("yyyy-MM-dd HH:mm", Locale.getDefault());
-        holder.tvTime.setText(sdf.format(record.timestamp));
+        bindSelection(holder, record);
+    }
 
-        // 选中高亮
-        if (position == selectedIndex) {
-            holder.indicator.setVisibility(View.VISIBLE);
-        } else {
-            holder.indicator.setVisibility(View.INVISIBLE);
-        }
+    // 选中高亮
+    private void bindSelection(ViewHolder holder, LocationRecord record) {
+        holder.indicator.setVisibility(record.id == selectedId ? View.VISIBLE : View.INVISIBLE);
+    }
 
-        holder.itemView.setOnClickListener(v -> {
-            int oldIndex = selectedIndex;
-            selectedIndex = position;
-            notifyItemChanged(oldIndex);
-            notifyItemChanged(position);
-            RecordManager.setCurrentRecordIndex(context, position);
-            listener.onItemSelected(position);
-        });
+    @Override
+    public long getItemId(int position) {
+        return differ.getCurrentList().get(position).id;
     }
 
     @Override
     public int getItemCount() {
-        return records.size();
+        return differ.getCurrentList().size();
     }
 
     static class ViewHolder extends RecyclerView.ViewHolder {
@@ -94,4 +123,4 @@ public class RecordSelectAdapter extends RecyclerView.Adapter<RecordSelectAdapte
             tvTime = itemView.findViewById(R.id.tv_time);
         }
     }
-}
\ No newline at end of file
+}
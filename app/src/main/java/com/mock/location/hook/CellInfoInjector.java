@@ -0,0 +1,294 @@
+package com.mock.location.hook;
+
+import android.os.SystemClock;
+import android.telephony.CellInfo;
+
+import com.mock.location.model.LocationRecord;
+import com.mock.location.model.SerializableCellInfo;
+
+import java.lang.reflect.Constructor;
+import java.lang.reflect.Field;
+import java.lang.reflect.Method;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+
+import de.robv.android.xposed.XposedHelpers;
+
+/**
+ * TelephonyManager.getAllCellInfo() 与 requestCellInfoUpdate() 的注入列表。
+ * <p>
+ * CellInfo 各子类没有公开构造器：创建时按制式解析一次隐藏的无参构造器与字段，
+ * 某个制式缺少必需的字段时只禁用该制式。主小区标记为已注册并排在最前，其后为邻区；
+ * 主小区的制式不可用时该版本不注入，保留原始结果。
+ * <p>
+ * 列表按来源记录（配置或路线当前的快照，见 {@link MockSnapshot#environment()}）与上报周期（{@link #CELL_PERIOD_MS}）构建：同一周期内的多次调用看到相同的结果，
+ * 周期之间时间戳前进，与调制解调器周期性上报一致，长时间不变的配置也不会返回过期很久的 CellInfo。
+ * CellInfo 对调用方只读，同一周期内各次调用共享同一组实例，只有外层列表每次浅拷贝。
+ */
+public final class CellInfoInjector {
+
+    /** 模拟的 CellInfo 上报周期，系统在亮屏时通常数秒刷新一次 */
+    private static final long CELL_PERIOD_MS = 5_000;
+
+    /** CellInfo.CONNECTION_PRIMARY_SERVING / CONNECTION_NONE */
+    private static final int CONNECTION_PRIMARY_SERVING = 1;
+    private static final int CONNECTION_NONE = 0;
+
+    /** 一种制式（CellInfoXxx + CellIdentityXxx + CellSignalStrengthXxx）的反射句柄 */
+    private static final class TypeSpec {
+        final Constructor<?> infoConstructor;
+        final Field identityField;
+        final Field signalField;
+        final Field lacField;
+        final Field cidField;
+        final Field nciField;
+        final Field pciField;
+        final Field arfcnField;
+        final Field dbmField;
+        /** API 28+ 为 String mMccStr/mMncStr，更早的版本为 int mMcc/mMnc */
+        final Field mccField;
+        final Field mncField;
+        /** API 30+ 由各字段派生 mGlobalCellId，直接改字段后须重新计算，更早的版本为 null */
+        final Method updateGlobalCellId;
+
+        private TypeSpec(Constructor<?> infoConstructor, Field identityField, Field signalField,
+                         Field lacField, Field cidField, Field nciField, Field pciField,
+                         Field arfcnField, Field dbmField, Field mccField, Field mncField,
+                         Method updateGlobalCellId) {
+            this.infoConstructor = infoConstructor;
+            this.identityField = identityField;
+            this.signalField = signalField;
+            this.lacField = lacField;
+            this.cidField = cidField;
+            this.nciField = nciField;
+            this.pciField = pciField;
+            this.arfcnField = arfcnField;
+            this.dbmField = dbmField;
+            this.mccField = mccField;
+            this.mncField = mncField;
+            this.updateGlobalCellId = updateGlobalCellId;
+        }
+
+        /**
+         * 构造器、identity 字段、lac 与小区标识（cid 或 nci）是必需的，其余缺失时跳过；必需项缺失返回 null。
+         */
+        static TypeSpec resolve(ClassLoader classLoader, String type, String lac, String cid, String nci,
+                                String pci, String arfcn, String dbm) {
+            Class<?> infoClass = XposedHelpers.findClassIfExists("android.telephony.CellInfo" + type, classLoader);
+            Class<?> identityClass = XposedHelpers.findClassIfExists("android.telephony.CellIdentity" + type, classLoader);
+            if (infoClass == null || identityClass == null) {
+                return null;
+            }
+            Constructor<?> constructor = XposedHelpers.findConstructorExactIfExists(infoClass);
+            Field identityField = findFieldByType(infoClass, identityClass);
+            Field lacField = XposedHelpers.findFieldIfExists(identityClass, lac);
+            Field cidField = cid != null ? XposedHelpers.findFieldIfExists(identityClass, cid) : null;
+            Field nciField = nci != null ? XposedHelpers.findFieldIfExists(identityClass, nci) : null;
+            if (constructor == null || identityField == null || lacField == null
+                    || (cidField == null && nciField == null)) {
+                return null;
+            }
+            Field mcc = XposedHelpers.findFieldIfExists(identityClass, "mMccStr");
+            Field mnc = XposedHelpers.findFieldIfExists(identityClass, "mMncStr");
+            if (mcc == null || mnc == null) {
+                mcc = XposedHelpers.findFieldIfExists(identityClass, "mMcc");
+                mnc = XposedHelpers.findFieldIfExists(identityClass, "mMnc");
+            }
+            Class<?> signalClass = XposedHelpers.findClassIfExists(
+                    "android.telephony.CellSignalStrength" + type, classLoader);
+            Field signalField = signalClass != null ? findFieldByType(infoClass, signalClass) : null;
+            Field dbmField = signalField != null ? XposedHelpers.findFieldIfExists(signalClass, dbm) : null;
+            return new TypeSpec(constructor, identityField, signalField, lacField, cidField, nciField,
+                    XposedHelpers.findFieldIfExists(identityClass, pci),
+                    XposedHelpers.findFieldIfExists(identityClass, arfcn),
+                    dbmField, mcc, mnc,
+                    XposedHelpers.findMethodExactIfExists(identityClass, "updateGlobalCellId"));
+        }
+
+        /**
+         * 字段名在各版本间有变化（mCellIdentityLte / mCellIdentity），按类型查找更稳定。
+         */
+        private static Field findFieldByType(Class<?> cls, Class<?> type) {
+            for (Class<?> c = cls; c != null && c != Object.class; c = c.getSuperclass()) {
+                for (Field field : c.getDeclaredFields()) {
+                    if (field.getType() == type) {
+                        field.setAccessible(true);
+                        return field;
+                    }
+                }
+            }
+            return null;
+        }
+
+        CellInfo newCellInfo(SerializableCellInfo cell) throws ReflectiveOperationException {
+            CellInfo info = (CellInfo) infoConstructor.newInstance();
+            // 无参构造器已创建默认（全部不可用）的 identity 与 signal，这里只覆盖已知字段
+            Object identity = identityField.get(info);
+            if (identity == null) {
+                return null;
+            }
+            lacField.setInt(identity, orUnavailable(cell.lac));
+            if (cidField != null) {
+                cidField.setInt(identity, orUnavailable(cell.cid));
+            }
+            if (nciField != null) {
+                nciField.setLong(identity, cell.nci >= 0 ? cell.nci : Long.MAX_VALUE);
+            }
+            if (pciField != null) {
+                pciField.setInt(identity, orUnavailable(cell.pci));
+            }
+            if (arfcnField != null) {
+                arfcnField.setInt(identity, orUnavailable(cell.arfcn));
+            }
+            if (mccField != null) {
+                if (mccField.getType() == String.class) {
+                    // 优先写入采集时的原始字符串；旧记录只有整数，按最常见的 3 位 MCC、2 位 MNC 补零
+                    mccField.set(identity, cell.mccStr != null ? cell.mccStr
+                            : cell.mcc >= 0 ? String.format(Locale.US, "%03d", cell.mcc) : null);
+                    mncField.set(identity, cell.mncStr != null ? cell.mncStr
+                            : cell.mnc >= 0 ? String.format(Locale.US, "%02d", cell.mnc) : null);
+                } else {
+                    mccField.setInt(identity, orUnavailable(cell.mcc));
+                    mncField.setInt(identity, orUnavailable(cell.mnc));
+                }
+            }
+            if (updateGlobalCellId != null) {
+                updateGlobalCellId.invoke(identity);
+            }
+            if (dbmField != null && cell.dbm != 0) {
+                Object signal = signalField.get(info);
+                if (signal != null) {
+                    dbmField.setInt(signal, cell.dbm);
+                }
+            }
+            return info;
+        }
+
+        /** 记录中未知的字段为 -1，系统以 CellInfo.UNAVAILABLE（Integer.MAX_VALUE）表示 */
+        private static int orUnavailable(int value) {
+            return value >= 0 ? value : Integer.MAX_VALUE;
+        }
+    }
+
+    /** networkType → 制式句柄，只含当前系统可用的制式 */
+    private final Map<String, TypeSpec> specs;
+    private final Field registeredField;
+    private final Field timestampField;
+    private final Field connectionStatusField;
+
+    /** 来源记录、上报周期与对应的注入列表；list 为 null 表示不注入 */
+    private static final class Built {
+        final LocationRecord source;
+        final long epoch;
+        final List<CellInfo> list;
+
+        Built(LocationRecord source, long epoch, List<CellInfo> list) {
+            this.source = source;
+            this.epoch = epoch;
+            this.list = list;
+        }
+    }
+
+    private volatile Built built;
+
+    private CellInfoInjector(Map<String, TypeSpec> specs, Field registeredField, Field timestampField,
+                             Field connectionStatusField) {
+        this.specs = specs;
+        this.registeredField = registeredField;
+        this.timestampField = timestampField;
+        this.connectionStatusField = connectionStatusField;
+    }
+
+    /**
+     * 解析各制式的句柄；CellInfo.mRegistered 不存在或没有任何可用制式时返回 null，调用方保留原始结果。
+     */
+    static CellInfoInjector create(ClassLoader classLoader) {
+        Class<?> base = XposedHelpers.findClassIfExists("android.telephony.CellInfo", classLoader);
+        Field registered = base != null ? XposedHelpers.findFieldIfExists(base, "mRegistered") : null;
+        if (registered == null) {
+            return null;
+        }
+        Map<String, TypeSpec> specs = new HashMap<>();
+        put(specs, "GSM", TypeSpec.resolve(classLoader, "Gsm", "mLac", "mCid", null, "mBsic", "mArfcn", "mRssi"));
+        put(specs, "WCDMA", TypeSpec.resolve(classLoader, "Wcdma", "mLac", "mCid", null, "mPsc", "mUarfcn", "mRscp"));
+        put(specs, "LTE", TypeSpec.resolve(classLoader, "Lte", "mTac", "mCi", null, "mPci", "mEarfcn", "mRsrp"));
+        // API 29+
+        put(specs, "NR", TypeSpec.resolve(classLoader, "Nr", "mTac", null, "mNci", "mPci", "mNrArfcn", "mSsRsrp"));
+        if (specs.isEmpty()) {
+            return null;
+        }
+        return new CellInfoInjector(specs, registered,
+                XposedHelpers.findFieldIfExists(base, "mTimeStamp"),
+                XposedHelpers.findFieldIfExists(base, "mCellConnectionStatus"));
+    }
+
+    private static void put(Map<String, TypeSpec> specs, String networkType, TypeSpec spec) {
+        if (spec != null) {
+            specs.put(networkType, spec);
+        } else {
+            HookLog.e("CellInfo accessors unavailable for " + networkType);
+        }
+    }
+
+    /**
+     * 返回当前记录与上报周期的注入列表拷贝；没有主小区或其制式不可用时返回 null。
+     */
+    public List<CellInfo> cellInfos(MockSnapshot snapshot) throws ReflectiveOperationException {
+        long epoch = SystemClock.elapsedRealtime() / CELL_PERIOD_MS;
+        LocationRecord source = snapshot.environment();
+        Built current = built;
+        if (current == null || current.source != source || current.epoch != epoch) {
+            current = new Built(source, epoch, build(source, epoch));
+            built = current;
+        }
+        return current.list != null ? new ArrayList<>(current.list) : null;
+    }
+
+    private List<CellInfo> build(LocationRecord record, long epoch) throws ReflectiveOperationException {
+        CellInfo serving = newCellInfo(record.cellInfo, true);
+        if (serving == null) {
+            return null;
+        }
+        // CellInfo.mTimeStamp 为开机以来的纳秒数；上报时间取本周期开始时刻
+        long timestamp = epoch * CELL_PERIOD_MS * 1_000_000L;
+        List<CellInfo> cells = new ArrayList<>();
+        cells.add(serving);
+        if (record.neighborCells != null) {
+            for (SerializableCellInfo neighbor : record.neighborCells) {
+                CellInfo info = newCellInfo(neighbor, false);
+                if (info != null) {
+                    cells.add(info);
+                }
+            }
+        }
+        if (timestampField != null) {
+            for (CellInfo info : cells) {
+                timestampField.setLong(info, timestamp);
+            }
+        }
+        return Collections.unmodifiableList(cells);
+    }
+
+    private CellInfo newCellInfo(SerializableCellInfo cell, boolean registered) throws ReflectiveOperationException {
+        if (cell == null || cell.networkType == null) {
+            return null;
+        }
+        TypeSpec spec = specs.get(cell.networkType.toUpperCase(Locale.US));
+        if (spec == null) {
+            return null;
+        }
+        CellInfo info = spec.newCellInfo(cell);
+        if (info == null) {
+            return null;
+        }
+        registeredField.setBoolean(info, registered);
+        if (connectionStatusField != null) {
+            connectionStatusField.setInt(info, registered ? CONNECTION_PRIMARY_SERVING : CONNECTION_NONE);
+        }
+        return info;
+    }
+}
@@ -0,0 +1,115 @@
+package com.mock.location.hook;
+
+import com.mock.location.model.LocationRecord;
+import com.mock.location.model.SerializableCellInfo;
+
+import java.lang.reflect.Constructor;
+import java.lang.reflect.Field;
+import java.lang.reflect.Method;
+import java.util.Locale;
+
+import de.robv.android.xposed.XposedHelpers;
+
+/**
+ * TelephonyManager.getCellLocation() 的注入对象。
+ * <p>
+ * 与系统的 CellIdentity.asCellLocation() 一致：GSM/WCDMA 为 (lac, cid)，LTE 为 (tac, ci)，
+ * NR 返回空的 GsmCellLocation（lac、cid 均为 -1）。
+ * <p>
+ * 创建时一次性确定写入策略：优先 setLacAndCid，其次 mLac/mCid 字段；都不可用时
+ * {@link #create} 返回 null，失败结果由 {@link HookAccessors} 记住，不再重试。
+ * 返回给调用方的 GsmCellLocation 可被修改，因此每次调用新建实例，只复用反射句柄。
+ */
+public final class CellLocationInjector {
+
+    private final Constructor<?> constructor;
+    private final Method setLacAndCid;
+    private final Field lacField;
+    private final Field cidField;
+
+    /** NR 小区对应的空位置 */
+    private static final SerializableCellInfo EMPTY = new SerializableCellInfo();
+
+    /** 来源记录（见 {@link MockSnapshot#environment()}）与对应的 GSM 基站；cell 为 null 表示不注入 */
+    private static final class Resolved {
+        final LocationRecord source;
+        final SerializableCellInfo cell;
+
+        Resolved(LocationRecord source, SerializableCellInfo cell) {
+            this.source = source;
+            this.cell = cell;
+        }
+    }
+
+    private volatile Resolved resolved;
+
+    private CellLocationInjector(Constructor<?> constructor, Method setLacAndCid,
+                                 Field lacField, Field cidField) {
+        this.constructor = constructor;
+        this.setLacAndCid = setLacAndCid;
+        this.lacField = lacField;
+        this.cidField = cidField;
+    }
+
+    static CellLocationInjector create(ClassLoader classLoader) {
+        Class<?> cls = XposedHelpers.findClassIfExists("android.telephony.gsm.GsmCellLocation", classLoader);
+        if (cls == null) {
+            return null;
+        }
+        Constructor<?> constructor = XposedHelpers.findConstructorExactIfExists(cls);
+        if (constructor == null) {
+            return null;
+        }
+        Method method = XposedHelpers.findMethodExactIfExists(cls, "setLacAndCid", int.class, int.class);
+        if (method != null) {
+            return new CellLocationInjector(constructor, method, null, null);
+        }
+        Field lac = XposedHelpers.findFieldIfExists(cls, "mLac");
+        Field cid = XposedHelpers.findFieldIfExists(cls, "mCid");
+        if (lac != null && cid != null) {
+            return new CellLocationInjector(constructor, null, lac, cid);
+        }
+        return null;
+    }
+
+    /**
+     * 当前记录对应的 GsmCellLocation；没有基站信息或为不支持的类型时返回 null。
+     */
+    public Object cellLocation(MockSnapshot snapshot) throws ReflectiveOperationException {
+        LocationRecord source = snapshot.environment();
+        Resolved current = resolved;
+        if (current == null || current.source != source) {
+            current = new Resolved(source, gsmCell(source.cellInfo));
+            resolved = current;
+        }
+        SerializableCellInfo cell = current.cell;
+        if (cell == null) {
+            return null;
+        }
+
+        Object location = constructor.newInstance();
+        if (setLacAndCid != null) {
+            setLacAndCid.invoke(location, cell.lac, cell.cid);
+        } else {
+            lacField.setInt(location, cell.lac);
+            cidField.setInt(location, cell.cid);
+        }
+        return location;
+    }
+
+    private static SerializableCellInfo gsmCell(SerializableCellInfo cellInfo) {
+        if (cellInfo == null || cellInfo.networkType == null) {
+            return null;
+        }
+        switch (cellInfo.networkType.toUpperCase(Locale.US)) {
+            case "GSM":
+            case "WCDMA":
+            case "LTE":
+                return cellInfo;
+            case "NR":
+                return EMPTY;
+            default:
+                return null;
+        }
+    }
+}
@@ -0,0 +1,400 @@
+package com.mock.location.hook;
+
+import android.os.Build;
+import android.os.FileObserver;
+import android.os.Handler;
+import android.os.HandlerThread;
+import android.system.ErrnoException;
+import android.system.Os;
+import android.system.OsConstants;
+import android.system.StructStat;
+
+import com.google.gson.stream.JsonReader;
+import com.google.gson.stream.JsonToken;
+import com.mock.location.model.MockConfig;
+import com.mock.location.route.RouteFile;
+import com.mock.location.route.RoutePlayer;
+import com.mock.location.util.BinaryConfig;
+import com.mock.location.util.ConfigFileUtil;
+import com.mock.location.util.JsonUtils;
+
+import java.io.File;
+import java.nio.MappedByteBuffer;
+
+/**
+ * 被 Hook 进程内的配置监听器。
+ * <p>
+ * 在后台 HandlerThread 上通过 FileObserver(inotify) 监听 mock_location.bin / mock_location.loc，
+ * 文件变化后重新读取（优先 mmap 二进制配置，回退 JSON），并通过 volatile 引用原子发布新的 {@link MockSnapshot}。
+ * Hook 回调只调用 {@link #current()}，不会访问文件系统。
+ * <p>
+ * 部分 ROM 的 SELinux 策略不允许普通应用对 /data/local/tmp 建立 inotify 监听，
+ * 因此后台线程同时以较低频率 stat 文件做兜底，保证最终一定能看到新配置。
+ * <p>
+ * 应用创建后还会尝试订阅 App 的 {@link com.mock.location.ConfigProvider}（见 {@link ProviderChannel}），
+ * 由 App 主动推送变更。两个通道发布同一份配置时按 {@link MockConfig#generation} 去重，旧代数不会覆盖新代数。
+ * Provider 返回配置后即由它接管，文件通道不再发布：App 只走 Provider 时文件缺失不会把配置重置为默认值，
+ * 代数不高于 Provider 配置的残留旧文件也不会再生效。Provider 停止模拟、调用失败或没有状态时交还给文件通道。
+ */
+public final class ConfigWatcher {
+
+    /** 兜底轮询间隔（毫秒），仅在后台线程执行 */
+    private static final long POLL_INTERVAL_MS = 2000;
+    /** Provider 接管期间每隔多少次轮询向它确认一次（约 30 秒），以发现 App 被卸载或更新 */
+    private static final int PROVIDER_CHECK_POLLS = 15;
+
+    private static final int DIR_EVENTS = FileObserver.CLOSE_WRITE | FileObserver.MOVED_TO
+            | FileObserver.DELETE | FileObserver.CREATE;
+    // 被 mv 覆盖的旧 inode 仍被 mmap 引用时不会触发 DELETE_SELF，只会收到 ATTRIB（链接数变化）
+    private static final int FILE_EVENTS = FileObserver.CLOSE_WRITE | FileObserver.MODIFY
+            | FileObserver.ATTRIB | FileObserver.DELETE_SELF | FileObserver.MOVE_SELF;
+
+    /** 配置文件缺失或解析失败时使用的兜底配置，只创建一次 */
+    private static final MockConfig DEFAULT_CONFIG = MockConfig.DefaultValue();
+    private static final MockSnapshot DEFAULT_SNAPSHOT = new MockSnapshot(DEFAULT_CONFIG, null);
+
+    private static final Object LOCK = new Object();
+
+    private static volatile MockSnapshot sCurrent = DEFAULT_SNAPSHOT;
+
+    // 以下字段只在 LOCK 内或后台线程访问
+    private static Handler sHandler;
+    private static FileObserver sObserver;
+    private static boolean sWatchingDir;
+    private static final FileKey sJsonKey = new FileKey();
+    private static final FileKey sBinaryKey = new FileKey();
+    private static MappedByteBuffer sMapped;
+    private static boolean sProviderAuthoritative;
+    private static int sPollsSinceProviderCheck;
+    /** Provider 发布过的最高配置代数；不高于它的文件配置是切换通道前留下的旧文件 */
+    private static long sProviderGeneration;
+    /** 本进程所属应用的包名，用于按包解析 Hook 分组 */
+    private static volatile String sPackageName;
+
+    private ConfigWatcher() {
+    }
+
+    /**
+     * 当前生效的配置快照，不为 null。Hook 热路径只做一次 volatile 读。
+     */
+    public static MockSnapshot current() {
+        return sCurrent;
+    }
+
+    /**
+     * 同步加载一次配置并启动后台监听；同一进程内重复调用无副作用。
+     *
+     * @param packageName 本进程所属应用的包名，快照按它解析 Hook 分组
+     */
+    public static void start(String packageName) {
+        synchronized (LOCK) {
+            if (sHandler != null) {
+                return;
+            }
+            sPackageName = packageName;
+            reloadIfChanged();
+
+            HandlerThread thread = new HandlerThread("MockConfigWatcher");
+            thread.start();
+            sHandler = new Handler(thread.getLooper());
+            sHandler.post(ConfigWatcher::startObserving);
+            sHandler.postDelayed(POLL, POLL_INTERVAL_MS);
+        }
+    }
+
+    private static final Runnable RELOAD = ConfigWatcher::reloadIfChanged;
+    private static final Runnable PROVIDER_RELOAD = ConfigWatcher::reloadFromProvider;
+
+    private static final Runnable POLL = new Runnable() {
+        @Override
+        public void run() {
+            if (!ProviderChannel.isConnected()) {
+                if (ProviderChannel.tryConnect(sHandler, PROVIDER_RELOAD)) {
+                    reloadFromProvider();
+                }
+            } else if (sProviderAuthoritative && ++sPollsSinceProviderCheck >= PROVIDER_CHECK_POLLS) {
+                reloadFromProvider();
+            }
+            reloadIfChanged();
+            sHandler.postDelayed(this, POLL_INTERVAL_MS);
+        }
+    };
+
+    /**
+     * 优先监听目录（能感知文件的删除与重建）；目录不可读时退而监听文件本身，
+     * 文件被删除或替换后由 {@link #reloadIfChanged} 重新挂载。
+     */
+    private static void startObserving() {
+        File target = new File(ConfigFileUtil.TARGET_PATH);
+        final String jsonName = target.getName();
+        final String binaryName = new File(BinaryConfig.TARGET_PATH).getName();
+        String dir = target.getParent();
+
+        if (canRead(dir)) {
+            sObserver = new FileObserver(dir, DIR_EVENTS) {
+                @Override
+                public void onEvent(int event, String path) {
+                    if (jsonName.equals(path) || binaryName.equals(path)) {
+                        sHandler.post(RELOAD);
+                    }
+                }
+            };
+            sObserver.startWatching();
+            sWatchingDir = true;
+            return;
+        }
+        watchFile();
+    }
+
+    /**
+     * 监听当前生效的文件：存在二进制配置时监听它，否则监听 JSON。
+     */
+    private static void watchFile() {
+        if (sObserver != null) {
+            sObserver.stopWatching();
+            sObserver = null;
+        }
+        String path = new File(BinaryConfig.TARGET_PATH).exists()
+                ? BinaryConfig.TARGET_PATH
+                : ConfigFileUtil.TARGET_PATH;
+        if (!new File(path).exists()) {
+            // 文件尚不存在，等兜底轮询发现后再挂载
+            return;
+        }
+        sObserver = new FileObserver(path, FILE_EVENTS) {
+            @Override
+            public void onEvent(int event, String p) {
+                sHandler.post(RELOAD);
+            }
+        };
+        sObserver.startWatching();
+    }
+
+    /**
+     * 优先读取二进制配置，不存在或无效时回退到 JSON。
+     * 只有文件的 mtime/size/inode（二进制还有序列号）变化时才重新解码。
+     */
+    private static void reloadIfChanged() {
+        if (sProviderAuthoritative) {
+            return;
+        }
+        boolean rearm;
+        StructStat bin = stat(BinaryConfig.TARGET_PATH);
+        if (bin != null && reloadBinary(bin)) {
+            rearm = sBinaryKey.inodeChanged;
+            sJsonKey.reset();
+        } else {
+            sMapped = null;
+            sBinaryKey.reset();
+            reloadJson(stat(ConfigFileUtil.TARGET_PATH));
+            rearm = sJsonKey.inodeChanged;
+        }
+
+        if (rearm && sHandler != null && !sWatchingDir) {
+            // 文件被重建：旧 inode 上的监听已失效，重新挂载
+            sHandler.post(ConfigWatcher::watchFile);
+        }
+    }
+
+    private static boolean reloadBinary(StructStat st) {
+        if (sBinaryKey.update(st) || sMapped == null) {
+            sMapped = BinaryConfig.map(BinaryConfig.TARGET_PATH);
+            if (sMapped == null) {
+                return false;
+            }
+        }
+        // 序列号即配置代数，与当前快照相同时无需解码
+        long sequence = BinaryConfig.sequence(sMapped);
+        if (sequence == sCurrent.config.generation || isStale(sequence)) {
+            return true;
+        }
+
+        MockConfig config = BinaryConfig.decode(sMapped);
+        if (config == null) {
+            sBinaryKey.reset();
+            return false;
+        }
+        publish(config);
+        return true;
+    }
+
+    private static void reloadJson(StructStat st) {
+        if (st == null) {
+            sJsonKey.reset();
+            // 已订阅 Provider 时配置可能只经 Provider 发布，文件缺失不代表停止
+            if (!ProviderChannel.isConnected()) {
+                publish(DEFAULT_CONFIG);
+            }
+            return;
+        }
+        if (!sJsonKey.update(st)) {
+            return;
+        }
+        long generation = sCurrent.config.generation;
+        long fileGeneration = generation != 0 || sProviderGeneration != 0 ? readGeneration() : 0;
+        if ((generation != 0 && fileGeneration == generation) || isStale(fileGeneration)) {
+            return;
+        }
+
+        MockConfig config = parse();
+        if (config == null) {
+            // 文件经 rename 原子替换，不会读到半个文件；解析失败说明内容本身有误，
+            // 保留当前快照而不是回退到默认坐标，且不记住版本键，下一次重新解析
+            sJsonKey.mtime = Long.MIN_VALUE;
+            return;
+        }
+        publish(config);
+    }
+
+    /**
+     * 只读取 JSON 的第一个字段 generation（见 {@link MockConfig#generation}），读不到时返回 0。
+     */
+    private static long readGeneration() {
+        try (JsonReader reader = JsonUtils.newReader(new File(ConfigFileUtil.TARGET_PATH))) {
+            reader.beginObject();
+            if (reader.hasNext() && "generation".equals(reader.nextName())
+                    && reader.peek() == JsonToken.NUMBER) {
+                return reader.nextLong();
+            }
+        } catch (Exception ignored) {
+            // 旧格式或无法读取时按需要完整解析处理
+        }
+        return 0;
+    }
+
+    /**
+     * 文件配置的代数不高于 Provider 发布过的代数：切换到仅 Provider 模式前留下的旧文件，不再生效。
+     */
+    private static boolean isStale(long fileGeneration) {
+        return sProviderGeneration != 0 && fileGeneration <= sProviderGeneration;
+    }
+
+    /**
+     * 从 Provider 取回推送的配置，取到后由 Provider 接管。
+     * Provider 没有状态、调用失败（App 被卸载或更新）或已停止时交还给文件通道。
+     */
+    private static void reloadFromProvider() {
+        sPollsSinceProviderCheck = 0;
+        MockConfig config = ProviderChannel.fetch();
+        if (config == null || config == ProviderChannel.STOPPED) {
+            if (config == ProviderChannel.STOPPED) {
+                publish(DEFAULT_CONFIG);
+            }
+            releaseProvider();
+            return;
+        }
+        sProviderAuthoritative = true;
+        sProviderGeneration = Math.max(sProviderGeneration, config.generation);
+        if (config.generation != sCurrent.config.generation) {
+            publish(config);
+        }
+    }
+
+    /**
+     * 结束 Provider 接管：接管期间文件通道没有跟踪文件变化，清空版本键重新读取，
+     * 并重新挂载可能已指向旧 inode 的文件监听。
+     */
+    private static void releaseProvider() {
+        if (!sProviderAuthoritative) {
+            return;
+        }
+        sProviderAuthoritative = false;
+        sMapped = null;
+        sBinaryKey.reset();
+        sJsonKey.reset();
+        reloadIfChanged();
+        if (!sWatchingDir) {
+            watchFile();
+        }
+    }
+
+    private static void publish(MockConfig config) {
+        if (sCurrent.config == config) {
+            return;
+        }
+        if (config.generation != 0 && config.generation < sCurrent.config.generation) {
+            // 另一个通道已发布过更新的配置
+            return;
+        }
+        HookLog.setLevel(config.logLevel);
+        sCurrent = config == DEFAULT_CONFIG
+                ? DEFAULT_SNAPSHOT
+                : new MockSnapshot(config, openRoute(config), config.hookPlanFor(sPackageName));
+    }
+
+    /**
+     * 配置启用路线回放时映射路线文件；文件无效则退回固定坐标。
+     */
+    private static RoutePlayer openRoute(MockConfig config) {
+        if (config.routeStartElapsed <= 0) {
+            return null;
+        }
+        RoutePlayer route = RoutePlayer.open(RouteFile.TARGET_PATH, config.routeLoop);
+        if (route == null) {
+            HookLog.e("Route file missing or invalid, using static location");
+        }
+        return route;
+    }
+
+    private static MockConfig parse() {
+        try {
+            return JsonUtils.fromFile(new File(ConfigFileUtil.TARGET_PATH), MockConfig.class);
+        } catch (Throwable e) {
+            HookLog.e("Parse JSON failed: " + e.getMessage());
+            return null;
+        }
+    }
+
+    private static StructStat stat(String path) {
+        try {
+            return Os.stat(path);
+        } catch (ErrnoException e) {
+            return null;
+        }
+    }
+
+    private static boolean canRead(String path) {
+        try {
+            return Os.access(path, OsConstants.R_OK);
+        } catch (ErrnoException e) {
+            return false;
+        }
+    }
+
+    private static long mtimeNanos(StructStat st) {
+        if (Build.VERSION.SDK_INT >= Build.VERSION_CODES.O_MR1) {
+            return st.st_mtim.tv_sec * 1_000_000_000L + st.st_mtim.tv_nsec;
+        }
+        return st.st_mtime * 1_000_000_000L;
+    }
+
+    /**
+     * 文件版本键：mtime/size/inode。
+     */
+    private static final class FileKey {
+        long mtime = Long.MIN_VALUE;
+        long size = Long.MIN_VALUE;
+        long inode = Long.MIN_VALUE;
+        boolean inodeChanged;
+
+        /**
+         * 记录新的版本键，返回是否与上次不同。
+         */
+        boolean update(StructStat st) {
+            long newMtime = mtimeNanos(st);
+            inodeChanged = st.st_ino != inode;
+            if (!inodeChanged && newMtime == mtime && st.st_size == size) {
+                return false;
+            }
+            mtime = newMtime;
+            size = st.st_size;
+            inode = st.st_ino;
+            return true;
+        }
+
+        void reset() {
+            mtime = size = inode = Long.MIN_VALUE;
+            inodeChanged = false;
+        }
+    }
+}
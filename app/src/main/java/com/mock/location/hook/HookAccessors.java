@@ -0,0 +1,48 @@
+package com.mock.location.hook;
+
+import java.util.Map;
+import java.util.WeakHashMap;
+
+/**
+ * 按 ClassLoader 缓存的反射访问器。
+ * <p>
+ * 在 handleLoadPackage 时解析一次各注入路径所需的构造器/方法/字段，
+ * 解析失败（字段不存在、方法被移除等）同样缓存为 null，Hook 热路径不会重复查找或抛异常。
+ */
+public final class HookAccessors {
+
+    private static final Map<ClassLoader, HookAccessors> REGISTRY = new WeakHashMap<>();
+
+    /** WiFi 扫描结果注入，null 表示当前系统不支持 */
+    public final ScanResultInjector scanResults;
+    /** 基站位置注入，null 表示当前系统不支持 */
+    public final CellLocationInjector cellLocation;
+    /** 基站列表注入，null 表示当前系统不支持 */
+    public final CellInfoInjector cellInfos;
+
+    private HookAccessors(ClassLoader classLoader) {
+        this.scanResults = ScanResultInjector.create(classLoader);
+        this.cellLocation = CellLocationInjector.create(classLoader);
+        this.cellInfos = CellInfoInjector.create(classLoader);
+        if (scanResults == null) {
+            HookLog.e("ScanResult accessors unavailable, WiFi injection disabled");
+        }
+        if (cellLocation == null) {
+            HookLog.e("GsmCellLocation accessors unavailable, cell injection disabled");
+        }
+        if (cellInfos == null) {
+            HookLog.e("CellInfo accessors unavailable, cell list injection disabled");
+        }
+    }
+
+    public static HookAccessors get(ClassLoader classLoader) {
+        synchronized (REGISTRY) {
+            HookAccessors accessors = REGISTRY.get(classLoader);
+            if (accessors == null) {
+                accessors = new HookAccessors(classLoader);
+                REGISTRY.put(classLoader, accessors);
+            }
+            return accessors;
+        }
+    }
+}
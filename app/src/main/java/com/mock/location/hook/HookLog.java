@@ -0,0 +1,130 @@
+package com.mock.location.hook;
+
+import android.os.SystemClock;
+
+import com.mock.location.model.MockConfig;
+
+import de.robv.android.xposed.XposedBridge;
+
+/**
+ * Hook 侧日志。
+ * <p>
+ * XposedBridge.log 每次都会写入 LSPosed 日志文件，高频 getter 中直接调用代价很高。
+ * 这里按级别过滤（级别来自配置 {@link MockConfig#logLevel}），并按 {@link Site}
+ * 限流：同一个 Hook 点在一个进程（即一个包）内每个间隔最多输出一条，其余只计数。
+ * 只有确定要输出时才拼接字符串，日志关闭时调用方不产生任何分配。
+ */
+public final class HookLog {
+
+    private static final String TAG = "MockLocation";
+
+    /** 同一 Hook 点两条日志之间的最小间隔（毫秒） */
+    private static final long DEFAULT_INTERVAL_MS = 1000;
+
+    private static volatile int sLevel = MockConfig.LOG_ERROR;
+
+    private HookLog() {
+    }
+
+    public static void setLevel(int level) {
+        sLevel = level;
+    }
+
+    public static boolean isLoggable(int level) {
+        return level <= sLevel && level > MockConfig.LOG_OFF;
+    }
+
+    public static Site site(String name) {
+        return new Site(name, DEFAULT_INTERVAL_MS);
+    }
+
+    /**
+     * 一个 Hook 点的限流状态。字段读写不加锁，并发时偶尔多输出或少计数一条可以接受。
+     */
+    public static final class Site {
+        final String name;
+        final long intervalMs;
+        private long nextAt;
+        private int suppressed;
+
+        Site(String name, long intervalMs) {
+            this.name = name;
+            this.intervalMs = intervalMs;
+        }
+
+        /**
+         * 判断本次是否输出；被限流时只累加计数。
+         */
+        boolean acquire(int level) {
+            if (!isLoggable(level)) {
+                return false;
+            }
+            long now = SystemClock.uptimeMillis();
+            if (now < nextAt) {
+                suppressed++;
+                return false;
+            }
+            nextAt = now + intervalMs;
+            return true;
+        }
+
+        private String prefix() {
+            int count = suppressed;
+            suppressed = 0;
+            return count > 0
+                    ? TAG + ": " + name + " (+" + count + " suppressed) "
+                    : TAG + ": " + name + " ";
+        }
+    }
+
+    public static void d(Site site, String msg, double value) {
+        if (site.acquire(MockConfig.LOG_DEBUG)) {
+            XposedBridge.log(site.prefix() + msg + value);
+        }
+    }
+
+    public static void d(Site site, String msg, Object value) {
+        if (site.acquire(MockConfig.LOG_DEBUG)) {
+            XposedBridge.log(site.prefix() + msg + value);
+        }
+    }
+
+    public static void d(Site site, String msg) {
+        if (site.acquire(MockConfig.LOG_DEBUG)) {
+            XposedBridge.log(site.prefix() + msg);
+        }
+    }
+
+    public static void i(Site site, String msg, int value) {
+        if (site.acquire(MockConfig.LOG_INFO)) {
+            XposedBridge.log(site.prefix() + msg + value);
+        }
+    }
+
+    public static void i(Site site, String msg, int first, int second) {
+        if (site.acquire(MockConfig.LOG_INFO)) {
+            XposedBridge.log(site.prefix() + msg + first + ", " + second);
+        }
+    }
+
+    public static void i(Site site, String msg) {
+        if (site.acquire(MockConfig.LOG_INFO)) {
+            XposedBridge.log(site.prefix() + msg);
+        }
+    }
+
+    public static void e(Site site, String msg, Throwable t) {
+        if (site.acquire(MockConfig.LOG_ERROR)) {
+            XposedBridge.log(site.prefix() + msg + t.getMessage());
+        }
+    }
+
+    /**
+     * 不限流的错误日志，用于只执行一次的安装/加载路径。
+     */
+    public static void e(String msg) {
+        if (isLoggable(MockConfig.LOG_ERROR)) {
+            XposedBridge.log(TAG + ": " + msg);
+        }
+    }
+}
@@ -0,0 +1,124 @@
+package com.mock.location.hook;
+
+import android.location.Location;
+import android.os.SystemClock;
+
+import com.mock.location.model.LocationRecord;
+import com.mock.location.model.MockConfig;
+import com.mock.location.route.RoutePlayer;
+
+/**
+ * 一个配置版本对应的不可变快照，由 {@link ConfigWatcher} 在配置变化时构建一次。
+ * <p>
+ * Location 各 getter 的返回值以 {@link Fix} 的形式预先装箱，getter Hook 中 setResult 不再产生分配；
+ * 同一次调用读到的所有值都来自同一个 Fix。配置了路线时，Fix 按 {@link #ROUTE_QUANTUM_MS}
+ * 的时间片由 {@link RoutePlayer} 插值生成，同一时间片内的 getter 共享同一个 Fix。
+ * 路线携带采集时的 WiFi / 基站快照时，注入的 WiFi / 基站随回放进度切换（见 {@link #environment()}）。
+ */
+public final class MockSnapshot {
+
+    /** 记录未采集精度（旧版记录为 0）时上报的精度（米） */
+    private static final float DEFAULT_ACCURACY = 5f;
+
+    /** 路线回放的时间片（毫秒），时间片内的 getter 返回同一位置 */
+    private static final long ROUTE_QUANTUM_MS = 100;
+
+    /** 某一时刻的完整定位值，字段均已装箱 */
+    public static final class Fix {
+        public final Double lat;
+        public final Double lng;
+        public final Double altitude;
+        public final Float accuracy;
+        public final Float bearing;
+        public final Float speed;
+        /** 生成时的 elapsedRealtime（毫秒），仅路线回放使用 */
+        final long at;
+
+        Fix(double lat, double lng, double altitude, float accuracy, float bearing, float speed, long at) {
+            this.lat = lat;
+            this.lng = lng;
+            this.altitude = altitude;
+            this.accuracy = accuracy;
+            this.bearing = bearing;
+            this.speed = speed;
+            this.at = at;
+        }
+    }
+
+    public final MockConfig config;
+
+    /** 本进程所属应用在该配置下的 Hook 分组，见 {@link MockConfig#hookPlanFor} */
+    private final int plan;
+    private final Fix staticFix;
+    private final RoutePlayer route;
+    private volatile Fix routeFix;
+
+    MockSnapshot(MockConfig config, RoutePlayer route) {
+        this(config, route, MockConfig.HOOK_ALL);
+    }
+
+    MockSnapshot(MockConfig config, RoutePlayer route, int plan) {
+        this.config = config;
+        this.route = route;
+        this.plan = plan;
+        this.staticFix = new Fix(config.lat, config.lng, config.altitude, accuracy(config),
+                config.bearing, config.speed, 0);
+    }
+
+    private static float accuracy(MockConfig config) {
+        return config.accuracy > 0 ? config.accuracy : DEFAULT_ACCURACY;
+    }
+
+    /**
+     * 该配置是否为本应用启用了指定的 Hook 分组（{@link MockConfig#HOOK_LOCATION} 等）。
+     */
+    public boolean hooks(int group) {
+        return (plan & group) != 0;
+    }
+
+    /**
+     * 当前位置。固定坐标时直接返回预构建的 Fix；路线回放时每个时间片最多插值一次。
+     */
+    public Fix fix() {
+        if (route == null) {
+            return staticFix;
+        }
+        long now = SystemClock.elapsedRealtime();
+        Fix cached = routeFix;
+        if (cached != null && now - cached.at < ROUTE_QUANTUM_MS && now >= cached.at) {
+            return cached;
+        }
+        RoutePlayer.Sample s = route.sample(now - config.routeStartElapsed);
+        Fix fix = new Fix(s.lat, s.lng, s.altitude, staticFix.accuracy, s.bearing, s.speed, now);
+        routeFix = fix;
+        return fix;
+    }
+
+    /**
+     * WiFi / 基站注入使用的记录：回放携带快照的路线时为当前时刻生效的快照，否则为配置本身。
+     * 同一条快照总是返回同一个实例，注入器以它为缓存键。
+     */
+    public LocationRecord environment() {
+        if (route == null || !route.hasEnvironments()) {
+            return config;
+        }
+        return route.environment(SystemClock.elapsedRealtime() - config.routeStartElapsed);
+    }
+
+    /**
+     * 按当前位置新建一个 Location（调用方可以修改返回对象，因此不能共享实例），时间取当前时间。
+     */
+    public Location newLocation(String provider) {
+        Fix fix = fix();
+        Location location = new Location(provider != null ? provider : "gps");
+        location.setLatitude(fix.lat);
+        location.setLongitude(fix.lng);
+        location.setAltitude(fix.altitude);
+        location.setAccuracy(fix.accuracy);
+        location.setBearing(fix.bearing);
+        location.setSpeed(fix.speed);
+        location.setTime(System.currentTimeMillis());
+        location.setElapsedRealtimeNanos(SystemClock.elapsedRealtimeNanos());
+        return location;
+    }
+}
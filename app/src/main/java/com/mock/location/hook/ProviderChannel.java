@@ -0,0 +1,109 @@
+package com.mock.location.hook;
+
+import android.content.ContentResolver;
+import android.content.Context;
+import android.database.ContentObserver;
+import android.os.Bundle;
+import android.os.Handler;
+
+import com.mock.location.ConfigProvider;
+import com.mock.location.model.MockConfig;
+import com.mock.location.util.JsonUtils;
+
+/**
+ * Hook 侧的 Provider 通道：订阅 {@link ConfigProvider}，配置变化时由 App 推送通知，
+ * 收到通知后通过一次 Binder 调用取回新配置。
+ * <p>
+ * Hook 安装时应用尚未创建 Application，因此由 {@link ConfigWatcher} 的后台轮询反复尝试连接；
+ * Provider 不可见（包可见性限制、模块未运行过等）时尝试数次后放弃，只使用文件通道。
+ * 只在 ConfigWatcher 的后台线程调用。
+ */
+final class ProviderChannel {
+
+    /** 已拿到 Context 后的最大连接尝试次数 */
+    private static final int MAX_ATTEMPTS = 3;
+
+    private static final HookLog.Site SITE = HookLog.site("provider");
+
+    /** {@link #fetch()} 返回：App 已明确停止模拟 */
+    static final MockConfig STOPPED = new MockConfig();
+
+    private static ContentResolver sResolver;
+    private static int sAttempts;
+    private static boolean sGaveUp;
+
+    private ProviderChannel() {
+    }
+
+    static boolean isConnected() {
+        return sResolver != null;
+    }
+
+    /**
+     * 尝试订阅；成功后 onChange 会在 handler 线程上被调用。
+     */
+    static boolean tryConnect(Handler handler, Runnable onChange) {
+        if (sResolver != null) {
+            return true;
+        }
+        if (sGaveUp) {
+            return false;
+        }
+        Context context = currentApplication();
+        if (context == null) {
+            return false;
+        }
+        ContentResolver resolver = context.getContentResolver();
+        try {
+            // 先确认 Provider 可以解析（不可见时 call 会抛出 IllegalArgumentException），成功后才注册监听，
+            // 失败的尝试不会留下 ContentObserver
+            resolver.call(ConfigProvider.URI, ConfigProvider.METHOD_GET, null, null);
+            resolver.registerContentObserver(ConfigProvider.URI, false, new ContentObserver(handler) {
+                @Override
+                public void onChange(boolean selfChange) {
+                    onChange.run();
+                }
+            });
+            sResolver = resolver;
+            HookLog.i(SITE, "Subscribed to config provider");
+            return true;
+        } catch (Exception e) {
+            if (++sAttempts >= MAX_ATTEMPTS) {
+                sGaveUp = true;
+                HookLog.i(SITE, "Config provider unavailable, using file channel");
+            }
+            return false;
+        }
+    }
+
+    /**
+     * 取回当前配置：App 从未通过 Provider 发布或调用失败时返回 null，已停止时返回 {@link #STOPPED}。
+     */
+    static MockConfig fetch() {
+        if (sResolver == null) {
+            return null;
+        }
+        try {
+            Bundle result = sResolver.call(ConfigProvider.URI, ConfigProvider.METHOD_GET, null, null);
+            if (result == null) {
+                return null;
+            }
+            if (result.getBoolean(ConfigProvider.KEY_STOPPED)) {
+                return STOPPED;
+            }
+            return JsonUtils.fromJson(result.getString(ConfigProvider.KEY_JSON), MockConfig.class);
+        } catch (Exception e) {
+            HookLog.e("Config provider call failed: " + e.getMessage());
+            return null;
+        }
+    }
+
+    private static Context currentApplication() {
+        try {
+            return (Context) Class.forName("android.app.ActivityThread")
+                    .getMethod("currentApplication").invoke(null);
+        } catch (Throwable t) {
+            return null;
+        }
+    }
+}
@@ -0,0 +1,211 @@
+package com.mock.location.hook;
+
+import android.net.wifi.ScanResult;
+import android.os.SystemClock;
+
+import com.mock.location.model.LocationRecord;
+import com.mock.location.model.WifiFingerprint;
+
+import java.lang.reflect.Constructor;
+import java.lang.reflect.Field;
+import java.lang.reflect.Method;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+import de.robv.android.xposed.XposedHelpers;
+
+/**
+ * WifiManager.getScanResults() 的注入列表。
+ * <p>
+ * ScanResult 的类与字段在创建时解析一次。有指纹的记录按保存的 SSID / 频率 / 加密能力原样回放，
+ * RSSI 在保存值附近抖动：每个扫描周期（{@link #SCAN_PERIOD_MS}）重新构建一次列表，
+ * 同一周期内的多次调用看到相同的结果，且扫描时间戳是新的，与真实的周期扫描一致。
+ * 没有指纹的旧记录按 BSSID 推导出稳定的频率与信号强度。
+ * <p>
+ * getScanResults 的调用方可以修改返回的列表与其中的 ScanResult（字段都是公开可写的），
+ * 因此缓存的实例只作为原型，每次调用经拷贝构造器返回一份新的列表与新的 ScanResult，
+ * 一个调用方的修改不会影响其他调用方或同一周期内的后续调用。
+ */
+public final class ScanResultInjector {
+
+    /** 模拟的扫描周期：前台应用的系统扫描间隔通常在 10 秒量级 */
+    private static final long SCAN_PERIOD_MS = 10_000;
+    /** RSSI 抖动幅度（dB），三角分布 */
+    private static final int JITTER_DB = 4;
+    private static final int MIN_LEVEL = -100;
+    private static final int MAX_LEVEL = -20;
+
+    private final Constructor<?> constructor;
+    /** ScanResult(ScanResult)，API 30 起公开，更早的版本为隐藏构造器 */
+    private final Constructor<?> copyConstructor;
+    private final Field bssidField;
+    private final Field ssidField;
+    private final Field levelField;
+    private final Field frequencyField;
+    private final Field capabilitiesField;
+    private final Field timestampField;
+    private final Field wifiSsidField;
+    private final Method wifiSsidFactory;
+
+    /** 来源记录（见 {@link MockSnapshot#environment()}）、扫描周期与对应的原型列表；list 为 null 表示不注入 */
+    private static final class Built {
+        final LocationRecord source;
+        final long epoch;
+        final List<ScanResult> list;
+
+        Built(LocationRecord source, long epoch, List<ScanResult> list) {
+            this.source = source;
+            this.epoch = epoch;
+            this.list = list;
+        }
+    }
+
+    private volatile Built built;
+
+    private ScanResultInjector(Constructor<?> constructor, Constructor<?> copyConstructor,
+                               Field bssidField, Field ssidField,
+                               Field levelField, Field frequencyField, Field capabilitiesField,
+                               Field timestampField, Field wifiSsidField, Method wifiSsidFactory) {
+        this.constructor = constructor;
+        this.copyConstructor = copyConstructor;
+        this.bssidField = bssidField;
+        this.ssidField = ssidField;
+        this.levelField = levelField;
+        this.frequencyField = frequencyField;
+        this.capabilitiesField = capabilitiesField;
+        this.timestampField = timestampField;
+        this.wifiSsidField = wifiSsidField;
+        this.wifiSsidFactory = wifiSsidFactory;
+    }
+
+    /**
+     * 解析 ScanResult 的构造器与字段；构造器或 BSSID/SSID 不可用时返回 null，调用方保留原始结果。
+     */
+    static ScanResultInjector create(ClassLoader classLoader) {
+        Class<?> cls = XposedHelpers.findClassIfExists("android.net.wifi.ScanResult", classLoader);
+        if (cls == null) {
+            return null;
+        }
+        Constructor<?> constructor = XposedHelpers.findConstructorExactIfExists(cls);
+        Constructor<?> copyConstructor = XposedHelpers.findConstructorExactIfExists(cls, cls);
+        Field bssid = XposedHelpers.findFieldIfExists(cls, "BSSID");
+        Field ssid = XposedHelpers.findFieldIfExists(cls, "SSID");
+        if (constructor == null || copyConstructor == null || bssid == null || ssid == null) {
+            return null;
+        }
+        // 以下字段在某些版本可能不存在，缺失时跳过
+        Field level = XposedHelpers.findFieldIfExists(cls, "level");
+        Field frequency = XposedHelpers.findFieldIfExists(cls, "frequency");
+        Field capabilities = XposedHelpers.findFieldIfExists(cls, "capabilities");
+        Field timestamp = XposedHelpers.findFieldIfExists(cls, "timestamp");
+        // getWifiSsid()（API 33）读取隐藏字段 wifiSsid，只设置 SSID 时它返回 null
+        Field wifiSsid = XposedHelpers.findFieldIfExists(cls, "wifiSsid");
+        Method factory = null;
+        if (wifiSsid != null) {
+            Class<?> wifiSsidClass = wifiSsid.getType();
+            factory = XposedHelpers.findMethodExactIfExists(wifiSsidClass, "fromBytes", byte[].class);
+            if (factory == null) {
+                factory = XposedHelpers.findMethodExactIfExists(wifiSsidClass, "createFromByteArray", byte[].class);
+            }
+        }
+        return new ScanResultInjector(constructor, copyConstructor, bssid, ssid, level, frequency, capabilities,
+                timestamp, factory != null ? wifiSsid : null, factory);
+    }
+
+    /**
+     * 返回当前记录与扫描周期的注入列表，列表与其中的 ScanResult 都是新拷贝；记录没有 BSSID 时返回 null。
+     */
+    public List<ScanResult> scanResults(MockSnapshot snapshot) throws ReflectiveOperationException {
+        long epoch = SystemClock.elapsedRealtime() / SCAN_PERIOD_MS;
+        LocationRecord source = snapshot.environment();
+        Built current = built;
+        if (current == null || current.source != source || current.epoch != epoch) {
+            current = new Built(source, epoch, build(source.wifiBssids, source.wifiFingerprint, epoch));
+            built = current;
+        }
+        if (current.list == null) {
+            return null;
+        }
+        List<ScanResult> copies = new ArrayList<>(current.list.size());
+        for (ScanResult prototype : current.list) {
+            copies.add((ScanResult) copyConstructor.newInstance(prototype));
+        }
+        return copies;
+    }
+
+    private List<ScanResult> build(List<String> bssids, WifiFingerprint fp, long epoch)
+            throws ReflectiveOperationException {
+        if (bssids == null || bssids.isEmpty()) {
+            // 没有保存的 WiFi 列表，保留原始结果
+            return null;
+        }
+        boolean hasFingerprint = fp != null && fp.matches(bssids.size());
+        // ScanResult.timestamp 为开机以来的微秒数；扫描完成时间取本周期开始时刻
+        long timestampMicros = (epoch * SCAN_PERIOD_MS) * 1000;
+
+        List<ScanResult> results = new ArrayList<>(bssids.size());
+        for (int i = 0; i < bssids.size(); i++) {
+            String bssid = bssids.get(i);
+            if (bssid == null || bssid.isEmpty()) {
+                continue;
+            }
+            long hash = mix(bssid.hashCode());
+            String ssid;
+            int level;
+            int frequency;
+            String capabilities;
+            if (hasFingerprint) {
+                ssid = fp.ssids[i] != null ? fp.ssids[i] : "";
+                level = fp.levels[i];
+                frequency = fp.frequencies[i];
+                capabilities = fp.capabilities[i] != null ? fp.capabilities[i] : "[ESS]";
+            } else {
+                // 旧记录：隐藏 SSID，2.4GHz 信道 1~11，信号按列表顺序递减
+                ssid = "";
+                level = -50 - 3 * i;
+                frequency = 2412 + 5 * (int) ((hash >>> 8) % 11);
+                capabilities = "[ESS]";
+            }
+
+            ScanResult sr = (ScanResult) constructor.newInstance();
+            bssidField.set(sr, bssid);
+            ssidField.set(sr, ssid);
+            if (levelField != null) {
+                levelField.setInt(sr, jitter(level, hash, epoch));
+            }
+            if (frequencyField != null) {
+                frequencyField.setInt(sr, frequency);
+            }
+            if (capabilitiesField != null) {
+                capabilitiesField.set(sr, capabilities);
+            }
+            if (timestampField != null) {
+                timestampField.setLong(sr, timestampMicros);
+            }
+            if (wifiSsidField != null) {
+                wifiSsidField.set(sr, wifiSsidFactory.invoke(null, (Object) ssid.getBytes(StandardCharsets.UTF_8)));
+            }
+            results.add(sr);
+        }
+        return Collections.unmodifiableList(results);
+    }
+
+    /**
+     * 按 (AP, 扫描周期) 确定的抖动：同一周期内稳定，周期之间变化，幅度 ±{@link #JITTER_DB} 呈三角分布。
+     */
+    private static int jitter(int level, long apHash, long epoch) {
+        long h = mix(apHash ^ (epoch * 0x9E3779B97F4A7C15L));
+        int range = JITTER_DB + 1;
+        int delta = (int) ((h & 0xFFFF) % range) + (int) (((h >>> 16) & 0xFFFF) % range) - JITTER_DB;
+        return Math.max(MIN_LEVEL, Math.min(MAX_LEVEL, level + delta));
+    }
+
+    /** SplitMix64 的终混函数 */
+    private static long mix(long z) {
+        z = (z ^ (z >>> 30)) * 0xBF58476D1CE4E5B9L;
+        z = (z ^ (z >>> 27)) * 0x94D049BB133111EBL;
+        return z ^ (z >>> 31);
+    }
+}
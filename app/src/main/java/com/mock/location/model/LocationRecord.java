@@ -8,12 +8,31 @@ import java.util.List;
 public class LocationRecord implements Serializable {
     private static final long serialVersionUID = 1L;
 
+    /** 记录在本地数据库中的主键，0 表示尚未保存 */
+    public long id;
     public String name;
     public double lat;
     public double lng;
     public long timestamp;
+    public float accuracy;
+    public double altitude;
+    public float bearing;
+    public float speed;
     public List<String> wifiBssids = new ArrayList<>();
+    /** 与 wifiBssids 下标对应的 AP 详情，旧记录为 null */
+    public WifiFingerprint wifiFingerprint;
+    /** 主小区 */
     public SerializableCellInfo cellInfo;
+    /** 采集时可见的邻区，旧记录为 null */
+    public List<SerializableCellInfo> neighborCells;
+
+    public long getId() {
+        return id;
+    }
+
+    public void setId(long id) {
+        this.id = id;
+    }
 
     public String getName() {
         return name;
@@ -47,6 +66,38 @@ public class LocationRecord implements Serializable {
         this.timestamp = timestamp;
     }
 
+    public float getAccuracy() {
+        return accuracy;
+    }
+
+    public void setAccuracy(float accuracy) {
+        this.accuracy = accuracy;
+    }
+
+    public double getAltitude() {
+        return altitude;
+    }
+
+    public void setAltitude(double altitude) {
+        this.altitude = altitude;
+    }
+
+    public float getBearing() {
+        return bearing;
+    }
+
+    public void setBearing(float bearing) {
+        this.bearing = bearing;
+    }
+
+    public float getSpeed() {
+        return speed;
+    }
+
+    public void setSpeed(float speed) {
+        this.speed = speed;
+    }
+
     public List<String> getWifiBssids() {
         return wifiBssids;
     }
@@ -55,6 +106,14 @@ public class LocationRecord implements Serializable {
         this.wifiBssids = wifiBssids;
     }
 
+    public WifiFingerprint getWifiFingerprint() {
+        return wifiFingerprint;
+    }
+
+    public void setWifiFingerprint(WifiFingerprint wifiFingerprint) {
+        this.wifiFingerprint = wifiFingerprint;
+    }
+
     public SerializableCellInfo getCellInfo() {
         return cellInfo;
     }
@@ -63,6 +122,14 @@ public class LocationRecord implements Serializable {
         this.cellInfo = cellInfo;
     }
 
+    public List<SerializableCellInfo> getNeighborCells() {
+        return neighborCells;
+    }
+
+    public void setNeighborCells(List<SerializableCellInfo> neighborCells) {
+        this.neighborCells = neighborCells;
+    }
+
     public LocationRecord() {}
 
     public LocationRecord(double lat, double lng) {
@@ -0,0 +1,74 @@
+// app/src/main/java/com/mock/location/model/MockConfig.java
+package com.mock.location.model;
+
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * 写入 /data/local/tmp 的模拟配置：当前记录 + 仅对 Hook 侧生效的设置。
+ * 继承 LocationRecord，JSON 仍是扁平结构，旧版配置文件可直接解析。
+ */
+public class MockConfig extends LocationRecord {
+    private static final long serialVersionUID = 1L;
+
+    public static final int LOG_OFF = 0;
+    public static final int LOG_ERROR = 1;
+    public static final int LOG_INFO = 2;
+    public static final int LOG_DEBUG = 3;
+
+    /** Hook 分组，见 {@link #hookPlans} */
+    public static final int HOOK_LOCATION = 1;
+    public static final int HOOK_WIFI = 1 << 1;
+    public static final int HOOK_CELL = 1 << 2;
+    public static final int HOOK_ALL = HOOK_LOCATION | HOOK_WIFI | HOOK_CELL;
+
+    /**
+     * 配置代数：App 每次发布时分配，单调递增且为偶数，二进制配置的序列号即此值。
+     * Hook 侧代数未变时跳过解析。声明为第一个字段，Gson 输出的 JSON 中它位于最前，
+     * 读取方只需读到第一个字段即可判断是否需要完整解析。
+     */
+    public long generation;
+
+    /** Hook 侧日志级别，见 LOG_* */
+    public int logLevel = LOG_ERROR;
+
+    /**
+     * 路线回放起点（SystemClock.elapsedRealtime，毫秒）；0 表示不回放路线、固定在本记录的坐标。
+     * 路线内容位于 RouteFile.TARGET_PATH。
+     */
+    public long routeStartElapsed;
+    /** 路线播放到终点后是否从头循环 */
+    public boolean routeLoop;
+
+    /** 包名 → 需要安装的 Hook 分组（HOOK_* 按位或）；未列出的包安装全部分组 */
+    public Map<String, Integer> hookPlans = new HashMap<>();
+
+    public MockConfig() {}
+
+    public static MockConfig from(LocationRecord record) {
+        MockConfig config = new MockConfig();
+        config.id = record.id;
+        config.name = record.name;
+        config.lat = record.lat;
+        config.lng = record.lng;
+        config.timestamp = record.timestamp;
+        config.accuracy = record.accuracy;
+        config.altitude = record.altitude;
+        config.bearing = record.bearing;
+        config.speed = record.speed;
+        config.wifiBssids = record.wifiBssids;
+        config.wifiFingerprint = record.wifiFingerprint;
+        config.cellInfo = record.cellInfo;
+        config.neighborCells = record.neighborCells;
+        return config;
+    }
+
+    public int hookPlanFor(String packageName) {
+        Integer plan = hookPlans != null ? hookPlans.get(packageName) : null;
+        return plan != null ? plan : HOOK_ALL;
+    }
+
+    public static MockConfig DefaultValue() {
+        return from(LocationRecord.DefaultValue());
+    }
+}
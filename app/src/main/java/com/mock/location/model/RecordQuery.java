@@ -0,0 +1,50 @@
+package com.mock.location.model;
+
+/**
+ * 记录查询条件，各条件之间为"且"；为 null 的条件不参与过滤。
+ */
+public class RecordQuery {
+
+    /** 名称关键字 */
+    public String name;
+    /** true 时 name 按前缀匹配（可走名称索引，区分大小写），否则按子串匹配（不区分大小写） */
+    public boolean namePrefix;
+
+    /** 保存时间范围（毫秒，含两端） */
+    public Long fromTime;
+    public Long toTime;
+
+    /** 坐标范围（含边界），四个值需同时设置 */
+    public Double minLat;
+    public Double maxLat;
+    public Double minLng;
+    public Double maxLng;
+
+    public static RecordQuery all() {
+        return new RecordQuery();
+    }
+
+    public RecordQuery withName(String name, boolean prefix) {
+        this.name = name != null && !name.isEmpty() ? name : null;
+        this.namePrefix = prefix;
+        return this;
+    }
+
+    public RecordQuery withTimeRange(Long fromTime, Long toTime) {
+        this.fromTime = fromTime;
+        this.toTime = toTime;
+        return this;
+    }
+
+    public RecordQuery withBounds(double minLat, double minLng, double maxLat, double maxLng) {
+        this.minLat = minLat;
+        this.minLng = minLng;
+        this.maxLat = maxLat;
+        this.maxLng = maxLng;
+        return this;
+    }
+
+    public boolean hasBounds() {
+        return minLat != null && maxLat != null && minLng != null && maxLng != null;
+    }
+}
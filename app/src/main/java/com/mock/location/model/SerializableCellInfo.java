@@ -9,11 +9,28 @@ public class SerializableCellInfo implements Serializable {
     public String networkType;
     public int mcc = -1;
     public int mnc = -1;
+    /**
+     * 系统上报的原始 MCC / MNC 字符串，保留前导零（MNC "001" 与 "01" 是不同的运营商）；
+     * 旧记录或 API 28 以下采集时为 null，此时以 mcc / mnc 为准
+     */
+    public String mccStr;
+    public String mncStr;
     public int lac = -1;
+    /** NR 小区为 nci 的低 32 位，仅供旧格式兼容 */
     public int cid = -1;
+    /** NR 完整的 36 位 NCI，其他制式为 -1 */
+    public long nci = -1;
+    /** PCI（LTE/NR）、PSC（WCDMA）或 BSIC（GSM） */
+    public int pci = -1;
+    /** ARFCN / UARFCN / EARFCN / NR-ARFCN */
+    public int arfcn = -1;
+    /** 信号强度（dBm），0 表示未知 */
+    public int dbm;
 
     @Override
     public String toString() {
-        return networkType + " MCC:" + mcc + " MNC:" + mnc + " LAC/TAC:" + lac + " CID:" + cid;
+        return networkType + " MCC:" + (mccStr != null ? mccStr : mcc)
+                + " MNC:" + (mncStr != null ? mncStr : mnc) + " LAC/TAC:" + lac
+                + " CID:" + (nci >= 0 ? nci : cid) + " PCI:" + pci;
     }
-}
\ No newline at end of file
+}
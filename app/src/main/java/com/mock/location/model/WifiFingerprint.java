@@ -0,0 +1,44 @@
+package com.mock.location.model;
+
+import java.io.Serializable;
+
+/**
+ * WiFi 指纹：每个 AP 的 SSID、信号强度、频率与加密能力，按结构数组存放，
+ * 下标与 {@link LocationRecord#wifiBssids} 一一对应（按信号从强到弱排列）。
+ * 旧记录没有指纹，数组长度与 BSSID 数不一致时视为不可用。
+ */
+public class WifiFingerprint implements Serializable {
+    private static final long serialVersionUID = 1L;
+
+    public String[] ssids;
+    /** RSSI（dBm） */
+    public int[] levels;
+    /** 中心频率（MHz） */
+    public int[] frequencies;
+    /** ScanResult.capabilities，如 "[WPA2-PSK-CCMP][ESS]" */
+    public String[] capabilities;
+
+    public WifiFingerprint() {
+        this(0);
+    }
+
+    public WifiFingerprint(int size) {
+        ssids = new String[size];
+        levels = new int[size];
+        frequencies = new int[size];
+        capabilities = new String[size];
+    }
+
+    public int size() {
+        return levels != null ? levels.length : 0;
+    }
+
+    /**
+     * 四个数组齐全且长度都等于 count 时可用。
+     */
+    public boolean matches(int count) {
+        return ssids != null && levels != null && frequencies != null && capabilities != null
+                && ssids.length == count && levels.length == count
+                && frequencies.length == count && capabilities.length == count;
+    }
+}
@@ -0,0 +1,279 @@
+package com.mock.location.route;
+
+import com.mock.location.model.LocationRecord;
+import com.mock.location.model.SerializableCellInfo;
+import com.mock.location.util.BinaryConfig;
+
+import java.io.Closeable;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+
+/**
+ * 连续采集的日志文件：只追加的二进制记录流（小端序），每条记录以 1 字节类型开头。
+ * <pre>
+ * FIX         long elapsedMs, double lat, double lng, float altitude, float speed, float accuracy
+ * ENVIRONMENT long elapsedMs, int length, length 字节 WiFi / 基站快照（{@link BinaryConfig} 编码的记录）
+ * SNAPSHOT    long elapsedMs, byte n, n × 6 字节 BSSID,
+ *             byte hasCell [, byte len, len 字节网络类型, int mcc, int mnc, int lac, int cid]
+ * </pre>
+ * elapsedMs 取自 {@code Location#getElapsedRealtimeNanos()} / {@code SystemClock#elapsedRealtime()}，
+ * 不受系统改时影响。ENVIRONMENT 含完整的 WiFi 指纹、邻区、NR nci 与 MCC/MNC 原始字符串；
+ * SNAPSHOT 是旧版本的快照，只有 BSSID 与主小区，读取时转换为同样的记录。
+ * 采集结束后用 {@link #toRoute} 转换为 {@link RouteFile}，快照随路线一起保存。
+ */
+public final class CaptureLog {
+
+    static final byte TYPE_FIX = 1;
+    static final byte TYPE_SNAPSHOT = 2;
+    static final byte TYPE_ENVIRONMENT = 3;
+
+    private static final int FIX_SIZE = 1 + 8 + 8 + 8 + 4 + 4 + 4;
+    private static final int ENVIRONMENT_HEADER_SIZE = 1 + 8 + 4;
+    /** 单条快照的上限：64 个带指纹的 AP 与 33 个小区远小于此值，超出视为日志损坏 */
+    private static final int MAX_ENVIRONMENT_SIZE = 256 * 1024;
+
+    /** 精度差于该值（米）的定位点转换为路线时丢弃 */
+    public static final float MAX_ROUTE_ACCURACY_M = 50f;
+
+    private CaptureLog() {
+    }
+
+    /**
+     * 追加写入。记录先编码进固定大小的块缓冲，块写满或调用 {@link #flush()} 时一次写出，
+     * 内存占用与采集时长无关。非线程安全，须在同一线程调用。
+     */
+    public static final class Writer implements Closeable {
+        private static final int CHUNK_SIZE = 16 * 1024;
+
+        private final FileOutputStream out;
+        private final FileChannel channel;
+        private final ByteBuffer chunk = ByteBuffer.allocate(CHUNK_SIZE).order(ByteOrder.LITTLE_ENDIAN);
+        private int fixCount;
+
+        /**
+         * 新建（截断）日志文件。
+         */
+        public Writer(File target) throws IOException {
+            out = new FileOutputStream(target, false);
+            channel = out.getChannel();
+        }
+
+        public void addFix(long elapsedMs, double lat, double lng, float altitude, float speed, float accuracy)
+                throws IOException {
+            ensureSpace(FIX_SIZE);
+            chunk.put(TYPE_FIX);
+            chunk.putLong(elapsedMs);
+            chunk.putDouble(lat);
+            chunk.putDouble(lng);
+            chunk.putFloat(altitude);
+            chunk.putFloat(speed);
+            chunk.putFloat(accuracy);
+            fixCount++;
+        }
+
+        /**
+         * 追加从 elapsedMs 起生效的 WiFi / 基站快照，encoded 为 {@link BinaryConfig#encode} 的结果。
+         */
+        public void addEnvironment(long elapsedMs, byte[] encoded) throws IOException {
+            if (encoded.length > MAX_ENVIRONMENT_SIZE) {
+                throw new IOException("Environment snapshot too large: " + encoded.length);
+            }
+            int size = ENVIRONMENT_HEADER_SIZE + encoded.length;
+            ensureSpace(size);
+            if (size > chunk.capacity()) {
+                // 比整个块还大：块已清空，头与内容直接写出
+                ByteBuffer direct = ByteBuffer.allocate(size).order(ByteOrder.LITTLE_ENDIAN);
+                putEnvironment(direct, elapsedMs, encoded);
+                direct.flip();
+                while (direct.hasRemaining()) {
+                    channel.write(direct);
+                }
+                return;
+            }
+            putEnvironment(chunk, elapsedMs, encoded);
+        }
+
+        private static void putEnvironment(ByteBuffer buf, long elapsedMs, byte[] encoded) {
+            buf.put(TYPE_ENVIRONMENT);
+            buf.putLong(elapsedMs);
+            buf.putInt(encoded.length);
+            buf.put(encoded);
+        }
+
+        /** 已写入（含未落盘）的定位点数 */
+        public int fixCount() {
+            return fixCount;
+        }
+
+        /** 块缓冲中尚未写出的字节数 */
+        public int pendingBytes() {
+            return chunk.position();
+        }
+
+        private void ensureSpace(int bytes) throws IOException {
+            if (chunk.remaining() < bytes) {
+                flush();
+            }
+        }
+
+        public void flush() throws IOException {
+            chunk.flip();
+            while (chunk.hasRemaining()) {
+                channel.write(chunk);
+            }
+            chunk.clear();
+        }
+
+        @Override
+        public void close() throws IOException {
+            try {
+                flush();
+                channel.force(false);
+            } finally {
+                out.close();
+            }
+        }
+    }
+
+    /**
+     * 把采集日志转换为路线：时间改为相对首个有效点，精度过差的点丢弃，经 {@link TrackSimplifier} 简化。
+     * WiFi / 基站快照按同样的相对时间写入路线，首个有效点之前的快照只保留最后一条、从路线起点生效。
+     * 耗时与日志大小成正比，必须在后台线程调用。
+     *
+     * @return 写出的航点数
+     */
+    public static int toRoute(File log, File target, double toleranceMeters) throws IOException {
+        try (FileInputStream in = new FileInputStream(log);
+             FileChannel channel = in.getChannel();
+             RouteFile.Writer writer = new RouteFile.Writer(target)) {
+            TrackSimplifier simplifier = new TrackSimplifier(writer, toleranceMeters);
+            ByteBuffer buf = ByteBuffer.allocate(64 * 1024).order(ByteOrder.LITTLE_ENDIAN);
+            buf.flip();
+            long firstElapsed = Long.MIN_VALUE;
+            byte[] earlyEnvironment = null;
+            while (fill(channel, buf, 1)) {
+                byte type = buf.get();
+                if (type == TYPE_FIX) {
+                    if (!fill(channel, buf, FIX_SIZE - 1)) break;
+                    long elapsedMs = buf.getLong();
+                    double lat = buf.getDouble();
+                    double lng = buf.getDouble();
+                    float altitude = buf.getFloat();
+                    buf.getFloat(); // speed，路线按相邻航点推算
+                    float accuracy = buf.getFloat();
+                    if (accuracy > MAX_ROUTE_ACCURACY_M) continue;
+                    if (firstElapsed == Long.MIN_VALUE) {
+                        firstElapsed = elapsedMs;
+                        if (earlyEnvironment != null) {
+                            writer.addEnvironment(0, earlyEnvironment);
+                            earlyEnvironment = null;
+                        }
+                    }
+                    simplifier.add(elapsedMs - firstElapsed, lat, lng, altitude);
+                } else if (type == TYPE_ENVIRONMENT || type == TYPE_SNAPSHOT) {
+                    if (!fill(channel, buf, 8)) break;
+                    long elapsedMs = buf.getLong();
+                    byte[] encoded = type == TYPE_ENVIRONMENT
+                            ? readEnvironment(channel, buf)
+                            : readLegacySnapshot(channel, buf);
+                    if (encoded == null) break;
+                    if (firstElapsed == Long.MIN_VALUE) {
+                        earlyEnvironment = encoded;
+                    } else {
+                        writer.addEnvironment(elapsedMs - firstElapsed, encoded);
+                    }
+                } else {
+                    throw new IOException("Corrupted capture log: record type " + type);
+                }
+            }
+            // 末尾不完整的记录（采集进程被杀时的半条）直接忽略
+            simplifier.finish();
+            if (writer.count() == 0) {
+                throw new IOException("No track points found");
+            }
+            return writer.count();
+        }
+    }
+
+    /**
+     * 读取 ENVIRONMENT 记录的长度与内容；日志在记录中途结束时返回 null。
+     */
+    private static byte[] readEnvironment(FileChannel channel, ByteBuffer buf) throws IOException {
+        if (!fill(channel, buf, 4)) return null;
+        int length = buf.getInt();
+        if (length < BinaryConfig.HEADER_SIZE || length > MAX_ENVIRONMENT_SIZE) {
+            throw new IOException("Corrupted capture log: environment length " + length);
+        }
+        byte[] encoded = new byte[length];
+        int read = 0;
+        while (read < length) {
+            if (!fill(channel, buf, 1)) return null;
+            int n = Math.min(buf.remaining(), length - read);
+            buf.get(encoded, read, n);
+            read += n;
+        }
+        return encoded;
+    }
+
+    /**
+     * 旧版 SNAPSHOT（BSSID 与主小区）→ 与 ENVIRONMENT 相同的编码；日志在记录中途结束时返回 null。
+     */
+    private static byte[] readLegacySnapshot(FileChannel channel, ByteBuffer buf) throws IOException {
+        if (!fill(channel, buf, 1)) return null;
+        int n = buf.get() & 0xFF;
+        if (!fill(channel, buf, n * 6 + 1)) return null;
+        LocationRecord record = new LocationRecord();
+        List<String> bssids = new ArrayList<>(n);
+        for (int i = 0; i < n; i++) {
+            StringBuilder mac = new StringBuilder(17);
+            for (int b = 0; b < 6; b++) {
+                if (b > 0) mac.append(':');
+                mac.append(String.format(Locale.US, "%02x", buf.get() & 0xFF));
+            }
+            bssids.add(mac.toString());
+        }
+        record.wifiBssids = bssids;
+        if (buf.get() != 0) {
+            if (!fill(channel, buf, 1)) return null;
+            int len = buf.get() & 0xFF;
+            if (!fill(channel, buf, len + 16)) return null;
+            byte[] type = new byte[len];
+            buf.get(type);
+            SerializableCellInfo cell = new SerializableCellInfo();
+            cell.networkType = new String(type, StandardCharsets.US_ASCII);
+            cell.mcc = buf.getInt();
+            cell.mnc = buf.getInt();
+            cell.lac = buf.getInt();
+            cell.cid = buf.getInt();
+            record.cellInfo = cell;
+        }
+        return BinaryConfig.encode(record, 0);
+    }
+
+    /**
+     * 保证 buf 中至少有 n 个未读字节，文件已读完时返回 false。
+     */
+    private static boolean fill(FileChannel channel, ByteBuffer buf, int n) throws IOException {
+        if (buf.remaining() >= n) {
+            return true;
+        }
+        buf.compact();
+        while (buf.position() < n) {
+            if (channel.read(buf) < 0) {
+                buf.flip();
+                return false;
+            }
+        }
+        buf.flip();
+        return true;
+    }
+}
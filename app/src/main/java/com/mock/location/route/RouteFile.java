@@ -0,0 +1,283 @@
+package com.mock.location.route;
+
+import java.io.Closeable;
+import java.io.File;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * 路线文件：带时间戳的航点序列，同时也是预先计算好的线段表。
+ * <p>
+ * 布局（小端序）：16 字节文件头（MAGIC、VERSION、航点数、WiFi / 基站快照数），其后每个航点 40 字节：
+ * <pre>
+ *  0  long   相对路线起点的时间（毫秒），严格递增
+ *  8  double lat
+ * 16  double lng
+ * 24  float  altitude
+ * 28  float  speed    该航点的速度（米/秒），用于线段内插值
+ * 32  float  bearing  从该航点到下一航点的方位角
+ * 36  float  保留
+ * </pre>
+ * 航点之后是变长尾部，按时间顺序存放采集时的 WiFi / 基站快照，每条为
+ * long 相对路线起点的时间（毫秒）、int 长度、{@link com.mock.location.util.BinaryConfig} 编码的记录。
+ * 版本 1 的文件没有尾部，快照数恒为 0。
+ * <p>
+ * 方位角与缺省速度在写入时算好，回放时 {@link RoutePlayer} 直接在映射的文件上做定偏移读取，
+ * 10 万个航点也只占 4MB 文件、不占 Java 堆。
+ */
+public final class RouteFile {
+
+    /** Hook 侧读取的路线文件，由 App 通过 Root 写入 */
+    public static final String TARGET_PATH = "/data/local/tmp/mock_route.bin";
+
+    public static final int MAGIC = 0x4554524D; // "MRTE"
+    public static final int VERSION = 2;
+
+    static final int HEADER_SIZE = 16;
+    static final int POINT_SIZE = 40;
+
+    private static final int OFF_MAGIC = 0;
+    private static final int OFF_VERSION = 4;
+    private static final int OFF_COUNT = 8;
+    private static final int OFF_ENVIRONMENT_COUNT = 12;
+
+    /** 快照条目头：long 时间 + int 长度 */
+    static final int ENVIRONMENT_HEADER_SIZE = 12;
+
+    static final int P_TIME = 0;
+    static final int P_LAT = 8;
+    static final int P_LNG = 16;
+    static final int P_ALTITUDE = 24;
+    static final int P_SPEED = 28;
+    static final int P_BEARING = 32;
+
+    private static final double EARTH_RADIUS_M = 6371008.8;
+
+    private RouteFile() {
+    }
+
+    /**
+     * 只读映射路线文件；文件无效时返回 null。
+     */
+    public static ByteBuffer map(String path) {
+        try (RandomAccessFile file = new RandomAccessFile(path, "r");
+             FileChannel channel = file.getChannel()) {
+            long size = channel.size();
+            if (size < HEADER_SIZE) {
+                return null;
+            }
+            MappedByteBuffer buf = channel.map(FileChannel.MapMode.READ_ONLY, 0, size);
+            buf.order(ByteOrder.LITTLE_ENDIAN);
+            if (!isValid(buf)) {
+                return null;
+            }
+            return buf;
+        } catch (IOException e) {
+            return null;
+        }
+    }
+
+    static boolean isValid(ByteBuffer buf) {
+        if (buf.capacity() < HEADER_SIZE || buf.getInt(OFF_MAGIC) != MAGIC) {
+            return false;
+        }
+        int version = buf.getInt(OFF_VERSION);
+        if (version != 1 && version != VERSION) {
+            return false;
+        }
+        int count = buf.getInt(OFF_COUNT);
+        return count > 0 && HEADER_SIZE + (long) count * POINT_SIZE <= buf.capacity();
+    }
+
+    public static int pointCount(ByteBuffer buf) {
+        return buf.getInt(OFF_COUNT);
+    }
+
+    /**
+     * WiFi / 基站快照数，条目从 {@link #environmentOffset} 开始；版本 1 的文件为 0。
+     */
+    static int environmentCount(ByteBuffer buf) {
+        return buf.getInt(OFF_VERSION) >= 2 ? buf.getInt(OFF_ENVIRONMENT_COUNT) : 0;
+    }
+
+    static int environmentOffset(ByteBuffer buf) {
+        return HEADER_SIZE + pointCount(buf) * POINT_SIZE;
+    }
+
+    /**
+     * 两点间大圆距离（米）。
+     */
+    public static double distanceMeters(double lat1, double lng1, double lat2, double lng2) {
+        double p1 = Math.toRadians(lat1);
+        double p2 = Math.toRadians(lat2);
+        double dp = p2 - p1;
+        double dl = Math.toRadians(lng2 - lng1);
+        double a = Math.sin(dp / 2) * Math.sin(dp / 2)
+                + Math.cos(p1) * Math.cos(p2) * Math.sin(dl / 2) * Math.sin(dl / 2);
+        return 2 * EARTH_RADIUS_M * Math.atan2(Math.sqrt(a), Math.sqrt(1 - a));
+    }
+
+    /**
+     * 从 (lat1, lng1) 指向 (lat2, lng2) 的初始方位角，[0, 360)。
+     */
+    public static float bearingDegrees(double lat1, double lng1, double lat2, double lng2) {
+        double p1 = Math.toRadians(lat1);
+        double p2 = Math.toRadians(lat2);
+        double dl = Math.toRadians(lng2 - lng1);
+        double y = Math.sin(dl) * Math.cos(p2);
+        double x = Math.cos(p1) * Math.sin(p2) - Math.sin(p1) * Math.cos(p2) * Math.cos(dl);
+        double deg = Math.toDegrees(Math.atan2(y, x));
+        return (float) ((deg + 360) % 360);
+    }
+
+    /**
+     * 流式写入路线文件：航点按块缓冲后批量写出，内存占用与航点数无关。
+     * 每个航点的方位角与缺省速度需要下一个航点才能确定，因此始终暂存最后一个航点，
+     * {@link #close()} 时写出并回填航点数。WiFi / 基站快照只在内容变化时才有一条，
+     * 暂存在内存中，关闭时写到航点之后。
+     */
+    public static final class Writer implements Closeable {
+        private static final int CHUNK_POINTS = 1024;
+
+        private final RandomAccessFile file;
+        private final FileChannel channel;
+        private final ByteBuffer chunk = ByteBuffer.allocate(CHUNK_POINTS * POINT_SIZE)
+                .order(ByteOrder.LITTLE_ENDIAN);
+
+        private boolean hasPending;
+        private long pTime;
+        private double pLat;
+        private double pLng;
+        private float pAltitude;
+        private float pSpeed;
+        private float lastBearing;
+        private float lastSpeed;
+        private int count;
+        private final List<Long> environmentTimes = new ArrayList<>();
+        private final List<byte[]> environments = new ArrayList<>();
+
+        public Writer(File target) throws IOException {
+            file = new RandomAccessFile(target, "rw");
+            file.setLength(0);
+            channel = file.getChannel();
+            ByteBuffer header = ByteBuffer.allocate(HEADER_SIZE).order(ByteOrder.LITTLE_ENDIAN);
+            header.putInt(OFF_MAGIC, MAGIC);
+            header.putInt(OFF_VERSION, VERSION);
+            header.putInt(OFF_COUNT, 0);
+            channel.write(header, 0);
+            channel.position(HEADER_SIZE);
+        }
+
+        /**
+         * 追加航点。timeMs 为相对路线起点的毫秒数，不大于上一个航点的航点会被丢弃；
+         * speed 不大于 0 时使用该线段的平均速度。
+         */
+        public void add(long timeMs, double lat, double lng, float altitude, float speed) throws IOException {
+            if (hasPending && timeMs <= pTime) {
+                return;
+            }
+            if (hasPending) {
+                float bearing = bearingDegrees(pLat, pLng, lat, lng);
+                float segmentSpeed = (float) (distanceMeters(pLat, pLng, lat, lng) * 1000.0 / (timeMs - pTime));
+                writePoint(pTime, pLat, pLng, pAltitude, pSpeed > 0 ? pSpeed : segmentSpeed, bearing);
+                lastBearing = bearing;
+                lastSpeed = segmentSpeed;
+            }
+            hasPending = true;
+            pTime = timeMs;
+            pLat = lat;
+            pLng = lng;
+            pAltitude = altitude;
+            pSpeed = speed;
+        }
+
+        public int count() {
+            return count + (hasPending ? 1 : 0);
+        }
+
+        /**
+         * 追加从 timeMs 起生效的 WiFi / 基站快照（{@link com.mock.location.util.BinaryConfig} 编码）。
+         * 时间不晚于上一条快照时替换上一条，保证条目按时间严格递增。
+         */
+        public void addEnvironment(long timeMs, byte[] encoded) {
+            int last = environments.size() - 1;
+            if (last >= 0 && timeMs <= environmentTimes.get(last)) {
+                environments.set(last, encoded);
+                return;
+            }
+            environmentTimes.add(Math.max(0L, timeMs));
+            environments.add(encoded);
+        }
+
+        public int environmentCount() {
+            return environments.size();
+        }
+
+        private void writePoint(long time, double lat, double lng, float altitude,
+                                float speed, float bearing) throws IOException {
+            if (chunk.remaining() < POINT_SIZE) {
+                flushChunk();
+            }
+            chunk.putLong(time);
+            chunk.putDouble(lat);
+            chunk.putDouble(lng);
+            chunk.putFloat(altitude);
+            chunk.putFloat(speed);
+            chunk.putFloat(bearing);
+            chunk.putFloat(0f);
+            count++;
+        }
+
+        private void flushChunk() throws IOException {
+            chunk.flip();
+            while (chunk.hasRemaining()) {
+                channel.write(chunk);
+            }
+            chunk.clear();
+        }
+
+        private void writeEnvironments() throws IOException {
+            ByteBuffer header = ByteBuffer.allocate(ENVIRONMENT_HEADER_SIZE).order(ByteOrder.LITTLE_ENDIAN);
+            for (int i = 0; i < environments.size(); i++) {
+                byte[] encoded = environments.get(i);
+                header.clear();
+                header.putLong(environmentTimes.get(i));
+                header.putInt(encoded.length);
+                header.flip();
+                while (header.hasRemaining()) {
+                    channel.write(header);
+                }
+                ByteBuffer body = ByteBuffer.wrap(encoded);
+                while (body.hasRemaining()) {
+                    channel.write(body);
+                }
+            }
+        }
+
+        @Override
+        public void close() throws IOException {
+            try {
+                if (hasPending) {
+                    // 最后一个航点沿用上一线段的方位角与速度
+                    writePoint(pTime, pLat, pLng, pAltitude, pSpeed > 0 ? pSpeed : lastSpeed, lastBearing);
+                    hasPending = false;
+                }
+                flushChunk();
+                writeEnvironments();
+                ByteBuffer countBuf = ByteBuffer.allocate(8).order(ByteOrder.LITTLE_ENDIAN);
+                countBuf.putInt(0, count);
+                countBuf.putInt(4, environments.size());
+                channel.write(countBuf, OFF_COUNT);
+                channel.force(true);
+            } finally {
+                file.close();
+            }
+        }
+    }
+}
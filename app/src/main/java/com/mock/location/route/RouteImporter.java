@@ -0,0 +1,331 @@
+package com.mock.location.route;
+
+import android.util.Xml;
+
+import com.google.gson.stream.JsonReader;
+import com.google.gson.stream.JsonToken;
+
+import org.xmlpull.v1.XmlPullParser;
+import org.xmlpull.v1.XmlPullParserException;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedReader;
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.nio.charset.StandardCharsets;
+import java.time.OffsetDateTime;
+import java.time.format.DateTimeParseException;
+import java.util.Arrays;
+import java.util.Locale;
+
+/**
+ * 流式导入 GPX / KML / GeoJSON 轨迹，简化后写成 {@link RouteFile}。
+ * <p>
+ * XML 使用 XmlPullParser，GeoJSON 使用 Gson 的 JsonReader，均不构建完整文档树；
+ * 航点逐个经过 {@link TrackSimplifier} 写出，内存占用与文件大小无关。
+ * 耗时与文件大小成正比，必须在后台线程调用。
+ * <p>
+ * 没有时间戳的航点（GeoJSON、KML LineString，或时间缺失/倒退的 GPX 点）按
+ * {@link #DEFAULT_SPEED_MPS} 的匀速推算时间。
+ */
+public final class RouteImporter {
+
+    /** 航点缺少时间时用于推算时间的速度（米/秒） */
+    public static final float DEFAULT_SPEED_MPS = 10f;
+
+    private static final long NO_TIME = Long.MIN_VALUE;
+
+    public enum Format {
+        GPX, KML, GEOJSON;
+
+        /**
+         * 根据文件名后缀判断格式，无法识别时返回 null。
+         */
+        public static Format fromFileName(String name) {
+            if (name == null) {
+                return null;
+            }
+            String lower = name.toLowerCase(Locale.US);
+            if (lower.endsWith(".gpx")) {
+                return GPX;
+            } else if (lower.endsWith(".kml")) {
+                return KML;
+            } else if (lower.endsWith(".geojson") || lower.endsWith(".json")) {
+                return GEOJSON;
+            }
+            return null;
+        }
+    }
+
+    private RouteImporter() {
+    }
+
+    /**
+     * 导入轨迹并写入 target。
+     *
+     * @return 写出的航点数
+     */
+    public static int importRoute(InputStream in, Format format, File target, double toleranceMeters)
+            throws IOException {
+        try (RouteFile.Writer writer = new RouteFile.Writer(target)) {
+            Pipeline pipeline = new Pipeline(new TrackSimplifier(writer, toleranceMeters));
+            InputStream buffered = new BufferedInputStream(in, 64 * 1024);
+            try {
+                switch (format) {
+                    case GPX:
+                        parseGpx(buffered, pipeline);
+                        break;
+                    case KML:
+                        parseKml(buffered, pipeline);
+                        break;
+                    case GEOJSON:
+                        parseGeoJson(buffered, pipeline);
+                        break;
+                }
+            } catch (XmlPullParserException | IllegalStateException | NumberFormatException e) {
+                throw new IOException("Malformed " + format + " file: " + e.getMessage(), e);
+            }
+            pipeline.simplifier.finish();
+            if (writer.count() == 0) {
+                throw new IOException("No track points found");
+            }
+            return writer.count();
+        }
+    }
+
+    /**
+     * 把绝对时间转换为相对路线起点的时间，并为缺失或倒退的时间按匀速补齐。
+     */
+    private static final class Pipeline {
+        final TrackSimplifier simplifier;
+        private boolean hasPrevious;
+        private long firstTime = NO_TIME;
+        private long previousTime;
+        private double previousLat;
+        private double previousLng;
+
+        Pipeline(TrackSimplifier simplifier) {
+            this.simplifier = simplifier;
+        }
+
+        void add(long absoluteTime, double lat, double lng, float altitude) throws IOException {
+            if (Double.isNaN(lat) || Double.isNaN(lng) || Math.abs(lat) > 90 || Math.abs(lng) > 180) {
+                return;
+            }
+            long t;
+            if (!hasPrevious) {
+                t = 0;
+                firstTime = absoluteTime;
+            } else {
+                long estimated = previousTime + Math.max(1L, (long) (RouteFile.distanceMeters(
+                        previousLat, previousLng, lat, lng) * 1000 / DEFAULT_SPEED_MPS));
+                if (absoluteTime != NO_TIME && firstTime != NO_TIME && absoluteTime - firstTime > previousTime) {
+                    t = absoluteTime - firstTime;
+                } else {
+                    t = estimated;
+                }
+            }
+            simplifier.add(t, lat, lng, altitude);
+            hasPrevious = true;
+            previousTime = t;
+            previousLat = lat;
+            previousLng = lng;
+        }
+    }
+
+    // ==================== GPX ====================
+
+    private static void parseGpx(InputStream in, Pipeline pipeline) throws XmlPullParserException, IOException {
+        XmlPullParser parser = newParser(in);
+        boolean inPoint = false;
+        double lat = Double.NaN;
+        double lng = Double.NaN;
+        float ele = 0f;
+        long time = NO_TIME;
+
+        int event = parser.getEventType();
+        while (event != XmlPullParser.END_DOCUMENT) {
+            if (event == XmlPullParser.START_TAG) {
+                String name = localName(parser.getName());
+                if ("trkpt".equals(name) || "rtept".equals(name)) {
+                    inPoint = true;
+                    lat = parseDouble(parser.getAttributeValue(null, "lat"));
+                    lng = parseDouble(parser.getAttributeValue(null, "lon"));
+                    ele = 0f;
+                    time = NO_TIME;
+                } else if (inPoint && "ele".equals(name)) {
+                    ele = (float) parseDouble(parser.nextText());
+                    if (Float.isNaN(ele)) {
+                        ele = 0f;
+                    }
+                } else if (inPoint && "time".equals(name)) {
+                    time = parseTime(parser.nextText());
+                }
+            } else if (event == XmlPullParser.END_TAG) {
+                String name = localName(parser.getName());
+                if (inPoint && ("trkpt".equals(name) || "rtept".equals(name))) {
+                    pipeline.add(time, lat, lng, ele);
+                    inPoint = false;
+                }
+            }
+            event = parser.next();
+        }
+    }
+
+    // ==================== KML ====================
+
+    /**
+     * 支持 LineString 的 coordinates（"lng,lat[,alt]" 以空白分隔）与 gx:Track（when + gx:coord）。
+     * gx:Track 的 when 全部出现在 coord 之前，只能先缓存为 long 数组（每点 8 字节）。
+     */
+    private static void parseKml(InputStream in, Pipeline pipeline) throws XmlPullParserException, IOException {
+        XmlPullParser parser = newParser(in);
+        long[] whens = new long[256];
+        int whenCount = 0;
+        int coordIndex = 0;
+
+        int event = parser.getEventType();
+        while (event != XmlPullParser.END_DOCUMENT) {
+            if (event == XmlPullParser.START_TAG) {
+                String name = localName(parser.getName());
+                if ("Track".equals(name)) {
+                    whenCount = 0;
+                    coordIndex = 0;
+                } else if ("when".equals(name)) {
+                    if (whenCount == whens.length) {
+                        whens = Arrays.copyOf(whens, whenCount * 2);
+                    }
+                    whens[whenCount++] = parseTime(parser.nextText());
+                } else if ("coord".equals(name)) {
+                    String[] parts = parser.nextText().trim().split("\\s+");
+                    if (parts.length >= 2) {
+                        long time = coordIndex < whenCount ? whens[coordIndex] : NO_TIME;
+                        float alt = parts.length >= 3 ? (float) parseDouble(parts[2]) : 0f;
+                        pipeline.add(time, parseDouble(parts[1]), parseDouble(parts[0]), Float.isNaN(alt) ? 0f : alt);
+                    }
+                    coordIndex++;
+                } else if ("coordinates".equals(name)) {
+                    addKmlCoordinates(parser.nextText(), pipeline);
+                }
+            }
+            event = parser.next();
+        }
+    }
+
+    private static void addKmlCoordinates(String text, Pipeline pipeline) throws IOException {
+        int length = text.length();
+        int i = 0;
+        while (i < length) {
+            while (i < length && Character.isWhitespace(text.charAt(i))) {
+                i++;
+            }
+            int start = i;
+            while (i < length && !Character.isWhitespace(text.charAt(i))) {
+                i++;
+            }
+            if (i > start) {
+                String[] parts = text.substring(start, i).split(",");
+                if (parts.length >= 2) {
+                    float alt = parts.length >= 3 ? (float) parseDouble(parts[2]) : 0f;
+                    pipeline.add(NO_TIME, parseDouble(parts[1]), parseDouble(parts[0]), Float.isNaN(alt) ? 0f : alt);
+                }
+            }
+        }
+    }
+
+    // ==================== GeoJSON ====================
+
+    /**
+     * 遍历整个文档，读取所有 "coordinates" 中的坐标（[lng, lat, alt?]，任意嵌套层数）。
+     */
+    private static void parseGeoJson(InputStream in, Pipeline pipeline) throws IOException {
+        try (JsonReader reader = new JsonReader(new BufferedReader(
+                new InputStreamReader(in, StandardCharsets.UTF_8)))) {
+            walkJson(reader, pipeline);
+        }
+    }
+
+    private static void walkJson(JsonReader reader, Pipeline pipeline) throws IOException {
+        JsonToken token = reader.peek();
+        if (token == JsonToken.BEGIN_OBJECT) {
+            reader.beginObject();
+            while (reader.hasNext()) {
+                String name = reader.nextName();
+                if ("coordinates".equals(name)) {
+                    readCoordinates(reader, pipeline);
+                } else {
+                    walkJson(reader, pipeline);
+                }
+            }
+            reader.endObject();
+        } else if (token == JsonToken.BEGIN_ARRAY) {
+            reader.beginArray();
+            while (reader.hasNext()) {
+                walkJson(reader, pipeline);
+            }
+            reader.endArray();
+        } else {
+            reader.skipValue();
+        }
+    }
+
+    private static void readCoordinates(JsonReader reader, Pipeline pipeline) throws IOException {
+        if (reader.peek() != JsonToken.BEGIN_ARRAY) {
+            reader.skipValue();
+            return;
+        }
+        reader.beginArray();
+        if (reader.hasNext() && reader.peek() == JsonToken.NUMBER) {
+            double lng = reader.nextDouble();
+            double lat = reader.hasNext() ? reader.nextDouble() : Double.NaN;
+            float alt = reader.hasNext() && reader.peek() == JsonToken.NUMBER ? (float) reader.nextDouble() : 0f;
+            while (reader.hasNext()) {
+                reader.skipValue();
+            }
+            pipeline.add(NO_TIME, lat, lng, alt);
+        } else {
+            while (reader.hasNext()) {
+                readCoordinates(reader, pipeline);
+            }
+        }
+        reader.endArray();
+    }
+
+    // ==================== 工具方法 ====================
+
+    private static XmlPullParser newParser(InputStream in) throws XmlPullParserException {
+        XmlPullParser parser = Xml.newPullParser();
+        parser.setFeature(XmlPullParser.FEATURE_PROCESS_NAMESPACES, false);
+        parser.setInput(in, null);
+        return parser;
+    }
+
+    private static String localName(String name) {
+        int colon = name.indexOf(':');
+        return colon >= 0 ? name.substring(colon + 1) : name;
+    }
+
+    private static double parseDouble(String value) {
+        if (value == null) {
+            return Double.NaN;
+        }
+        try {
+            return Double.parseDouble(value.trim());
+        } catch (NumberFormatException e) {
+            return Double.NaN;
+        }
+    }
+
+    private static long parseTime(String value) {
+        if (value == null) {
+            return NO_TIME;
+        }
+        try {
+            return OffsetDateTime.parse(value.trim()).toInstant().toEpochMilli();
+        } catch (DateTimeParseException e) {
+            return NO_TIME;
+        }
+    }
+}
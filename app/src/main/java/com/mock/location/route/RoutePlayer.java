@@ -0,0 +1,242 @@
+package com.mock.location.route;
+
+import com.mock.location.model.LocationRecord;
+import com.mock.location.util.BinaryConfig;
+
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+
+/**
+ * 路线回放引擎：给定相对路线起点的时间，插值出位置、方位角与速度。
+ * <p>
+ * 直接在 {@link RouteFile} 映射的缓冲区上做定偏移读取。时间通常单调前进，
+ * 因此保存一个线段游标，每次只需向后移动 0~1 个线段（均摊 O(1)）；
+ * 时间回退或跳跃较大时退化为一次二分查找。
+ * <p>
+ * 路线携带的 WiFi / 基站快照在打开时解码一次，{@link #environment} 按时间取当时生效的一条。
+ */
+public final class RoutePlayer {
+
+    /** 游标线性前移的最大步数，超过后改用二分查找 */
+    private static final int MAX_LINEAR_STEPS = 32;
+
+    private final ByteBuffer buf;
+    private final int count;
+    private final long durationMs;
+    private final boolean loop;
+    /** 快照生效时间（相对路线起点，毫秒），严格递增，与 environments 下标对应 */
+    private final long[] environmentTimes;
+    private final LocationRecord[] environments;
+
+    /**
+     * 线段游标，仅作查找起点。多个线程并发读写时可能读到其他线程的位置，
+     * 但每次查找都会校验，结果始终正确。
+     */
+    private int cursor;
+
+    /** 一次插值结果 */
+    public static final class Sample {
+        public final double lat;
+        public final double lng;
+        public final float altitude;
+        public final float speed;
+        public final float bearing;
+
+        Sample(double lat, double lng, float altitude, float speed, float bearing) {
+            this.lat = lat;
+            this.lng = lng;
+            this.altitude = altitude;
+            this.speed = speed;
+            this.bearing = bearing;
+        }
+    }
+
+    public RoutePlayer(ByteBuffer buf, boolean loop) {
+        if (!RouteFile.isValid(buf)) {
+            throw new IllegalArgumentException("Invalid route file");
+        }
+        this.buf = buf;
+        this.count = RouteFile.pointCount(buf);
+        this.durationMs = time(count - 1);
+        this.loop = loop;
+
+        int n = RouteFile.environmentCount(buf);
+        long[] times = new long[Math.max(0, n)];
+        LocationRecord[] records = new LocationRecord[times.length];
+        if (!readEnvironments(buf, times, records)) {
+            // 尾部损坏只影响 WiFi / 基站，航点仍可回放
+            times = new long[0];
+            records = new LocationRecord[0];
+        }
+        this.environmentTimes = times;
+        this.environments = records;
+    }
+
+    private static boolean readEnvironments(ByteBuffer buf, long[] times, LocationRecord[] out) {
+        int offset = RouteFile.environmentOffset(buf);
+        for (int i = 0; i < out.length; i++) {
+            if (offset + RouteFile.ENVIRONMENT_HEADER_SIZE > buf.capacity()) {
+                return false;
+            }
+            times[i] = buf.getLong(offset);
+            int length = buf.getInt(offset + 8);
+            offset += RouteFile.ENVIRONMENT_HEADER_SIZE;
+            if (length < BinaryConfig.HEADER_SIZE || length > buf.capacity() - offset
+                    || (i > 0 && times[i] <= times[i - 1])) {
+                return false;
+            }
+            ByteBuffer slice = buf.duplicate();
+            slice.position(offset).limit(offset + length);
+            out[i] = BinaryConfig.decode(slice.slice().order(ByteOrder.LITTLE_ENDIAN));
+            if (out[i] == null) {
+                return false;
+            }
+            offset += length;
+        }
+        return true;
+    }
+
+    /**
+     * 映射并打开路线文件；文件无效时返回 null。
+     */
+    public static RoutePlayer open(String path, boolean loop) {
+        ByteBuffer buf = RouteFile.map(path);
+        return buf != null ? new RoutePlayer(buf, loop) : null;
+    }
+
+    public int pointCount() {
+        return count;
+    }
+
+    public long durationMs() {
+        return durationMs;
+    }
+
+    public boolean hasEnvironments() {
+        return environments.length > 0;
+    }
+
+    /**
+     * 路线开始后 elapsedMs 毫秒时生效的 WiFi / 基站快照：最后一条不晚于该时刻的快照，
+     * 早于第一条时取第一条；路线没有快照时返回 null。循环方式与 {@link #sample} 一致。
+     */
+    public LocationRecord environment(long elapsedMs) {
+        if (environments.length == 0) {
+            return null;
+        }
+        long t = elapsedMs;
+        if (loop && durationMs > 0) {
+            t = Math.floorMod(t, durationMs);
+        }
+        int lo = 0;
+        int hi = environments.length - 1;
+        while (lo < hi) {
+            int mid = (lo + hi + 1) >>> 1;
+            if (environmentTimes[mid] <= t) {
+                lo = mid;
+            } else {
+                hi = mid - 1;
+            }
+        }
+        return environments[lo];
+    }
+
+    /**
+     * 计算路线开始后 elapsedMs 毫秒时的位置。非循环路线结束后停在终点，速度为 0。
+     */
+    public Sample sample(long elapsedMs) {
+        long t = elapsedMs;
+        if (loop && durationMs > 0) {
+            t = Math.floorMod(t, durationMs);
+        }
+        if (count == 1 || t <= 0) {
+            return pointSample(0, count == 1 || t < 0 ? 0f : speed(0));
+        }
+        if (t >= durationMs) {
+            return pointSample(count - 1, 0f);
+        }
+
+        int i = segment(t);
+        long t0 = time(i);
+        long t1 = time(i + 1);
+        double f = (double) (t - t0) / (t1 - t0);
+        int a = offset(i);
+        int b = offset(i + 1);
+        return new Sample(
+                lerp(buf.getDouble(a + RouteFile.P_LAT), buf.getDouble(b + RouteFile.P_LAT), f),
+                lerpLng(buf.getDouble(a + RouteFile.P_LNG), buf.getDouble(b + RouteFile.P_LNG), f),
+                (float) lerp(buf.getFloat(a + RouteFile.P_ALTITUDE), buf.getFloat(b + RouteFile.P_ALTITUDE), f),
+                (float) lerp(buf.getFloat(a + RouteFile.P_SPEED), buf.getFloat(b + RouteFile.P_SPEED), f),
+                buf.getFloat(a + RouteFile.P_BEARING));
+    }
+
+    /**
+     * 返回满足 time(i) <= t < time(i + 1) 的线段下标，要求 0 < t < durationMs。
+     */
+    int segment(long t) {
+        int i = cursor;
+        if (i < 0 || i >= count - 1 || time(i) > t) {
+            i = search(t);
+        } else {
+            int steps = 0;
+            while (time(i + 1) <= t) {
+                i++;
+                if (++steps > MAX_LINEAR_STEPS) {
+                    i = search(t);
+                    break;
+                }
+            }
+        }
+        cursor = i;
+        return i;
+    }
+
+    private int search(long t) {
+        int lo = 0;
+        int hi = count - 2;
+        while (lo < hi) {
+            int mid = (lo + hi + 1) >>> 1;
+            if (time(mid) <= t) {
+                lo = mid;
+            } else {
+                hi = mid - 1;
+            }
+        }
+        return lo;
+    }
+
+    private Sample pointSample(int index, float speed) {
+        int o = offset(index);
+        return new Sample(
+                buf.getDouble(o + RouteFile.P_LAT),
+                buf.getDouble(o + RouteFile.P_LNG),
+                buf.getFloat(o + RouteFile.P_ALTITUDE),
+                speed,
+                buf.getFloat(o + RouteFile.P_BEARING));
+    }
+
+    private long time(int index) {
+        return buf.getLong(offset(index) + RouteFile.P_TIME);
+    }
+
+    private float speed(int index) {
+        return buf.getFloat(offset(index) + RouteFile.P_SPEED);
+    }
+
+    private static int offset(int index) {
+        return RouteFile.HEADER_SIZE + index * RouteFile.POINT_SIZE;
+    }
+
+    private static double lerp(double a, double b, double f) {
+        return a + (b - a) * f;
+    }
+
+    /**
+     * 经度按较短的方向插值：跨越 ±180° 的线段不会绕地球另一侧，结果归一化到 [-180, 180)。
+     */
+    static double lerpLng(double a, double b, double f) {
+        double delta = ((b - a + 540) % 360) - 180;
+        double lng = a + delta * f;
+        return ((lng + 540) % 360) - 180;
+    }
+}
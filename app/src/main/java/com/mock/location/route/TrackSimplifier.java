@@ -0,0 +1,151 @@
+package com.mock.location.route;
+
+import java.io.IOException;
+
+/**
+ * 分窗口的 Douglas-Peucker 轨迹简化。
+ * <p>
+ * 航点先写入固定大小的窗口（原始类型数组），窗口满时对窗口做一次简化并把保留的点写出，
+ * 窗口最后一个点作为下一个窗口的起点保留，因此窗口边界处的点一定保留。
+ * 内存占用只与窗口大小有关，与轨迹长度无关；代价是窗口边界处可能多保留少量点。
+ */
+public final class TrackSimplifier {
+
+    private static final int DEFAULT_WINDOW = 8192;
+    private static final double METERS_PER_DEGREE = 111_195.0;
+
+    private final RouteFile.Writer out;
+    private final double tolerance;
+    private final int window;
+
+    private final long[] time;
+    private final double[] lat;
+    private final double[] lng;
+    private final float[] altitude;
+    private final boolean[] keep;
+    private final int[] stack;
+    private int size;
+
+    /**
+     * @param toleranceMeters 简化容差（米），不大于 0 时不简化
+     */
+    public TrackSimplifier(RouteFile.Writer out, double toleranceMeters) {
+        this(out, toleranceMeters, DEFAULT_WINDOW);
+    }
+
+    TrackSimplifier(RouteFile.Writer out, double toleranceMeters, int window) {
+        this.out = out;
+        this.tolerance = toleranceMeters;
+        this.window = Math.max(3, window);
+        time = new long[this.window];
+        lat = new double[this.window];
+        lng = new double[this.window];
+        altitude = new float[this.window];
+        keep = new boolean[this.window];
+        stack = new int[this.window * 2];
+    }
+
+    public void add(long timeMs, double pointLat, double pointLng, float pointAltitude) throws IOException {
+        time[size] = timeMs;
+        lat[size] = pointLat;
+        lng[size] = pointLng;
+        altitude[size] = pointAltitude;
+        size++;
+        if (size == window) {
+            flush(false);
+        }
+    }
+
+    /**
+     * 写出剩余航点（包括最后一个点）。
+     */
+    public void finish() throws IOException {
+        if (size > 0) {
+            flush(true);
+        }
+    }
+
+    private void flush(boolean last) throws IOException {
+        simplify();
+        int end = last ? size : size - 1;
+        for (int i = 0; i < end; i++) {
+            if (keep[i]) {
+                out.add(time[i], lat[i], lng[i], altitude[i], 0f);
+            }
+        }
+        if (last) {
+            size = 0;
+            return;
+        }
+        // 窗口末点成为下一个窗口的起点
+        int tail = size - 1;
+        time[0] = time[tail];
+        lat[0] = lat[tail];
+        lng[0] = lng[tail];
+        altitude[0] = altitude[tail];
+        size = 1;
+    }
+
+    /**
+     * 迭代版 Douglas-Peucker，结果写入 keep[0, size)。
+     */
+    private void simplify() {
+        int n = size;
+        if (tolerance <= 0 || n <= 2) {
+            for (int i = 0; i < n; i++) {
+                keep[i] = true;
+            }
+            return;
+        }
+        for (int i = 0; i < n; i++) {
+            keep[i] = false;
+        }
+        keep[0] = true;
+        keep[n - 1] = true;
+
+        int top = 0;
+        stack[top++] = 0;
+        stack[top++] = n - 1;
+        while (top > 0) {
+            int e = stack[--top];
+            int s = stack[--top];
+            if (e - s < 2) {
+                continue;
+            }
+            double maxDist = -1;
+            int index = -1;
+            for (int i = s + 1; i < e; i++) {
+                double d = distanceToSegment(i, s, e);
+                if (d > maxDist) {
+                    maxDist = d;
+                    index = i;
+                }
+            }
+            if (maxDist > tolerance) {
+                keep[index] = true;
+                stack[top++] = s;
+                stack[top++] = index;
+                stack[top++] = index;
+                stack[top++] = e;
+            }
+        }
+    }
+
+    /**
+     * 点 p 到线段 (a, b) 的距离（米），以 a 为原点做局部等距投影。
+     */
+    private double distanceToSegment(int p, int a, int b) {
+        double cos = Math.cos(Math.toRadians(lat[a]));
+        double bx = (lng[b] - lng[a]) * cos * METERS_PER_DEGREE;
+        double by = (lat[b] - lat[a]) * METERS_PER_DEGREE;
+        double px = (lng[p] - lng[a]) * cos * METERS_PER_DEGREE;
+        double py = (lat[p] - lat[a]) * METERS_PER_DEGREE;
+
+        double len2 = bx * bx + by * by;
+        double t = len2 > 0 ? (px * bx + py * by) / len2 : 0;
+        t = Math.max(0, Math.min(1, t));
+        double dx = px - t * bx;
+        double dy = py - t * by;
+        return Math.sqrt(dx * dx + dy * dy);
+    }
+}
@@ -0,0 +1,541 @@
+package com.mock.location.util;
+
+import com.mock.location.model.LocationRecord;
+import com.mock.location.model.MockConfig;
+import com.mock.location.model.SerializableCellInfo;
+import com.mock.location.model.WifiFingerprint;
+
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+
+/**
+ * 定长二进制配置格式，与 JSON 版 mock_location.loc 并存。
+ * <p>
+ * Hook 侧通过只读 MappedByteBuffer 访问，读取只是若干次定偏移的基本类型加载，
+ * 无需 UTF-8 解码与反射解析。布局（小端序）：
+ * <pre>
+ *  0  int    MAGIC
+ *  4  int    VERSION
+ *  8  long   sequence  序列号，偶数表示内容完整，奇数表示正在写入
+ * 16  double lat
+ * 24  double lng
+ * 32  double altitude
+ * 40  float  accuracy
+ * 44  float  bearing
+ * 48  float  speed
+ * 52  int    cell 网络类型（见 NET_*），0 表示无基站信息
+ * 56  int    mcc
+ * 60  int    mnc
+ * 64  int    lac/tac
+ * 68  int    cid
+ * 72  int    BSSID 数量
+ * 76  int    Hook 日志级别
+ * 80  int    Hook 分组计划条目数
+ * 84  int    路线标志（bit0 循环）
+ * 88  long   路线回放起点 elapsedRealtime（毫秒），0 表示不回放
+ * 96  int    WiFi 标志（bit0 含指纹）
+ * 100 int    邻区数量
+ * 104 long[] BSSID，每个 48 位 MAC 打包为一个 long
+ * ..  含指纹时：int[] 每个 AP 的 RSSI（低 16 位，有符号）与频率（高 16 位），
+ *     随后每个 AP 依次为 short 长度 + UTF-8 SSID、short 长度 + UTF-8 capabilities
+ * ..  基站：有主小区时先写主小区，再写每个邻区，每个 {@link #CELL_SIZE} 字节：
+ *     int 网络类型, mcc, mnc, lac/tac, cid, pci, arfcn, dbm, long nci,
+ *     byte[4] MCC 字符串, byte[4] MNC 字符串（ASCII，不足补 0，全 0 表示没有原始字符串）
+ * ..  按包的 Hook 分组计划：每条为 short 包名长度 + UTF-8 包名 + int 分组
+ * </pre>
+ * 指纹、完整基站列表与分组计划只在配置变化时读取一次，放在变长尾部，不影响热字段的定偏移布局。
+ * JSON 文件仍然写入，作为兜底与调试格式。
+ */
+public final class BinaryConfig {
+
+    public static final String TARGET_PATH = "/data/local/tmp/mock_location.bin";
+
+    public static final int MAGIC = 0x434F4C4D; // "MLOC"
+    public static final int VERSION = 6;
+    public static final int MAX_BSSIDS = 64;
+    public static final int MAX_NEIGHBOR_CELLS = 32;
+
+    private static final int OFF_MAGIC = 0;
+    private static final int OFF_VERSION = 4;
+    private static final int OFF_SEQ = 8;
+    private static final int OFF_LAT = 16;
+    private static final int OFF_LNG = 24;
+    private static final int OFF_ALTITUDE = 32;
+    private static final int OFF_ACCURACY = 40;
+    private static final int OFF_BEARING = 44;
+    private static final int OFF_SPEED = 48;
+    private static final int OFF_NET_TYPE = 52;
+    private static final int OFF_MCC = 56;
+    private static final int OFF_MNC = 60;
+    private static final int OFF_LAC = 64;
+    private static final int OFF_CID = 68;
+    private static final int OFF_BSSID_COUNT = 72;
+    private static final int OFF_LOG_LEVEL = 76;
+    private static final int OFF_PLAN_COUNT = 80;
+    private static final int OFF_ROUTE_FLAGS = 84;
+    private static final int OFF_ROUTE_START = 88;
+    private static final int OFF_WIFI_FLAGS = 96;
+    private static final int OFF_NEIGHBOR_COUNT = 100;
+    private static final int OFF_BSSIDS = 104;
+
+    private static final int ROUTE_FLAG_LOOP = 1;
+    private static final int WIFI_FLAG_FINGERPRINT = 1;
+
+    public static final int HEADER_SIZE = OFF_BSSIDS;
+    private static final int CELL_SIZE = 8 * 4 + 8 + 4 + 4;
+    /** MCC / MNC 字符串最长 3 位 */
+    private static final int CODE_SIZE = 4;
+
+    private static final int NET_NONE = 0;
+    private static final int NET_GSM = 1;
+    private static final int NET_WCDMA = 2;
+    private static final int NET_LTE = 3;
+    private static final int NET_NR = 4;
+
+    /** 读到奇数序列号或前后不一致时的最大重试次数 */
+    private static final int MAX_READ_ATTEMPTS = 8;
+
+    private BinaryConfig() {
+    }
+
+    /**
+     * LocationRecord → 二进制配置。sequence 必须为偶数。
+     */
+    public static byte[] encode(LocationRecord record, long sequence) {
+        List<String> bssids = record.wifiBssids;
+        WifiFingerprint fp = record.wifiFingerprint;
+        boolean hasFingerprint = bssids != null && fp != null && fp.matches(bssids.size());
+        int count = 0;
+        long[] packed = new long[MAX_BSSIDS];
+        // 指纹中对应 AP 的下标，跳过非法 BSSID 后仍保持对应
+        int[] source = new int[MAX_BSSIDS];
+        if (bssids != null) {
+            for (int i = 0; i < bssids.size() && count < MAX_BSSIDS; i++) {
+                long mac = packMac(bssids.get(i));
+                if (mac >= 0) {
+                    source[count] = i;
+                    packed[count++] = mac;
+                }
+            }
+        }
+
+        byte[][] ssids = null;
+        byte[][] caps = null;
+        int wifiBytes = count * 8;
+        if (hasFingerprint) {
+            ssids = new byte[count][];
+            caps = new byte[count][];
+            wifiBytes += count * 4;
+            for (int i = 0; i < count; i++) {
+                ssids[i] = utf8(fp.ssids[source[i]]);
+                caps[i] = utf8(fp.capabilities[source[i]]);
+                wifiBytes += 2 + ssids[i].length + 2 + caps[i].length;
+            }
+        }
+
+        SerializableCellInfo cell = record.cellInfo;
+        int netType = cell != null ? netTypeCode(cell.networkType) : NET_NONE;
+        List<SerializableCellInfo> neighbors = new ArrayList<>();
+        if (record.neighborCells != null) {
+            for (SerializableCellInfo neighbor : record.neighborCells) {
+                if (neighbors.size() == MAX_NEIGHBOR_CELLS) break;
+                if (neighbor != null && netTypeCode(neighbor.networkType) != NET_NONE) {
+                    neighbors.add(neighbor);
+                }
+            }
+        }
+        int cellBytes = ((netType != NET_NONE ? 1 : 0) + neighbors.size()) * CELL_SIZE;
+
+        Map<String, Integer> plans = record instanceof MockConfig ? ((MockConfig) record).hookPlans : null;
+        int planCount = 0;
+        int planBytes = 0;
+        if (plans != null) {
+            for (Map.Entry<String, Integer> entry : plans.entrySet()) {
+                if (entry.getKey() != null && entry.getValue() != null) {
+                    planCount++;
+                    planBytes += 2 + entry.getKey().getBytes(StandardCharsets.UTF_8).length + 4;
+                }
+            }
+        }
+
+        ByteBuffer buf = ByteBuffer.allocate(HEADER_SIZE + wifiBytes + cellBytes + planBytes).order(ByteOrder.LITTLE_ENDIAN);
+        buf.putInt(OFF_MAGIC, MAGIC);
+        buf.putInt(OFF_VERSION, VERSION);
+        buf.putLong(OFF_SEQ, sequence & ~1L);
+        buf.putDouble(OFF_LAT, record.lat);
+        buf.putDouble(OFF_LNG, record.lng);
+        buf.putDouble(OFF_ALTITUDE, record.altitude);
+        buf.putFloat(OFF_ACCURACY, record.accuracy);
+        buf.putFloat(OFF_BEARING, record.bearing);
+        buf.putFloat(OFF_SPEED, record.speed);
+
+        buf.putInt(OFF_NET_TYPE, netType);
+        if (netType != NET_NONE) {
+            buf.putInt(OFF_MCC, cell.mcc);
+            buf.putInt(OFF_MNC, cell.mnc);
+            buf.putInt(OFF_LAC, cell.lac);
+            buf.putInt(OFF_CID, cell.cid);
+        }
+
+        buf.putInt(OFF_BSSID_COUNT, count);
+        buf.putInt(OFF_LOG_LEVEL, record instanceof MockConfig
+                ? ((MockConfig) record).logLevel
+                : MockConfig.LOG_ERROR);
+        buf.putInt(OFF_WIFI_FLAGS, hasFingerprint ? WIFI_FLAG_FINGERPRINT : 0);
+        buf.position(OFF_BSSIDS);
+        for (int i = 0; i < count; i++) {
+            buf.putLong(packed[i]);
+        }
+        if (hasFingerprint) {
+            for (int i = 0; i < count; i++) {
+                int level = fp.levels[source[i]];
+                int frequency = fp.frequencies[source[i]];
+                buf.putInt((level & 0xFFFF) | (frequency << 16));
+            }
+            for (int i = 0; i < count; i++) {
+                buf.putShort((short) ssids[i].length);
+                buf.put(ssids[i]);
+                buf.putShort((short) caps[i].length);
+                buf.put(caps[i]);
+            }
+        }
+
+        buf.putInt(OFF_NEIGHBOR_COUNT, neighbors.size());
+        if (netType != NET_NONE) {
+            putCell(buf, cell);
+        }
+        for (SerializableCellInfo neighbor : neighbors) {
+            putCell(buf, neighbor);
+        }
+
+        if (record instanceof MockConfig) {
+            MockConfig config = (MockConfig) record;
+            buf.putInt(OFF_ROUTE_FLAGS, config.routeLoop ? ROUTE_FLAG_LOOP : 0);
+            buf.putLong(OFF_ROUTE_START, config.routeStartElapsed);
+        }
+
+        buf.putInt(OFF_PLAN_COUNT, planCount);
+        if (planCount > 0) {
+            for (Map.Entry<String, Integer> entry : plans.entrySet()) {
+                if (entry.getKey() != null && entry.getValue() != null) {
+                    byte[] name = entry.getKey().getBytes(StandardCharsets.UTF_8);
+                    buf.putShort((short) name.length);
+                    buf.put(name);
+                    buf.putInt(entry.getValue());
+                }
+            }
+        }
+        return buf.array();
+    }
+
+    /**
+     * 以只读方式映射二进制配置文件；文件不存在、过短或魔数不符时返回 null。
+     * <p>
+     * 写入方通过 mv 整体替换文件，旧映射仍指向旧 inode，不会因截断触发 SIGBUS。
+     */
+    public static MappedByteBuffer map(String path) {
+        try (RandomAccessFile file = new RandomAccessFile(path, "r");
+             FileChannel channel = file.getChannel()) {
+            long size = channel.size();
+            if (size < HEADER_SIZE) {
+                return null;
+            }
+            MappedByteBuffer buf = channel.map(FileChannel.MapMode.READ_ONLY, 0, size);
+            buf.order(ByteOrder.LITTLE_ENDIAN);
+            if (buf.getInt(OFF_MAGIC) != MAGIC || buf.getInt(OFF_VERSION) != VERSION) {
+                return null;
+            }
+            return buf;
+        } catch (IOException e) {
+            return null;
+        }
+    }
+
+    /**
+     * 读取当前序列号，不做一致性校验。
+     */
+    public static long sequence(ByteBuffer buf) {
+        return buf.getLong(OFF_SEQ);
+    }
+
+    /**
+     * 按序列锁协议解码：读前后序列号相同且为偶数才认为读到了完整内容，
+     * 否则重试；多次仍不一致返回 null，由调用方回退到 JSON。
+     */
+    public static MockConfig decode(ByteBuffer buf) {
+        for (int attempt = 0; attempt < MAX_READ_ATTEMPTS; attempt++) {
+            long seq = buf.getLong(OFF_SEQ);
+            if ((seq & 1L) != 0) {
+                Thread.yield();
+                continue;
+            }
+
+            MockConfig record = new MockConfig();
+            record.generation = seq;
+            record.lat = buf.getDouble(OFF_LAT);
+            record.lng = buf.getDouble(OFF_LNG);
+            record.altitude = buf.getDouble(OFF_ALTITUDE);
+            record.accuracy = buf.getFloat(OFF_ACCURACY);
+            record.bearing = buf.getFloat(OFF_BEARING);
+            record.speed = buf.getFloat(OFF_SPEED);
+
+            int netType = buf.getInt(OFF_NET_TYPE);
+            if (netType != NET_NONE) {
+                SerializableCellInfo cell = new SerializableCellInfo();
+                cell.networkType = netTypeName(netType);
+                cell.mcc = buf.getInt(OFF_MCC);
+                cell.mnc = buf.getInt(OFF_MNC);
+                cell.lac = buf.getInt(OFF_LAC);
+                cell.cid = buf.getInt(OFF_CID);
+                record.cellInfo = cell;
+            }
+
+            int count = buf.getInt(OFF_BSSID_COUNT);
+            if (count < 0 || count > MAX_BSSIDS || HEADER_SIZE + count * 8 > buf.capacity()) {
+                return null;
+            }
+            List<String> bssids = new ArrayList<>(count);
+            for (int i = 0; i < count; i++) {
+                bssids.add(unpackMac(buf.getLong(OFF_BSSIDS + i * 8)));
+            }
+            record.wifiBssids = bssids;
+            int offset = OFF_BSSIDS + count * 8;
+            if ((buf.getInt(OFF_WIFI_FLAGS) & WIFI_FLAG_FINGERPRINT) != 0) {
+                record.wifiFingerprint = new WifiFingerprint(count);
+                offset = readFingerprint(buf, offset, record.wifiFingerprint);
+                if (offset < 0) {
+                    return null;
+                }
+            }
+            offset = readCells(buf, offset, record);
+            if (offset < 0) {
+                return null;
+            }
+            record.logLevel = buf.getInt(OFF_LOG_LEVEL);
+            record.routeLoop = (buf.getInt(OFF_ROUTE_FLAGS) & ROUTE_FLAG_LOOP) != 0;
+            record.routeStartElapsed = buf.getLong(OFF_ROUTE_START);
+            if (!readPlans(buf, offset, buf.getInt(OFF_PLAN_COUNT), record.hookPlans)) {
+                return null;
+            }
+
+            if (buf.getLong(OFF_SEQ) == seq) {
+                return record;
+            }
+        }
+        return null;
+    }
+
+    /**
+     * 读取指纹并返回其后的偏移；越界时返回 -1。
+     */
+    private static int readFingerprint(ByteBuffer buf, int offset, WifiFingerprint fp) {
+        int count = fp.size();
+        int limit = buf.capacity();
+        if (offset + count * 4 > limit) {
+            return -1;
+        }
+        for (int i = 0; i < count; i++) {
+            int packed = buf.getInt(offset + i * 4);
+            fp.levels[i] = (short) packed;
+            fp.frequencies[i] = packed >>> 16;
+        }
+        offset += count * 4;
+        for (int i = 0; i < count; i++) {
+            for (int field = 0; field < 2; field++) {
+                if (offset + 2 > limit) {
+                    return -1;
+                }
+                int length = buf.getShort(offset) & 0xFFFF;
+                offset += 2;
+                if (offset + length > limit) {
+                    return -1;
+                }
+                String value = readUtf8(buf, offset, length);
+                offset += length;
+                if (field == 0) {
+                    fp.ssids[i] = value;
+                } else {
+                    fp.capabilities[i] = value;
+                }
+            }
+        }
+        return offset;
+    }
+
+    private static void putCell(ByteBuffer buf, SerializableCellInfo cell) {
+        buf.putInt(netTypeCode(cell.networkType));
+        buf.putInt(cell.mcc);
+        buf.putInt(cell.mnc);
+        buf.putInt(cell.lac);
+        buf.putInt(cell.cid);
+        buf.putInt(cell.pci);
+        buf.putInt(cell.arfcn);
+        buf.putInt(cell.dbm);
+        buf.putLong(cell.nci);
+        putCode(buf, cell.mccStr);
+        putCode(buf, cell.mncStr);
+    }
+
+    private static void putCode(ByteBuffer buf, String code) {
+        int length = code != null && code.length() < CODE_SIZE ? code.length() : 0;
+        for (int i = 0; i < CODE_SIZE; i++) {
+            buf.put(i < length ? (byte) code.charAt(i) : 0);
+        }
+    }
+
+    private static String getCode(ByteBuffer buf, int offset) {
+        int length = 0;
+        while (length < CODE_SIZE && buf.get(offset + length) != 0) {
+            length++;
+        }
+        return length > 0 ? readUtf8(buf, offset, length) : null;
+    }
+
+    /**
+     * 读取基站区：完整的主小区替换头部解出的主小区，其后为邻区。返回其后的偏移，越界时返回 -1。
+     */
+    private static int readCells(ByteBuffer buf, int offset, MockConfig record) {
+        int neighborCount = buf.getInt(OFF_NEIGHBOR_COUNT);
+        int total = (record.cellInfo != null ? 1 : 0) + neighborCount;
+        if (neighborCount < 0 || neighborCount > MAX_NEIGHBOR_CELLS
+                || offset + total * CELL_SIZE > buf.capacity()) {
+            return -1;
+        }
+        if (record.cellInfo != null) {
+            record.cellInfo = getCell(buf, offset);
+            offset += CELL_SIZE;
+        }
+        if (neighborCount > 0) {
+            List<SerializableCellInfo> neighbors = new ArrayList<>(neighborCount);
+            for (int i = 0; i < neighborCount; i++) {
+                neighbors.add(getCell(buf, offset));
+                offset += CELL_SIZE;
+            }
+            record.neighborCells = neighbors;
+        }
+        return offset;
+    }
+
+    private static SerializableCellInfo getCell(ByteBuffer buf, int offset) {
+        SerializableCellInfo cell = new SerializableCellInfo();
+        cell.networkType = netTypeName(buf.getInt(offset));
+        cell.mcc = buf.getInt(offset + 4);
+        cell.mnc = buf.getInt(offset + 8);
+        cell.lac = buf.getInt(offset + 12);
+        cell.cid = buf.getInt(offset + 16);
+        cell.pci = buf.getInt(offset + 20);
+        cell.arfcn = buf.getInt(offset + 24);
+        cell.dbm = buf.getInt(offset + 28);
+        cell.nci = buf.getLong(offset + 32);
+        cell.mccStr = getCode(buf, offset + 40);
+        cell.mncStr = getCode(buf, offset + 40 + CODE_SIZE);
+        return cell;
+    }
+
+    private static byte[] utf8(String value) {
+        if (value == null) {
+            return new byte[0];
+        }
+        byte[] bytes = value.getBytes(StandardCharsets.UTF_8);
+        // SSID 最长 32 字节，capabilities 也不会很长，截断只防御异常数据
+        return bytes.length > 255 ? Arrays.copyOf(bytes, 255) : bytes;
+    }
+
+    private static String readUtf8(ByteBuffer buf, int offset, int length) {
+        byte[] bytes = new byte[length];
+        for (int j = 0; j < length; j++) {
+            bytes[j] = buf.get(offset + j);
+        }
+        return new String(bytes, StandardCharsets.UTF_8);
+    }
+
+    private static boolean readPlans(ByteBuffer buf, int offset, int planCount, Map<String, Integer> out) {
+        if (planCount < 0) {
+            return false;
+        }
+        int limit = buf.capacity();
+        for (int i = 0; i < planCount; i++) {
+            if (offset + 2 > limit) {
+                return false;
+            }
+            int length = buf.getShort(offset) & 0xFFFF;
+            offset += 2;
+            if (offset + length + 4 > limit) {
+                return false;
+            }
+            String name = readUtf8(buf, offset, length);
+            offset += length;
+            out.put(name, buf.getInt(offset));
+            offset += 4;
+        }
+        return true;
+    }
+
+    /**
+     * "aa:bb:cc:dd:ee:ff" → 48 位整数；格式非法返回 -1。
+     */
+    static long packMac(String mac) {
+        if (mac == null || mac.length() != 17) {
+            return -1;
+        }
+        long value = 0;
+        for (int i = 0; i < 6; i++) {
+            int hi = Character.digit(mac.charAt(i * 3), 16);
+            int lo = Character.digit(mac.charAt(i * 3 + 1), 16);
+            if (hi < 0 || lo < 0) {
+                return -1;
+            }
+            value = (value << 8) | (hi << 4) | lo;
+        }
+        return value;
+    }
+
+    static String unpackMac(long mac) {
+        return String.format(Locale.US, "%02x:%02x:%02x:%02x:%02x:%02x",
+                (mac >> 40) & 0xFF, (mac >> 32) & 0xFF, (mac >> 24) & 0xFF,
+                (mac >> 16) & 0xFF, (mac >> 8) & 0xFF, mac & 0xFF);
+    }
+
+    private static int netTypeCode(String networkType) {
+        if (networkType == null) {
+            return NET_NONE;
+        }
+        switch (networkType.toUpperCase(Locale.US)) {
+            case "GSM":
+                return NET_GSM;
+            case "WCDMA":
+                return NET_WCDMA;
+            case "LTE":
+                return NET_LTE;
+            case "NR":
+                return NET_NR;
+            default:
+                return NET_NONE;
+        }
+    }
+
+    private static String netTypeName(int code) {
+        switch (code) {
+            case NET_GSM:
+                return "GSM";
+            case NET_WCDMA:
+                return "WCDMA";
+            case NET_LTE:
+                return "LTE";
+            case NET_NR:
+                return "NR";
+            default:
+                return null;
+        }
+    }
+}
@@ -4,25 +4,33 @@ package com.mock.location.util;
 import android.content.Context;
 import android.util.Log;
 
+import com.mock.location.ConfigProvider;
 import com.mock.location.Constant;
+import com.mock.location.model.LocationRecord;
+import com.mock.location.model.MockConfig;
+import com.mock.location.route.RouteFile;
 
 import java.io.BufferedReader;
-import java.io.DataOutputStream;
 import java.io.File;
 import java.io.FileInputStream;
 import java.io.FileOutputStream;
 import java.io.IOException;
 import java.io.InputStreamReader;
+import java.nio.charset.StandardCharsets;
 
 
 public class ConfigFileUtil {
 
-    private static final String TARGET_PATH = "/data/local/tmp/mock_location.loc";
+    public static final String TARGET_PATH = "/data/local/tmp/mock_location.loc";
+
+    private static long sLastGeneration;
 
     /**
-     * 将任意 Serializable 对象通过 Root 权限写入到 /data/local/tmp/mock_location.loc
+     * 将内容通过 Root 权限原子发布到 /data/local/tmp/mock_location.loc：
+     * 先复制为同目录下的临时文件、设权限并落盘，再 mv 整体替换。
+     * 读取方要么看到旧文件、要么看到完整的新文件，不会读到写了一半的内容。
      *
-     * @param content 要写入的对象（必须实现 java.io.Serializable）
+     * @param content 要写入的内容
      * @return true 表示成功写入并设置权限，false 表示失败
      */
     public static boolean writeString(Context context, byte[] content) {
@@ -33,15 +41,12 @@ public class ConfigFileUtil {
                 fos.write(content);
             }
 
-            // 2. 用 su 复制并设权限
-            Process p = Runtime.getRuntime().exec("su");
-            try (DataOutputStream os = new DataOutputStream(p.getOutputStream())) {
-                os.writeBytes("cp '" + localFile.getAbsolutePath() + "' /data/local/tmp/mock_location.loc\n");
-                os.writeBytes("chmod 644 /data/local/tmp/mock_location.loc\n");
-                os.writeBytes("exit\n");
-                os.flush();
-                return p.waitFor() == 0;
-            }
+            // 2. 在常驻 Root Shell 中复制为临时文件、设权限、落盘后 rename 替换
+            String tmpTarget = TARGET_PATH + ".tmp";
+            return RootShell.exec("cp " + RootShell.quote(localFile.getAbsolutePath()) + " " + tmpTarget
+                    + " && chmod 644 " + tmpTarget
+                    + " && " + fsync(tmpTarget)
+                    + " && mv -f " + tmpTarget + " " + TARGET_PATH).isSuccess();
         } catch (Exception e) {
             Log.e(Constant.TAG, "Failed", e);
             return false;
@@ -51,24 +56,118 @@ public class ConfigFileUtil {
             }
         }
     }
-    // ConfigFileUtil.java
-    public static boolean deleteMockFile(Context context) {
+
+    /**
+     * 通过 Root 权限写入二进制配置 /data/local/tmp/mock_location.bin。
+     * 先写临时文件再 mv 整体替换：Hook 侧以 mmap 读取，原地截断会导致读取方 SIGBUS。
+     */
+    public static boolean writeBinary(Context context, byte[] content) {
+        File localFile = new File(context.getCacheDir(), "mock_bin.tmp");
+        String tmpTarget = BinaryConfig.TARGET_PATH + ".tmp";
         try {
-            String path = "/data/local/tmp/mock_location.loc";
-            Process p = Runtime.getRuntime().exec(new String[]{"su", "-c", "rm " + path});
-            int result = p.waitFor();
-            return result == 0;
+            try (FileOutputStream fos = new FileOutputStream(localFile)) {
+                fos.write(content);
+            }
+
+            return RootShell.exec("cp " + RootShell.quote(localFile.getAbsolutePath()) + " " + tmpTarget
+                    + " && chmod 644 " + tmpTarget
+                    + " && " + fsync(tmpTarget)
+                    + " && mv -f " + tmpTarget + " " + BinaryConfig.TARGET_PATH).isSuccess();
         } catch (Exception e) {
-            e.printStackTrace();
+            Log.e(Constant.TAG, "Failed to write binary config", e);
             return false;
+        } finally {
+            if (localFile.exists()) {
+                localFile.delete();
+            }
+        }
+    }
+
+    /**
+     * 通过 Root 权限发布路线文件到 /data/local/tmp/mock_route.bin。
+     * 与二进制配置一样先复制为临时文件再 mv，Hook 侧已映射的旧路线不受影响。
+     */
+    public static boolean writeRoute(File routeFile) {
+        String tmpTarget = RouteFile.TARGET_PATH + ".tmp";
+        RootShell.Result result = RootShell.exec("cp " + RootShell.quote(routeFile.getAbsolutePath()) + " " + tmpTarget
+                + " && chmod 644 " + tmpTarget
+                + " && " + fsync(tmpTarget)
+                + " && mv -f " + tmpTarget + " " + RouteFile.TARGET_PATH);
+        if (!result.isSuccess()) {
+            Log.e(Constant.TAG, "Failed to write route file: " + result.output);
+        }
+        return result.isSuccess();
+    }
+
+    /**
+     * 落盘单个文件的 Shell 片段：优先 toybox fsync，不可用时退回全局 sync。
+     */
+    private static String fsync(String path) {
+        return "{ fsync " + path + " 2>/dev/null || sync; }";
+    }
+
+    /**
+     * 分配新的配置代数：不小于当前时间 × 2 且严格大于上一次，始终为偶数。
+     */
+    private static synchronized long nextGeneration() {
+        long generation = Math.max(System.currentTimeMillis() << 1, sLastGeneration + 2);
+        sLastGeneration = generation;
+        return generation;
+    }
+
+    private static void deleteBinary() {
+        RootShell.Result result = RootShell.exec("rm -f " + BinaryConfig.TARGET_PATH);
+        if (!result.isSuccess()) {
+            Log.e(Constant.TAG, "Failed to delete binary config: " + result.output);
+        }
+    }
+
+    // ConfigFileUtil.java
+    public static boolean deleteMockFile(Context context) {
+        boolean cleared = ConfigProvider.clear(context);
+        if (RecordManager.isProviderOnly(context)) {
+            return cleared;
         }
+        // 文件可能本来就不存在（已停止过或只用过 Provider 通道），用 -f 避免把“无文件”当作失败
+        return RootShell.exec("rm -f " + BinaryConfig.TARGET_PATH + " " + RouteFile.TARGET_PATH
+                + " " + TARGET_PATH).isSuccess();
     }
+
+    /**
+     * 发布配置，结果以实际使用的通道为准。
+     * <p>
+     * 选择仅 Provider 通道（{@link RecordManager#isProviderOnly}）时只推送给 {@link ConfigProvider}，不需要 Root；
+     * 否则先写 JSON 文件（对象为 LocationRecord 时同时写入二进制配置供 Hook 侧 mmap 读取），
+     * 文件发布成功后再同步推送给已订阅 Provider 的进程，写入失败时两个通道都保持旧配置。
+     * MockConfig 每次写入都分配新的 {@link MockConfig#generation}，各通道使用同一代数。
+     * 二进制写入失败不影响结果，Hook 侧会回退到 JSON。
+     */
     public static boolean writeObject(Context context, Object obj) {
         if (obj == null) {
             Log.e(Constant.TAG, "Object is null");
             return false;
         }
-        return writeString(context, JsonUtils.toByteArray(obj));
+        long generation = nextGeneration();
+        if (obj instanceof MockConfig) {
+            ((MockConfig) obj).generation = generation;
+        }
+        String json = JsonUtils.toJson(obj);
+        if (RecordManager.isProviderOnly(context)) {
+            return ConfigProvider.publish(context, json);
+        }
+        if (!writeString(context, json.getBytes(StandardCharsets.UTF_8))) {
+            return false;
+        }
+        if (obj instanceof LocationRecord) {
+            long sequence = generation;
+            if (!writeBinary(context, BinaryConfig.encode((LocationRecord) obj, sequence))) {
+                // 删除旧的二进制配置，避免 Hook 侧继续读取上一条记录
+                Log.w(Constant.TAG, "Binary config not written, hooks fall back to JSON");
+                deleteBinary();
+            }
+        }
+        ConfigProvider.publish(context, json);
+        return true;
     }
 
     public static String readString() {
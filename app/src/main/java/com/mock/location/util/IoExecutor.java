@@ -0,0 +1,123 @@
+package com.mock.location.util;
+
+import android.os.Handler;
+import android.os.Looper;
+import android.util.Log;
+
+import com.mock.location.Constant;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+/**
+ * 记录与配置的单写线程：所有数据库、文件与 su 操作按提交顺序在同一后台线程执行，
+ * 结果通过 {@link Callback} 回到主线程。
+ * <p>
+ * {@link #submitLatest} 按 key 合并写入：同一 key 的任务尚未开始执行时，新任务直接替换旧任务，
+ * 被替换的任务不执行、回调也不调用。连续点击开始/停止模拟时只会执行最后一次发布。
+ * <p>
+ * 路线导入、轨迹转换等可能持续数秒的任务用 {@link #submitLong} 提交到另一条后台线程，
+ * 不会让排在后面的配置发布等待。
+ */
+public class IoExecutor {
+
+    public interface Callback<T> {
+        /** 在主线程调用；任务抛出异常时 result 为 null */
+        void onComplete(T result);
+    }
+
+    private static final ExecutorService EXECUTOR = Executors.newSingleThreadExecutor(r -> {
+        Thread thread = new Thread(r, "MockIO");
+        thread.setPriority(Thread.NORM_PRIORITY - 1);
+        return thread;
+    });
+    private static final ExecutorService LONG_EXECUTOR = Executors.newSingleThreadExecutor(r -> {
+        Thread thread = new Thread(r, "MockLongIO");
+        thread.setPriority(Thread.MIN_PRIORITY);
+        return thread;
+    });
+    private static final Handler MAIN = new Handler(Looper.getMainLooper());
+
+    /** 已提交但尚未开始的合并任务 */
+    private static final Map<String, Pending> PENDING = new HashMap<>();
+
+    private static final class Pending {
+        Callable<?> task;
+        Callback<?> callback;
+    }
+
+    private IoExecutor() {
+    }
+
+    /**
+     * 提交任务，完成后在主线程回调（callback 可为 null）。
+     */
+    public static <T> Future<T> submit(Callable<T> task, Callback<T> callback) {
+        return EXECUTOR.submit(() -> {
+            T result = call(task);
+            deliver(callback, result);
+            return result;
+        });
+    }
+
+    /**
+     * 提交耗时任务到独立的后台线程，完成后在主线程回调（callback 可为 null）。
+     * 任务之间仍按提交顺序执行，但与 {@link #submit} / {@link #submitLatest} 的任务并行。
+     */
+    public static <T> Future<T> submitLong(Callable<T> task, Callback<T> callback) {
+        return LONG_EXECUTOR.submit(() -> {
+            T result = call(task);
+            deliver(callback, result);
+            return result;
+        });
+    }
+
+    /**
+     * 按 key 合并提交：同 key 的旧任务还在排队时被新任务替换，只执行最后提交的任务并调用其回调。
+     */
+    public static <T> void submitLatest(String key, Callable<T> task, Callback<T> callback) {
+        synchronized (PENDING) {
+            Pending pending = PENDING.get(key);
+            if (pending != null) {
+                pending.task = task;
+                pending.callback = callback;
+                return;
+            }
+            pending = new Pending();
+            pending.task = task;
+            pending.callback = callback;
+            PENDING.put(key, pending);
+        }
+        EXECUTOR.execute(() -> {
+            Pending pending;
+            synchronized (PENDING) {
+                pending = PENDING.remove(key);
+            }
+            run(pending.task, pending.callback);
+        });
+    }
+
+    @SuppressWarnings("unchecked")
+    private static <T> void run(Callable<T> task, Callback<?> callback) {
+        deliver((Callback<T>) callback, call(task));
+    }
+
+    private static <T> T call(Callable<T> task) {
+        try {
+            return task.call();
+        } catch (Exception e) {
+            Log.e(Constant.TAG, "I/O task failed", e);
+            return null;
+        }
+    }
+
+    private static <T> void deliver(Callback<T> callback, T result) {
+        if (callback != null) {
+            MAIN.post(() -> callback.onComplete(result));
+        }
+    }
+}
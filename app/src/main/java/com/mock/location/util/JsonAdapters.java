@@ -0,0 +1,389 @@
+package com.mock.location.util;
+
+import com.google.gson.TypeAdapter;
+import com.google.gson.stream.JsonReader;
+import com.google.gson.stream.JsonToken;
+import com.google.gson.stream.JsonWriter;
+import com.mock.location.model.LocationRecord;
+import com.mock.location.model.MockConfig;
+import com.mock.location.model.SerializableCellInfo;
+import com.mock.location.model.WifiFingerprint;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * 手写的流式 TypeAdapter，注册在 {@link JsonUtils#GSON} 上，替代反射序列化。
+ * <p>
+ * 字段名与反射序列化时完全一致，新旧 JSON 可以互相读取；未知字段跳过，null 字段不输出。
+ * LocationRecord 列表由 Gson 的集合适配器逐个委托给这里的元素适配器，同样不经过反射。
+ * 模型类新增字段时需要同步修改这里。
+ */
+final class JsonAdapters {
+
+    private JsonAdapters() {
+    }
+
+    static final TypeAdapter<SerializableCellInfo> CELL_INFO = new TypeAdapter<SerializableCellInfo>() {
+        @Override
+        public void write(JsonWriter out, SerializableCellInfo cell) throws IOException {
+            if (cell == null) {
+                out.nullValue();
+                return;
+            }
+            out.beginObject();
+            if (cell.networkType != null) {
+                out.name("networkType").value(cell.networkType);
+            }
+            out.name("mcc").value(cell.mcc);
+            out.name("mnc").value(cell.mnc);
+            if (cell.mccStr != null) {
+                out.name("mccStr").value(cell.mccStr);
+            }
+            if (cell.mncStr != null) {
+                out.name("mncStr").value(cell.mncStr);
+            }
+            out.name("lac").value(cell.lac);
+            out.name("cid").value(cell.cid);
+            out.name("nci").value(cell.nci);
+            out.name("pci").value(cell.pci);
+            out.name("arfcn").value(cell.arfcn);
+            out.name("dbm").value(cell.dbm);
+            out.endObject();
+        }
+
+        @Override
+        public SerializableCellInfo read(JsonReader in) throws IOException {
+            if (in.peek() == JsonToken.NULL) {
+                in.nextNull();
+                return null;
+            }
+            SerializableCellInfo cell = new SerializableCellInfo();
+            in.beginObject();
+            while (in.hasNext()) {
+                String name = in.nextName();
+                if (in.peek() == JsonToken.NULL) {
+                    in.nextNull();
+                    continue;
+                }
+                switch (name) {
+                    case "networkType": cell.networkType = in.nextString(); break;
+                    case "mcc": cell.mcc = in.nextInt(); break;
+                    case "mnc": cell.mnc = in.nextInt(); break;
+                    case "mccStr": cell.mccStr = in.nextString(); break;
+                    case "mncStr": cell.mncStr = in.nextString(); break;
+                    case "lac": cell.lac = in.nextInt(); break;
+                    case "cid": cell.cid = in.nextInt(); break;
+                    case "nci": cell.nci = in.nextLong(); break;
+                    case "pci": cell.pci = in.nextInt(); break;
+                    case "arfcn": cell.arfcn = in.nextInt(); break;
+                    case "dbm": cell.dbm = in.nextInt(); break;
+                    default: in.skipValue(); break;
+                }
+            }
+            in.endObject();
+            return cell;
+        }
+    };
+
+    /**
+     * 结构数组原样写成四个 JSON 数组，读取时各数组独立解析，长度是否一致由使用方检查。
+     */
+    static final TypeAdapter<WifiFingerprint> WIFI_FINGERPRINT = new TypeAdapter<WifiFingerprint>() {
+        @Override
+        public void write(JsonWriter out, WifiFingerprint fp) throws IOException {
+            if (fp == null) {
+                out.nullValue();
+                return;
+            }
+            out.beginObject();
+            if (fp.ssids != null) {
+                out.name("ssids");
+                writeStrings(out, fp.ssids);
+            }
+            if (fp.levels != null) {
+                out.name("levels");
+                writeInts(out, fp.levels);
+            }
+            if (fp.frequencies != null) {
+                out.name("frequencies");
+                writeInts(out, fp.frequencies);
+            }
+            if (fp.capabilities != null) {
+                out.name("capabilities");
+                writeStrings(out, fp.capabilities);
+            }
+            out.endObject();
+        }
+
+        @Override
+        public WifiFingerprint read(JsonReader in) throws IOException {
+            if (in.peek() == JsonToken.NULL) {
+                in.nextNull();
+                return null;
+            }
+            WifiFingerprint fp = new WifiFingerprint();
+            in.beginObject();
+            while (in.hasNext()) {
+                String name = in.nextName();
+                if (in.peek() == JsonToken.NULL) {
+                    in.nextNull();
+                    continue;
+                }
+                switch (name) {
+                    case "ssids": fp.ssids = readStrings(in).toArray(new String[0]); break;
+                    case "levels": fp.levels = readInts(in); break;
+                    case "frequencies": fp.frequencies = readInts(in); break;
+                    case "capabilities": fp.capabilities = readStrings(in).toArray(new String[0]); break;
+                    default: in.skipValue(); break;
+                }
+            }
+            in.endObject();
+            return fp;
+        }
+    };
+
+    /**
+     * LocationRecord 及其子类共用的字段读写；子类通过 writeHead/writeTail/readExtra 追加自己的字段。
+     */
+    abstract static class RecordAdapter<T extends LocationRecord> extends TypeAdapter<T> {
+
+        abstract T newInstance();
+
+        void writeHead(JsonWriter out, T record) throws IOException {
+        }
+
+        void writeTail(JsonWriter out, T record) throws IOException {
+        }
+
+        boolean readExtra(String name, JsonReader in, T record) throws IOException {
+            return false;
+        }
+
+        @Override
+        public void write(JsonWriter out, T record) throws IOException {
+            if (record == null) {
+                out.nullValue();
+                return;
+            }
+            out.beginObject();
+            writeHead(out, record);
+            out.name("id").value(record.id);
+            if (record.name != null) {
+                out.name("name").value(record.name);
+            }
+            out.name("lat").value(record.lat);
+            out.name("lng").value(record.lng);
+            out.name("timestamp").value(record.timestamp);
+            out.name("accuracy").value(record.accuracy);
+            out.name("altitude").value(record.altitude);
+            out.name("bearing").value(record.bearing);
+            out.name("speed").value(record.speed);
+            if (record.wifiBssids != null) {
+                out.name("wifiBssids");
+                writeStrings(out, record.wifiBssids);
+            }
+            if (record.wifiFingerprint != null) {
+                out.name("wifiFingerprint");
+                WIFI_FINGERPRINT.write(out, record.wifiFingerprint);
+            }
+            if (record.cellInfo != null) {
+                out.name("cellInfo");
+                CELL_INFO.write(out, record.cellInfo);
+            }
+            if (record.neighborCells != null) {
+                out.name("neighborCells");
+                writeCells(out, record.neighborCells);
+            }
+            writeTail(out, record);
+            out.endObject();
+        }
+
+        @Override
+        public T read(JsonReader in) throws IOException {
+            if (in.peek() == JsonToken.NULL) {
+                in.nextNull();
+                return null;
+            }
+            T record = newInstance();
+            in.beginObject();
+            while (in.hasNext()) {
+                String name = in.nextName();
+                if (in.peek() == JsonToken.NULL) {
+                    in.nextNull();
+                    continue;
+                }
+                switch (name) {
+                    case "id": record.id = in.nextLong(); break;
+                    case "name": record.name = in.nextString(); break;
+                    case "lat": record.lat = in.nextDouble(); break;
+                    case "lng": record.lng = in.nextDouble(); break;
+                    case "timestamp": record.timestamp = in.nextLong(); break;
+                    case "accuracy": record.accuracy = (float) in.nextDouble(); break;
+                    case "altitude": record.altitude = in.nextDouble(); break;
+                    case "bearing": record.bearing = (float) in.nextDouble(); break;
+                    case "speed": record.speed = (float) in.nextDouble(); break;
+                    case "wifiBssids": record.wifiBssids = readStrings(in); break;
+                    case "wifiFingerprint": record.wifiFingerprint = WIFI_FINGERPRINT.read(in); break;
+                    case "cellInfo": record.cellInfo = CELL_INFO.read(in); break;
+                    case "neighborCells": record.neighborCells = readCells(in); break;
+                    default:
+                        if (!readExtra(name, in, record)) {
+                            in.skipValue();
+                        }
+                        break;
+                }
+            }
+            in.endObject();
+            return record;
+        }
+    }
+
+    static final TypeAdapter<LocationRecord> LOCATION_RECORD = new RecordAdapter<LocationRecord>() {
+        @Override
+        LocationRecord newInstance() {
+            return new LocationRecord();
+        }
+    };
+
+    static final TypeAdapter<MockConfig> MOCK_CONFIG = new RecordAdapter<MockConfig>() {
+        @Override
+        MockConfig newInstance() {
+            return new MockConfig();
+        }
+
+        @Override
+        void writeHead(JsonWriter out, MockConfig config) throws IOException {
+            // Hook 侧只读第一个字段判断代数是否变化，必须最先写出
+            out.name("generation").value(config.generation);
+        }
+
+        @Override
+        void writeTail(JsonWriter out, MockConfig config) throws IOException {
+            out.name("logLevel").value(config.logLevel);
+            out.name("routeStartElapsed").value(config.routeStartElapsed);
+            out.name("routeLoop").value(config.routeLoop);
+            if (config.hookPlans != null) {
+                out.name("hookPlans").beginObject();
+                for (Map.Entry<String, Integer> entry : config.hookPlans.entrySet()) {
+                    if (entry.getValue() != null) {
+                        out.name(entry.getKey()).value(entry.getValue());
+                    }
+                }
+                out.endObject();
+            }
+        }
+
+        @Override
+        boolean readExtra(String name, JsonReader in, MockConfig config) throws IOException {
+            switch (name) {
+                case "generation": config.generation = in.nextLong(); return true;
+                case "logLevel": config.logLevel = in.nextInt(); return true;
+                case "routeStartElapsed": config.routeStartElapsed = in.nextLong(); return true;
+                case "routeLoop": config.routeLoop = in.nextBoolean(); return true;
+                case "hookPlans":
+                    Map<String, Integer> plans = new HashMap<>();
+                    in.beginObject();
+                    while (in.hasNext()) {
+                        String pkg = in.nextName();
+                        if (in.peek() == JsonToken.NULL) {
+                            in.nextNull();
+                        } else {
+                            plans.put(pkg, in.nextInt());
+                        }
+                    }
+                    in.endObject();
+                    config.hookPlans = plans;
+                    return true;
+                default:
+                    return false;
+            }
+        }
+    };
+
+    private static void writeStrings(JsonWriter out, String[] values) throws IOException {
+        out.beginArray();
+        for (String value : values) {
+            if (value == null) {
+                out.nullValue();
+            } else {
+                out.value(value);
+            }
+        }
+        out.endArray();
+    }
+
+    private static void writeInts(JsonWriter out, int[] values) throws IOException {
+        out.beginArray();
+        for (int value : values) {
+            out.value(value);
+        }
+        out.endArray();
+    }
+
+    private static int[] readInts(JsonReader in) throws IOException {
+        int[] values = new int[16];
+        int size = 0;
+        in.beginArray();
+        while (in.hasNext()) {
+            if (size == values.length) {
+                values = Arrays.copyOf(values, size * 2);
+            }
+            values[size++] = in.nextInt();
+        }
+        in.endArray();
+        return Arrays.copyOf(values, size);
+    }
+
+    private static void writeStrings(JsonWriter out, List<String> values) throws IOException {
+        out.beginArray();
+        for (String value : values) {
+            if (value == null) {
+                out.nullValue();
+            } else {
+                out.value(value);
+            }
+        }
+        out.endArray();
+    }
+
+    private static List<String> readStrings(JsonReader in) throws IOException {
+        List<String> values = new ArrayList<>();
+        in.beginArray();
+        while (in.hasNext()) {
+            if (in.peek() == JsonToken.NULL) {
+                in.nextNull();
+                values.add(null);
+            } else {
+                values.add(in.nextString());
+            }
+        }
+        in.endArray();
+        return values;
+    }
+
+    private static void writeCells(JsonWriter out, List<SerializableCellInfo> cells) throws IOException {
+        out.beginArray();
+        for (SerializableCellInfo cell : cells) {
+            CELL_INFO.write(out, cell);
+        }
+        out.endArray();
+    }
+
+    private static List<SerializableCellInfo> readCells(JsonReader in) throws IOException {
+        List<SerializableCellInfo> cells = new ArrayList<>();
+        in.beginArray();
+        while (in.hasNext()) {
+            SerializableCellInfo cell = CELL_INFO.read(in);
+            if (cell != null) {
+                cells.add(cell);
+            }
+        }
+        in.endArray();
+        return cells;
+    }
+}
@@ -2,11 +2,27 @@ package com.mock.location.util;
 
 import com.google.gson.Gson;
 import com.google.gson.GsonBuilder;
+import com.google.gson.stream.JsonReader;
+import com.mock.location.model.LocationRecord;
+import com.mock.location.model.MockConfig;
+import com.mock.location.model.SerializableCellInfo;
+import com.mock.location.model.WifiFingerprint;
 
+import java.io.BufferedReader;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.IOException;
+import java.io.InputStreamReader;
 import java.nio.charset.StandardCharsets;
 
 public class JsonUtils {
-    public static final Gson GSON = new Gson();
+    /** 全局唯一的 Gson 实例，模型类使用 {@link JsonAdapters} 中的流式适配器 */
+    public static final Gson GSON = new GsonBuilder()
+            .registerTypeAdapter(SerializableCellInfo.class, JsonAdapters.CELL_INFO)
+            .registerTypeAdapter(WifiFingerprint.class, JsonAdapters.WIFI_FINGERPRINT)
+            .registerTypeAdapter(LocationRecord.class, JsonAdapters.LOCATION_RECORD)
+            .registerTypeAdapter(MockConfig.class, JsonAdapters.MOCK_CONFIG)
+            .create();
 
 
     /**
@@ -32,4 +48,18 @@ public class JsonUtils {
         if (json == null || clazz == null) return null;
         return GSON.fromJson(json, clazz);
     }
-}
\ No newline at end of file
+
+    /**
+     * JSON 文件 → 对象：JsonReader 直接读缓冲流，不构建中间字符串。
+     */
+    public static <T> T fromFile(File file, Class<T> clazz) throws IOException {
+        try (JsonReader reader = newReader(file)) {
+            return GSON.getAdapter(clazz).read(reader);
+        }
+    }
+
+    public static JsonReader newReader(File file) throws IOException {
+        return new JsonReader(new BufferedReader(new InputStreamReader(
+                new FileInputStream(file), StandardCharsets.UTF_8), 8192));
+    }
+}
@@ -0,0 +1,242 @@
+package com.mock.location.util;
+
+import android.content.ContentValues;
+import android.content.Context;
+import android.content.SharedPreferences;
+import android.database.Cursor;
+import android.database.sqlite.SQLiteDatabase;
+import android.database.sqlite.SQLiteOpenHelper;
+import android.util.Log;
+
+import com.google.gson.reflect.TypeToken;
+import com.google.gson.stream.JsonReader;
+import com.mock.location.Constant;
+import com.mock.location.model.LocationRecord;
+import com.mock.location.model.SerializableCellInfo;
+import com.mock.location.model.WifiFingerprint;
+
+import java.io.File;
+import java.lang.reflect.Type;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * 记录的 SQLite 存储：每条记录一行，以自增 id 作为稳定主键。
+ * 新增、修改、删除、按 id 读取都只涉及一行，不再整体重写记录文件。
+ * <p>
+ * WiFi BSSID 列表、WiFi 指纹、主小区与邻区信息以 JSON 存在各自的列中；坐标与时间为独立列，可按需建索引查询。
+ * 首次创建数据库时自动导入旧版 mock_records.json，并把旧的当前索引换算为记录 id。
+ * 导入失败（文件损坏、读取出错）时保留待迁移标记与原文件，下次打开数据库时重试，旧记录不会因一次失败而丢失。
+ */
+public class RecordDatabase extends SQLiteOpenHelper {
+
+    private static final String DB_NAME = "mock_records.db";
+    private static final int DB_VERSION = 4;
+
+    static final String TABLE = "records";
+    static final String COL_ID = "_id";
+    static final String COL_NAME = "name";
+    static final String COL_LAT = "lat";
+    static final String COL_LNG = "lng";
+    static final String COL_TIMESTAMP = "timestamp";
+    static final String COL_ACCURACY = "accuracy";
+    static final String COL_ALTITUDE = "altitude";
+    static final String COL_BEARING = "bearing";
+    static final String COL_SPEED = "speed";
+    static final String COL_WIFI = "wifi_bssids";
+    static final String COL_CELL = "cell_info";
+    static final String COL_WIFI_FINGERPRINT = "wifi_fingerprint";
+    static final String COL_NEIGHBOR_CELLS = "neighbor_cells";
+
+    /** 查询列顺序，与 {@link #readRecord(Cursor)} 中的下标对应 */
+    static final String[] COLUMNS = {COL_ID, COL_NAME, COL_LAT, COL_LNG, COL_TIMESTAMP,
+            COL_ACCURACY, COL_ALTITUDE, COL_BEARING, COL_SPEED, COL_WIFI, COL_CELL, COL_WIFI_FINGERPRINT,
+            COL_NEIGHBOR_CELLS};
+
+    /** 旧版整体 JSON 记录文件 */
+    private static final String LEGACY_FILE_NAME = "mock_records.json";
+    private static final String LEGACY_PREF_NAME = "mock_prefs";
+    private static final String LEGACY_KEY_CURRENT_INDEX = "current_record_index";
+    /** 导入成功后置位；旧文件仍在且未置位即视为待迁移，每次打开数据库都重试，改名失败也不会重复导入 */
+    private static final String LEGACY_KEY_MIGRATED = "legacy_records_migrated";
+
+    private static final Type WIFI_TYPE = new TypeToken<List<String>>(){}.getType();
+    private static final Type CELLS_TYPE = new TypeToken<List<SerializableCellInfo>>(){}.getType();
+
+    private static volatile RecordDatabase sInstance;
+
+    private final Context appContext;
+
+    private RecordDatabase(Context context) {
+        super(context, DB_NAME, null, DB_VERSION);
+        this.appContext = context;
+    }
+
+    public static RecordDatabase getInstance(Context context) {
+        RecordDatabase instance = sInstance;
+        if (instance == null) {
+            synchronized (RecordDatabase.class) {
+                instance = sInstance;
+                if (instance == null) {
+                    instance = new RecordDatabase(context.getApplicationContext());
+                    sInstance = instance;
+                }
+            }
+        }
+        return instance;
+    }
+
+    @Override
+    public void onCreate(SQLiteDatabase db) {
+        db.execSQL("CREATE TABLE " + TABLE + " ("
+                + COL_ID + " INTEGER PRIMARY KEY AUTOINCREMENT, "
+                + COL_NAME + " TEXT, "
+                + COL_LAT + " REAL NOT NULL, "
+                + COL_LNG + " REAL NOT NULL, "
+                + COL_TIMESTAMP + " INTEGER NOT NULL, "
+                + COL_ACCURACY + " REAL NOT NULL DEFAULT 0, "
+                + COL_ALTITUDE + " REAL NOT NULL DEFAULT 0, "
+                + COL_BEARING + " REAL NOT NULL DEFAULT 0, "
+                + COL_SPEED + " REAL NOT NULL DEFAULT 0, "
+                + COL_WIFI + " TEXT, "
+                + COL_CELL + " TEXT, "
+                + COL_WIFI_FINGERPRINT + " TEXT, "
+                + COL_NEIGHBOR_CELLS + " TEXT)");
+        db.execSQL("CREATE INDEX idx_records_timestamp ON " + TABLE + "(" + COL_TIMESTAMP + ")");
+        createQueryIndexes(db);
+    }
+
+    /**
+     * 旧文件的导入放在 onOpen 而不是 onCreate：导入失败时建库照常完成，下次打开再试。
+     */
+    @Override
+    public void onOpen(SQLiteDatabase db) {
+        super.onOpen(db);
+        if (!db.isReadOnly() && !legacyPrefs().getBoolean(LEGACY_KEY_MIGRATED, false)) {
+            migrateLegacyFile(db);
+        }
+    }
+
+    @Override
+    public void onUpgrade(SQLiteDatabase db, int oldVersion, int newVersion) {
+        if (oldVersion < 2) {
+            createQueryIndexes(db);
+        }
+        if (oldVersion < 3) {
+            // 版本 3：WiFi 指纹，旧记录为 NULL
+            db.execSQL("ALTER TABLE " + TABLE + " ADD COLUMN " + COL_WIFI_FINGERPRINT + " TEXT");
+        }
+        if (oldVersion < 4) {
+            // 版本 4：邻区列表，旧记录为 NULL
+            db.execSQL("ALTER TABLE " + TABLE + " ADD COLUMN " + COL_NEIGHBOR_CELLS + " TEXT");
+        }
+    }
+
+    /**
+     * 版本 2：名称前缀查询与坐标范围查询的索引（范围查询走 lat，lng 在索引内过滤）。
+     */
+    private static void createQueryIndexes(SQLiteDatabase db) {
+        db.execSQL("CREATE INDEX IF NOT EXISTS idx_records_name ON " + TABLE + "(" + COL_NAME + ")");
+        db.execSQL("CREATE INDEX IF NOT EXISTS idx_records_lat_lng ON " + TABLE
+                + "(" + COL_LAT + ", " + COL_LNG + ")");
+    }
+
+    // ==================== 行 ↔ 记录 ====================
+
+    static ContentValues toValues(LocationRecord record) {
+        ContentValues values = new ContentValues();
+        values.put(COL_NAME, record.name);
+        values.put(COL_LAT, record.lat);
+        values.put(COL_LNG, record.lng);
+        values.put(COL_TIMESTAMP, record.timestamp);
+        values.put(COL_ACCURACY, record.accuracy);
+        values.put(COL_ALTITUDE, record.altitude);
+        values.put(COL_BEARING, record.bearing);
+        values.put(COL_SPEED, record.speed);
+        values.put(COL_WIFI, record.wifiBssids != null && !record.wifiBssids.isEmpty()
+                ? JsonUtils.GSON.toJson(record.wifiBssids) : null);
+        values.put(COL_CELL, record.cellInfo != null ? JsonUtils.GSON.toJson(record.cellInfo) : null);
+        values.put(COL_WIFI_FINGERPRINT, record.wifiFingerprint != null
+                ? JsonUtils.GSON.toJson(record.wifiFingerprint) : null);
+        values.put(COL_NEIGHBOR_CELLS, record.neighborCells != null && !record.neighborCells.isEmpty()
+                ? JsonUtils.GSON.toJson(record.neighborCells, CELLS_TYPE) : null);
+        return values;
+    }
+
+    static LocationRecord readRecord(Cursor c) {
+        LocationRecord record = new LocationRecord();
+        record.id = c.getLong(0);
+        record.name = c.getString(1);
+        record.lat = c.getDouble(2);
+        record.lng = c.getDouble(3);
+        record.timestamp = c.getLong(4);
+        record.accuracy = c.getFloat(5);
+        record.altitude = c.getDouble(6);
+        record.bearing = c.getFloat(7);
+        record.speed = c.getFloat(8);
+        if (!c.isNull(9)) {
+            List<String> wifi = JsonUtils.GSON.fromJson(c.getString(9), WIFI_TYPE);
+            if (wifi != null) record.wifiBssids = wifi;
+        }
+        if (!c.isNull(10)) {
+            record.cellInfo = JsonUtils.GSON.fromJson(c.getString(10), SerializableCellInfo.class);
+        }
+        if (!c.isNull(11)) {
+            record.wifiFingerprint = JsonUtils.GSON.fromJson(c.getString(11), WifiFingerprint.class);
+        }
+        if (!c.isNull(12)) {
+            record.neighborCells = JsonUtils.GSON.fromJson(c.getString(12), CELLS_TYPE);
+        }
+        return record;
+    }
+
+    // ==================== 旧版迁移 ====================
+
+    private SharedPreferences legacyPrefs() {
+        return appContext.getSharedPreferences(LEGACY_PREF_NAME, Context.MODE_PRIVATE);
+    }
+
+    /**
+     * 在一个事务中导入 mock_records.json，成功后记下已迁移，并把文件改名保留。
+     * 读取或写入失败时事务回滚、文件保持原样，下次打开数据库时重试。
+     */
+    private void migrateLegacyFile(SQLiteDatabase db) {
+        File file = new File(appContext.getFilesDir(), LEGACY_FILE_NAME);
+        if (!file.exists()) return;
+
+        List<LocationRecord> legacy;
+        try (JsonReader reader = JsonUtils.newReader(file)) {
+            Type listType = new TypeToken<List<LocationRecord>>(){}.getType();
+            legacy = JsonUtils.GSON.fromJson(reader, listType);
+        } catch (Exception e) {
+            Log.e(Constant.TAG, "Failed to read legacy records, will retry", e);
+            return;
+        }
+        if (legacy == null) legacy = new ArrayList<>();
+
+        int legacyIndex = legacyPrefs().getInt(LEGACY_KEY_CURRENT_INDEX, -1);
+        long currentId = -1;
+        db.beginTransaction();
+        try {
+            for (int i = 0; i < legacy.size(); i++) {
+                LocationRecord record = legacy.get(i);
+                if (record == null) continue;
+                long id = db.insertOrThrow(TABLE, null, toValues(record));
+                if (i == legacyIndex) currentId = id;
+            }
+            db.setTransactionSuccessful();
+        } catch (Exception e) {
+            Log.e(Constant.TAG, "Failed to import legacy records, will retry", e);
+            return;
+        } finally {
+            db.endTransaction();
+        }
+        legacyPrefs().edit().putBoolean(LEGACY_KEY_MIGRATED, true).commit();
+        RecordManager.migrateCurrentRecord(appContext, currentId);
+
+        if (!file.renameTo(new File(file.getPath() + ".migrated"))) {
+            Log.w(Constant.TAG, "Failed to rename legacy records file");
+        }
+        Log.i(Constant.TAG, "Migrated " + legacy.size() + " legacy records");
+    }
+}
@@ -1,97 +1,266 @@
 // com.mock.location.util.RecordManager
 package com.mock.location.util;
 
+import android.content.ContentValues;
 import android.content.Context;
 import android.content.SharedPreferences;
+import android.database.Cursor;
+import android.database.DatabaseUtils;
+import android.database.sqlite.SQLiteDatabase;
 import androidx.annotation.NonNull;
-import com.google.gson.Gson;
 import com.google.gson.reflect.TypeToken;
 import com.mock.location.model.LocationRecord;
-import java.io.BufferedReader;
-import java.io.File;
-import java.io.FileInputStream;
-import java.io.FileOutputStream;
-import java.io.InputStreamReader;
+import com.mock.location.model.MockConfig;
+import com.mock.location.model.RecordQuery;
 import java.lang.reflect.Type;
 import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
 import java.util.List;
+import java.util.Map;
+import java.util.Set;
 
 public class RecordManager {
 
-    private static final String FILE_NAME = "mock_records.json";
     private static final String PREF_NAME = "mock_prefs";
-    private static final String KEY_CURRENT_INDEX = "current_record_index";
+    private static final String KEY_CURRENT_ID = "current_record_id";
+    private static final String KEY_HOOK_LOG_LEVEL = "hook_log_level";
+    private static final String KEY_HOOK_PLANS = "hook_plans";
+    private static final String KEY_ROUTE_TOLERANCE = "route_simplify_tolerance";
+    private static final String KEY_PROVIDER_ONLY = "provider_only";
+    private static final String KEY_PROVIDER_PACKAGES = "provider_packages";
 
-    // 保存所有记录到文件
-    public static void saveAllRecords(Context context, List<LocationRecord> records) {
-        try {
-            Gson gson = new Gson();
-            String json = gson.toJson(records);
-            FileOutputStream fos = context.openFileOutput(FILE_NAME, Context.MODE_PRIVATE);
-            fos.write(json.getBytes());
-            fos.close();
+    private static SQLiteDatabase db(Context context) {
+        return RecordDatabase.getInstance(context).getWritableDatabase();
+    }
+
+    // 读取所有记录，按保存顺序排列
+    @NonNull
+    public static List<LocationRecord> getAllRecords(Context context) {
+        List<LocationRecord> records = new ArrayList<>();
+        try (Cursor c = db(context).query(RecordDatabase.TABLE, RecordDatabase.COLUMNS,
+                null, null, null, null, RecordDatabase.COL_ID + " ASC")) {
+            while (c.moveToNext()) {
+                records.add(RecordDatabase.readRecord(c));
+            }
         } catch (Exception e) {
             e.printStackTrace();
         }
+        return records;
     }
 
-    // 从文件读取所有记录
+    /**
+     * 按条件分页查询，按 id 升序返回 id 大于 afterId 的至多 limit 条记录。
+     * 以上一页最后一条的 id 作为下一页的起点（键集分页），翻页代价与页码无关。
+     */
     @NonNull
-    public static List<LocationRecord> getAllRecords(Context context) {
-        try {
-            File file = new File(context.getFilesDir(), FILE_NAME);
-            if (!file.exists()) return new ArrayList<>();
-
-            FileInputStream fis = new FileInputStream(file);
-            BufferedReader reader = new BufferedReader(new InputStreamReader(fis));
-            StringBuilder sb = new StringBuilder();
-            String line;
-            while ((line = reader.readLine()) != null) {
-                sb.append(line);
+    public static List<LocationRecord> queryRecords(Context context, RecordQuery query, long afterId, int limit) {
+        StringBuilder where = new StringBuilder(RecordDatabase.COL_ID + ">?");
+        List<String> args = new ArrayList<>();
+        args.add(String.valueOf(afterId));
+        if (query.name != null) {
+            if (query.namePrefix) {
+                // 范围比较可以使用名称索引
+                where.append(" AND ").append(RecordDatabase.COL_NAME).append(">=? AND ")
+                        .append(RecordDatabase.COL_NAME).append("<?");
+                args.add(query.name);
+                args.add(query.name + '\uffff');
+            } else {
+                where.append(" AND ").append(RecordDatabase.COL_NAME).append(" LIKE ? ESCAPE '\\'");
+                args.add("%" + query.name.replace("\\", "\\\\").replace("%", "\\%").replace("_", "\\_") + "%");
             }
-            reader.close();
+        }
+        if (query.fromTime != null) {
+            where.append(" AND ").append(RecordDatabase.COL_TIMESTAMP).append(">=?");
+            args.add(String.valueOf(query.fromTime));
+        }
+        if (query.toTime != null) {
+            where.append(" AND ").append(RecordDatabase.COL_TIMESTAMP).append("<=?");
+            args.add(String.valueOf(query.toTime));
+        }
+        if (query.hasBounds()) {
+            where.append(" AND ").append(RecordDatabase.COL_LAT).append(" BETWEEN ? AND ?")
+                    .append(" AND ").append(RecordDatabase.COL_LNG).append(" BETWEEN ? AND ?");
+            args.add(String.valueOf(query.minLat));
+            args.add(String.valueOf(query.maxLat));
+            args.add(String.valueOf(query.minLng));
+            args.add(String.valueOf(query.maxLng));
+        }
 
-            if (sb.length() == 0) return new ArrayList<>();
+        List<LocationRecord> records = new ArrayList<>();
+        try (Cursor c = db(context).query(RecordDatabase.TABLE, RecordDatabase.COLUMNS,
+                where.toString(), args.toArray(new String[0]), null, null,
+                RecordDatabase.COL_ID + " ASC", String.valueOf(limit))) {
+            while (c.moveToNext()) {
+                records.add(RecordDatabase.readRecord(c));
+            }
+        } catch (Exception e) {
+            e.printStackTrace();
+        }
+        return records;
+    }
 
-            Gson gson = new Gson();
-            Type listType = new TypeToken<List<LocationRecord>>(){}.getType();
-            List<LocationRecord> records = gson.fromJson(sb.toString(), listType);
-            return records != null ? records : new ArrayList<>();
+    // 按 id 读取单条记录，不存在时返回 null
+    public static LocationRecord getRecord(Context context, long id) {
+        if (id <= 0) return null;
+        try (Cursor c = db(context).query(RecordDatabase.TABLE, RecordDatabase.COLUMNS,
+                RecordDatabase.COL_ID + "=?", new String[]{String.valueOf(id)}, null, null, null)) {
+            return c.moveToFirst() ? RecordDatabase.readRecord(c) : null;
         } catch (Exception e) {
             e.printStackTrace();
-            return new ArrayList<>();
+            return null;
         }
     }
 
-    // 添加一条记录（自动命名：记录1、记录2...）
-    public static void addRecord(Context context, LocationRecord record) {
-        List<LocationRecord> records = getAllRecords(context);
-        int nextId = records.size() + 1;
-        record.name = "记录" + nextId;
-        record.timestamp = System.currentTimeMillis();
-        records.add(record);
-        saveAllRecords(context, records);
+    public static int getRecordCount(Context context) {
+        return (int) DatabaseUtils.queryNumEntries(db(context), RecordDatabase.TABLE);
     }
 
-    // 获取当前选中的记录（根据索引）
+    // 添加一条记录，返回新记录的 id；未命名时按 id 自动命名（记录1、记录2...），
+    // 自增 id 不复用，删除后也不会重名，且无需统计行数
+    public static long addRecord(Context context, LocationRecord record) {
+        if (record.timestamp == 0) {
+            record.timestamp = System.currentTimeMillis();
+        }
+        boolean autoName = record.name == null || record.name.isEmpty();
+        SQLiteDatabase db = db(context);
+        db.beginTransaction();
+        try {
+            record.id = db.insert(RecordDatabase.TABLE, null, RecordDatabase.toValues(record));
+            if (autoName && record.id > 0) {
+                record.name = "记录" + record.id;
+                ContentValues values = new ContentValues();
+                values.put(RecordDatabase.COL_NAME, record.name);
+                db.update(RecordDatabase.TABLE, values, RecordDatabase.COL_ID + "=?",
+                        new String[]{String.valueOf(record.id)});
+            }
+            db.setTransactionSuccessful();
+        } finally {
+            db.endTransaction();
+        }
+        return record.id;
+    }
+
+    // 按 id 更新一条记录
+    public static boolean updateRecord(Context context, LocationRecord record) {
+        if (record.id <= 0) return false;
+        return db(context).update(RecordDatabase.TABLE, RecordDatabase.toValues(record),
+                RecordDatabase.COL_ID + "=?", new String[]{String.valueOf(record.id)}) > 0;
+    }
+
+    // 按 id 删除一条记录；删除的是当前记录时清除当前选择
+    public static boolean deleteRecord(Context context, long id) {
+        boolean deleted = db(context).delete(RecordDatabase.TABLE,
+                RecordDatabase.COL_ID + "=?", new String[]{String.valueOf(id)}) > 0;
+        if (deleted && getCurrentRecordId(context) == id) {
+            setCurrentRecordId(context, -1);
+        }
+        return deleted;
+    }
+
+    // 获取当前选中的记录
     public static LocationRecord getCurrentRecord(Context context) {
-        List<LocationRecord> all = getAllRecords(context);
-        int index = getCurrentRecordIndex(context);
-        if (index >= 0 && index < all.size()) {
-            return all.get(index);
+        return getRecord(context, getCurrentRecordId(context));
+    }
+
+    // 设置当前选中记录的 id，-1 表示未选择
+    public static void setCurrentRecordId(Context context, long id) {
+        SharedPreferences prefs = context.getSharedPreferences(PREF_NAME, Context.MODE_PRIVATE);
+        prefs.edit().putLong(KEY_CURRENT_ID, id).apply();
+    }
+
+    // 获取当前选中记录的 id
+    public static long getCurrentRecordId(Context context) {
+        SharedPreferences prefs = context.getSharedPreferences(PREF_NAME, Context.MODE_PRIVATE);
+        return prefs.getLong(KEY_CURRENT_ID, -1);
+    }
+
+    // 旧版 JSON 迁移时调用：当前索引换算为 id 后写入，并移除旧的索引
+    static void migrateCurrentRecord(Context context, long id) {
+        SharedPreferences prefs = context.getSharedPreferences(PREF_NAME, Context.MODE_PRIVATE);
+        prefs.edit().putLong(KEY_CURRENT_ID, id).remove("current_record_index").apply();
+    }
+
+    // 设置 Hook 侧日志级别（MockConfig.LOG_*），下次开始模拟时写入配置
+    public static void setHookLogLevel(Context context, int level) {
+        SharedPreferences prefs = context.getSharedPreferences(PREF_NAME, Context.MODE_PRIVATE);
+        prefs.edit().putInt(KEY_HOOK_LOG_LEVEL, level).apply();
+    }
+
+    // 获取 Hook 侧日志级别
+    public static int getHookLogLevel(Context context) {
+        SharedPreferences prefs = context.getSharedPreferences(PREF_NAME, Context.MODE_PRIVATE);
+        return prefs.getInt(KEY_HOOK_LOG_LEVEL, MockConfig.LOG_ERROR);
+    }
+
+    // 获取按包的 Hook 分组计划（包名 → MockConfig.HOOK_*）
+    @NonNull
+    public static Map<String, Integer> getHookPlans(Context context) {
+        SharedPreferences prefs = context.getSharedPreferences(PREF_NAME, Context.MODE_PRIVATE);
+        String json = prefs.getString(KEY_HOOK_PLANS, null);
+        if (json == null) return new HashMap<>();
+        try {
+            Type mapType = new TypeToken<Map<String, Integer>>(){}.getType();
+            Map<String, Integer> plans = JsonUtils.GSON.fromJson(json, mapType);
+            return plans != null ? plans : new HashMap<>();
+        } catch (Exception e) {
+            e.printStackTrace();
+            return new HashMap<>();
+        }
+    }
+
+    // 设置某个包的 Hook 分组计划；plan 为 HOOK_ALL 时移除该条目（即默认行为）
+    public static void setHookPlan(Context context, String packageName, int plan) {
+        Map<String, Integer> plans = getHookPlans(context);
+        if (plan == MockConfig.HOOK_ALL) {
+            plans.remove(packageName);
+        } else {
+            plans.put(packageName, plan);
         }
-        return null;
+        SharedPreferences prefs = context.getSharedPreferences(PREF_NAME, Context.MODE_PRIVATE);
+        prefs.edit().putString(KEY_HOOK_PLANS, JsonUtils.GSON.toJson(plans)).apply();
+    }
+
+    // 设置导入路线时的简化容差（米）
+    public static void setRouteTolerance(Context context, float meters) {
+        SharedPreferences prefs = context.getSharedPreferences(PREF_NAME, Context.MODE_PRIVATE);
+        prefs.edit().putFloat(KEY_ROUTE_TOLERANCE, meters).apply();
     }
 
-    // 设置当前选中索引
-    public static void setCurrentRecordIndex(Context context, int index) {
+    // 获取导入路线时的简化容差（米），默认 5 米
+    public static float getRouteTolerance(Context context) {
         SharedPreferences prefs = context.getSharedPreferences(PREF_NAME, Context.MODE_PRIVATE);
-        prefs.edit().putInt(KEY_CURRENT_INDEX, index).apply();
+        return prefs.getFloat(KEY_ROUTE_TOLERANCE, 5f);
     }
 
-    // 获取当前选中索引
-    public static int getCurrentRecordIndex(Context context) {
+    // 设置是否只通过 ConfigProvider 发布配置（不写 /data/local/tmp，无需 Root）
+    public static void setProviderOnly(Context context, boolean providerOnly) {
         SharedPreferences prefs = context.getSharedPreferences(PREF_NAME, Context.MODE_PRIVATE);
-        return prefs.getInt(KEY_CURRENT_INDEX, -1);
+        prefs.edit().putBoolean(KEY_PROVIDER_ONLY, providerOnly).apply();
+    }
+
+    // 是否只通过 ConfigProvider 发布配置，默认否（Root 文件通道）
+    public static boolean isProviderOnly(Context context) {
+        SharedPreferences prefs = context.getSharedPreferences(PREF_NAME, Context.MODE_PRIVATE);
+        return prefs.getBoolean(KEY_PROVIDER_ONLY, false);
+    }
+
+    // 设置允许通过 ConfigProvider 读取配置的包名
+    public static void setProviderPackages(Context context, Set<String> packages) {
+        SharedPreferences prefs = context.getSharedPreferences(PREF_NAME, Context.MODE_PRIVATE);
+        prefs.edit().putStringSet(KEY_PROVIDER_PACKAGES, new HashSet<>(packages)).apply();
+    }
+
+    // 获取手动添加的 ConfigProvider 授权包名
+    @NonNull
+    public static Set<String> getProviderPackages(Context context) {
+        SharedPreferences prefs = context.getSharedPreferences(PREF_NAME, Context.MODE_PRIVATE);
+        return new HashSet<>(prefs.getStringSet(KEY_PROVIDER_PACKAGES, new HashSet<>()));
+    }
+
+    // 包名是否可以通过 ConfigProvider 读取配置：手动授权或设置过 Hook 范围的包
+    public static boolean isProviderAllowed(Context context, String packageName) {
+        return getProviderPackages(context).contains(packageName)
+                || getHookPlans(context).containsKey(packageName);
     }
-}
\ No newline at end of file
+}
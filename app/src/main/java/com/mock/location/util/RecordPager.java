@@ -0,0 +1,117 @@
+package com.mock.location.util;
+
+import android.content.Context;
+
+import androidx.annotation.NonNull;
+import androidx.recyclerview.widget.LinearLayoutManager;
+import androidx.recyclerview.widget.RecyclerView;
+
+import com.mock.location.model.LocationRecord;
+import com.mock.location.model.RecordQuery;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * 记录列表的分页数据源：按 {@link RecordQuery} 在 {@link IoExecutor} 上逐页查询，
+ * 列表滚动到接近末尾时自动加载下一页，只在主线程使用。
+ * <p>
+ * 每次加载完成都回调一个新的列表（已加载的所有页），交给 AsyncListDiffer 增量刷新。
+ * 数据变化时 {@link #refresh()} 以一次查询重新加载已加载的范围；条件变化时丢弃正在进行的旧查询结果。
+ */
+public class RecordPager {
+
+    public static final int PAGE_SIZE = 50;
+    /** 距离末尾少于这么多条时预加载下一页 */
+    private static final int PREFETCH_DISTANCE = PAGE_SIZE / 2;
+
+    public interface Callback {
+        void onRecordsLoaded(List<LocationRecord> records);
+    }
+
+    private final Context appContext;
+    private final Callback callback;
+
+    private RecordQuery query = RecordQuery.all();
+    private List<LocationRecord> loaded = new ArrayList<>();
+    private boolean loading;
+    private boolean endReached;
+    /** 每次重置递增，用来丢弃过期的查询结果 */
+    private int version;
+
+    public RecordPager(Context context, Callback callback) {
+        this.appContext = context.getApplicationContext();
+        this.callback = callback;
+    }
+
+    /**
+     * 滚动到接近末尾时加载下一页。
+     */
+    public void attachTo(RecyclerView recyclerView) {
+        recyclerView.addOnScrollListener(new RecyclerView.OnScrollListener() {
+            @Override
+            public void onScrolled(@NonNull RecyclerView rv, int dx, int dy) {
+                RecyclerView.LayoutManager lm = rv.getLayoutManager();
+                if (dy > 0 && lm instanceof LinearLayoutManager
+                        && ((LinearLayoutManager) lm).findLastVisibleItemPosition()
+                        >= loaded.size() - PREFETCH_DISTANCE) {
+                    loadMore();
+                }
+            }
+        });
+    }
+
+    public RecordQuery getQuery() {
+        return query;
+    }
+
+    /**
+     * 更换查询条件，从第一页重新加载。
+     */
+    public void setQuery(RecordQuery query) {
+        this.query = query;
+        version++;
+        loading = false;
+        endReached = false;
+        loaded = new ArrayList<>();
+        loadMore();
+    }
+
+    /**
+     * 记录有增删改时重新加载：一次查询取回当前已加载的条数（至少一页）。
+     */
+    public void refresh() {
+        int limit = Math.max(loaded.size(), PAGE_SIZE);
+        int requestVersion = ++version;
+        loading = true;
+        RecordQuery requestQuery = query;
+        IoExecutor.submit(() -> RecordManager.queryRecords(appContext, requestQuery, 0, limit), page -> {
+            if (requestVersion != version) return;
+            loading = false;
+            if (page == null) return;
+            endReached = page.size() < limit;
+            loaded = page;
+            callback.onRecordsLoaded(page);
+        });
+    }
+
+    public void loadMore() {
+        if (loading || endReached) return;
+        loading = true;
+        int requestVersion = version;
+        long afterId = loaded.isEmpty() ? 0 : loaded.get(loaded.size() - 1).id;
+        RecordQuery requestQuery = query;
+        IoExecutor.submit(() -> RecordManager.queryRecords(appContext, requestQuery, afterId, PAGE_SIZE), page -> {
+            if (requestVersion != version) return;
+            loading = false;
+            if (page == null) return;
+            endReached = page.size() < PAGE_SIZE;
+            // 新建列表，AsyncListDiffer 只会把追加的部分当作变化
+            List<LocationRecord> records = new ArrayList<>(loaded.size() + page.size());
+            records.addAll(loaded);
+            records.addAll(page);
+            loaded = records;
+            callback.onRecordsLoaded(records);
+        });
+    }
+}
@@ -0,0 +1,203 @@
+package com.mock.location.util;
+
+import android.content.Context;
+import android.os.Handler;
+import android.os.Looper;
+
+import com.mock.location.model.LocationRecord;
+
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+
+/**
+ * 进程内的记录仓库：所有写操作的入口，并在主线程向 {@link Listener} 广播变更。
+ * <p>
+ * 列表数据由各页面的 {@link RecordPager} 按需分页查询，仓库只在内存中保存当前选中的记录与记录总数，
+ * 首次访问时在 {@link IoExecutor} 上加载。写操作在 I/O 线程落库，完成后再通知，
+ * 收到通知的页面据此重新查询已加载的范围。
+ */
+public class RecordRepository {
+
+    public interface Listener {
+        /** 记录有新增、修改或删除 */
+        void onRecordsChanged();
+
+        /** 当前选中的记录变化（包括被删除） */
+        default void onCurrentChanged() {
+        }
+    }
+
+    private static volatile RecordRepository sInstance;
+
+    private final Context appContext;
+    private final Handler mainHandler = new Handler(Looper.getMainLooper());
+    private final List<Listener> listeners = new CopyOnWriteArrayList<>();
+
+    private long currentId = -1;
+    private LocationRecord current;
+    private int count;
+
+    private RecordRepository(Context context) {
+        appContext = context;
+        // 首个 I/O 任务，之后提交的写入都排在加载之后
+        IoExecutor.submit(() -> {
+            LocationRecord loadedCurrent = RecordManager.getCurrentRecord(context);
+            int loadedCount = RecordManager.getRecordCount(context);
+            synchronized (this) {
+                current = loadedCurrent;
+                currentId = loadedCurrent != null ? loadedCurrent.id : -1;
+                count = loadedCount;
+            }
+            return null;
+        }, result -> dispatchCurrentChanged());
+    }
+
+    public static RecordRepository getInstance(Context context) {
+        RecordRepository instance = sInstance;
+        if (instance == null) {
+            synchronized (RecordRepository.class) {
+                instance = sInstance;
+                if (instance == null) {
+                    instance = new RecordRepository(context.getApplicationContext());
+                    sInstance = instance;
+                }
+            }
+        }
+        return instance;
+    }
+
+    public void addListener(Listener listener) {
+        listeners.add(listener);
+    }
+
+    public void removeListener(Listener listener) {
+        listeners.remove(listener);
+    }
+
+    // ==================== 读 ====================
+
+    /** 记录总数（用于默认命名等），不触发查询 */
+    public synchronized int size() {
+        return count;
+    }
+
+    public synchronized long getCurrentId() {
+        return currentId;
+    }
+
+    public synchronized LocationRecord getCurrent() {
+        return current;
+    }
+
+    // ==================== 写 ====================
+
+    /**
+     * 异步保存新记录，插入完成后通知；callback 收到新 id，失败时为 -1。
+     */
+    public void add(LocationRecord record, IoExecutor.Callback<Long> callback) {
+        IoExecutor.submit(() -> {
+            long id = RecordManager.addRecord(appContext, record);
+            if (id > 0) {
+                synchronized (this) {
+                    count++;
+                }
+            }
+            return id;
+        }, id -> {
+            if (id != null && id > 0) {
+                dispatchChanged();
+            }
+            if (callback != null) {
+                callback.onComplete(id != null ? id : -1L);
+            }
+        });
+    }
+
+    public void update(LocationRecord record) {
+        boolean isCurrent;
+        synchronized (this) {
+            isCurrent = record.id == currentId;
+            if (isCurrent) {
+                current = record;
+            }
+        }
+        // 同一记录的多次修改只需写入最后一次
+        IoExecutor.submitLatest("record-update:" + record.id,
+                () -> RecordManager.updateRecord(appContext, record), updated -> dispatchChanged());
+        if (isCurrent) {
+            dispatchCurrentChanged();
+        }
+    }
+
+    /**
+     * 异步删除，完成后通知；callback 收到是否删除成功。
+     */
+    public void delete(long id, IoExecutor.Callback<Boolean> callback) {
+        IoExecutor.submit(() -> {
+            boolean deleted = RecordManager.deleteRecord(appContext, id);
+            if (deleted) {
+                synchronized (this) {
+                    count--;
+                }
+            }
+            return deleted;
+        }, deleted -> {
+            boolean success = Boolean.TRUE.equals(deleted);
+            if (success) {
+                boolean wasCurrent;
+                synchronized (this) {
+                    wasCurrent = currentId == id;
+                    if (wasCurrent) {
+                        currentId = -1;
+                        current = null;
+                    }
+                }
+                dispatchChanged();
+                if (wasCurrent) {
+                    dispatchCurrentChanged();
+                }
+            }
+            if (callback != null) {
+                callback.onComplete(success);
+            }
+        });
+    }
+
+    /**
+     * 选中记录；record 来自列表项，因此不需要再查询。
+     */
+    public void setCurrent(LocationRecord record) {
+        synchronized (this) {
+            if (record != null && currentId == record.id) return;
+            current = record;
+            currentId = record != null ? record.id : -1;
+        }
+        // SharedPreferences.apply 本身异步落盘
+        RecordManager.setCurrentRecordId(appContext, record != null ? record.id : -1);
+        dispatchCurrentChanged();
+    }
+
+    private void dispatchChanged() {
+        runOnMain(() -> {
+            for (Listener listener : listeners) {
+                listener.onRecordsChanged();
+            }
+        });
+    }
+
+    private void dispatchCurrentChanged() {
+        runOnMain(() -> {
+            for (Listener listener : listeners) {
+                listener.onCurrentChanged();
+            }
+        });
+    }
+
+    private void runOnMain(Runnable action) {
+        if (Looper.myLooper() == Looper.getMainLooper()) {
+            action.run();
+        } else {
+            mainHandler.post(action);
+        }
+    }
+}
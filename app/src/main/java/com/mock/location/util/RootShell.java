@@ -0,0 +1,173 @@
+package com.mock.location.util;
+
+import android.util.Log;
+
+import com.mock.location.Constant;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 常驻的 Root Shell 会话：只在首次使用（或 Shell 退出后）启动一次 su，之后每条命令只是往管道写一行。
+ * <p>
+ * 命令串行执行（调用方在锁上排队）。每条命令之后追加一行带序号的结束标记与退出码，
+ * 读线程把 stdout（已合并 stderr）逐行放入队列，{@link #exec} 读到对应标记即得到该命令的结果。
+ * Shell 意外退出或命令超时时销毁进程，下一条命令自动重新启动；命令因管道已断开未能送达时重试一次。
+ */
+public class RootShell {
+
+    /** 单条命令的最长等待时间（首次启动 su 可能需要用户在 Root 管理器中授权） */
+    private static final long TIMEOUT_MS = 30_000;
+    private static final String MARKER = "__MOCK_ROOT_SHELL_END__";
+    /** 读线程在 Shell 退出时放入队列的哨兵 */
+    private static final String EOF = new String("EOF");
+
+    public static final class Result {
+        public final int exitCode;
+        public final String output;
+
+        Result(int exitCode, String output) {
+            this.exitCode = exitCode;
+            this.output = output;
+        }
+
+        public boolean isSuccess() {
+            return exitCode == 0;
+        }
+    }
+
+    private static final Result SHELL_FAILED = new Result(-1, "");
+
+    private static final Object LOCK = new Object();
+    private static Process sProcess;
+    private static OutputStream sStdin;
+    private static BlockingQueue<String> sLines;
+    private static long sSequence;
+
+    private RootShell() {
+    }
+
+    /**
+     * 以 Root 身份执行一条 Shell 命令（可用 &&、; 组合），返回退出码与输出。
+     */
+    public static Result exec(String command) {
+        synchronized (LOCK) {
+            Result result = execOnce(command);
+            if (result == SHELL_FAILED) {
+                // Shell 已失效（例如被系统杀死），重新启动后重试一次
+                result = execOnce(command);
+            }
+            return result;
+        }
+    }
+
+    private static Result execOnce(String command) {
+        if (!ensureStarted()) {
+            return SHELL_FAILED;
+        }
+        String marker = MARKER + (++sSequence);
+        String script = "{ " + command + "\n} 2>&1 < /dev/null\necho \"" + marker + " $?\"\n";
+        try {
+            sStdin.write(script.getBytes(StandardCharsets.UTF_8));
+            sStdin.flush();
+        } catch (IOException e) {
+            // 命令未送达，可以安全重试
+            Log.w(Constant.TAG, "Root shell pipe broken", e);
+            destroy();
+            return SHELL_FAILED;
+        }
+        try {
+            StringBuilder output = new StringBuilder();
+            long deadline = System.currentTimeMillis() + TIMEOUT_MS;
+            while (true) {
+                long remaining = deadline - System.currentTimeMillis();
+                String line = remaining > 0 ? sLines.poll(remaining, TimeUnit.MILLISECONDS) : null;
+                if (line == null) {
+                    Log.e(Constant.TAG, "Root shell timed out: " + command);
+                    destroy();
+                    return new Result(-1, output.toString());
+                }
+                if (line == EOF) {
+                    // 命令可能已部分执行，不重试
+                    Log.w(Constant.TAG, "Root shell exited while running: " + command);
+                    destroy();
+                    return new Result(-1, output.toString());
+                }
+                if (line.startsWith(marker + " ")) {
+                    return new Result(parseExitCode(line.substring(marker.length() + 1)), output.toString());
+                }
+                if (output.length() > 0) output.append('\n');
+                output.append(line);
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            // 当前命令的结束标记还在路上，丢弃这个 Shell 以免输出错位
+            destroy();
+            return new Result(-1, "");
+        }
+    }
+
+    private static boolean ensureStarted() {
+        if (sProcess != null && sProcess.isAlive()) {
+            return true;
+        }
+        destroy();
+        try {
+            Process process = Runtime.getRuntime().exec("su");
+            BlockingQueue<String> lines = new LinkedBlockingQueue<>();
+            Thread reader = new Thread(() -> pump(process, lines), "RootShellReader");
+            reader.setDaemon(true);
+            reader.start();
+            sProcess = process;
+            sStdin = process.getOutputStream();
+            sLines = lines;
+            return true;
+        } catch (IOException e) {
+            Log.e(Constant.TAG, "Failed to start su", e);
+            return false;
+        }
+    }
+
+    private static void pump(Process process, BlockingQueue<String> lines) {
+        try (BufferedReader reader = new BufferedReader(
+                new InputStreamReader(process.getInputStream(), StandardCharsets.UTF_8))) {
+            String line;
+            while ((line = reader.readLine()) != null) {
+                lines.add(line);
+            }
+        } catch (IOException ignored) {
+            // 进程被销毁
+        }
+        lines.add(EOF);
+    }
+
+    private static int parseExitCode(String text) {
+        try {
+            return Integer.parseInt(text.trim());
+        } catch (NumberFormatException e) {
+            return -1;
+        }
+    }
+
+    private static void destroy() {
+        if (sProcess != null) {
+            sProcess.destroy();
+        }
+        sProcess = null;
+        sStdin = null;
+        sLines = null;
+    }
+
+    /**
+     * 单引号转义，用于拼接路径参数。
+     */
+    public static String quote(String value) {
+        return "'" + value.replace("'", "'\\''") + "'";
+    }
+}
@@ -0,0 +1,61 @@
+package com.mock.location.util;
+
+import android.content.Context;
+
+import androidx.annotation.NonNull;
+
+import java.io.File;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * 管理 App 私有目录 files/routes 下已导入的路线文件。
+ */
+public class RouteManager {
+
+    private static final String DIR_NAME = "routes";
+    public static final String EXTENSION = ".route";
+
+    public static File getRouteDir(Context context) {
+        File dir = new File(context.getFilesDir(), DIR_NAME);
+        if (!dir.exists()) {
+            dir.mkdirs();
+        }
+        return dir;
+    }
+
+    // 列出所有已导入的路线，按修改时间从新到旧
+    @NonNull
+    public static List<File> getAllRoutes(Context context) {
+        File[] files = getRouteDir(context).listFiles((dir, name) -> name.endsWith(EXTENSION));
+        if (files == null) return new ArrayList<>();
+        Arrays.sort(files, (a, b) -> Long.compare(b.lastModified(), a.lastModified()));
+        return new ArrayList<>(Arrays.asList(files));
+    }
+
+    // 根据导入文件名生成路线文件，去掉原后缀与非法字符，重名时追加序号
+    public static File newRouteFile(Context context, String sourceName) {
+        String base = sourceName != null ? sourceName : "route";
+        int dot = base.lastIndexOf('.');
+        if (dot > 0) {
+            base = base.substring(0, dot);
+        }
+        base = base.replaceAll("[\\\\/:*?\"<>|\\s]+", "_");
+        if (base.isEmpty()) {
+            base = "route";
+        }
+        File dir = getRouteDir(context);
+        File file = new File(dir, base + EXTENSION);
+        for (int i = 2; file.exists(); i++) {
+            file = new File(dir, base + "_" + i + EXTENSION);
+        }
+        return file;
+    }
+
+    // 路线显示名（去掉后缀）
+    public static String displayName(File route) {
+        String name = route.getName();
+        return name.endsWith(EXTENSION) ? name.substring(0, name.length() - EXTENSION.length()) : name;
+    }
+}
@@ -0,0 +1,189 @@
+package com.mock.location.route;
+
+import com.mock.location.model.LocationRecord;
+import com.mock.location.model.SerializableCellInfo;
+import com.mock.location.model.WifiFingerprint;
+import com.mock.location.util.BinaryConfig;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.Arrays;
+import java.util.Collections;
+
+import static org.junit.Assert.*;
+
+/**
+ * 路线文件写入与回放插值的本地单元测试。
+ */
+public class RoutePlayerTest {
+
+    private File file;
+
+    @Before
+    public void setUp() throws IOException {
+        file = File.createTempFile("route", ".bin");
+    }
+
+    @After
+    public void tearDown() {
+        file.delete();
+    }
+
+    private RoutePlayer writeRoute(boolean loop, double[][] points) throws IOException {
+        try (RouteFile.Writer writer = new RouteFile.Writer(file)) {
+            for (double[] p : points) {
+                writer.add((long) p[0], p[1], p[2], 0f, 0f);
+            }
+        }
+        RoutePlayer player = RoutePlayer.open(file.getAbsolutePath(), loop);
+        assertNotNull(player);
+        return player;
+    }
+
+    @Test
+    public void interpolatesWithinSegment() throws IOException {
+        RoutePlayer player = writeRoute(false, new double[][]{
+                {0, 30.0, 120.0},
+                {1000, 30.0, 120.001},
+                {3000, 30.002, 120.001},
+        });
+        assertEquals(3, player.pointCount());
+        assertEquals(3000, player.durationMs());
+
+        RoutePlayer.Sample mid = player.sample(500);
+        assertEquals(30.0, mid.lat, 1e-9);
+        assertEquals(120.0005, mid.lng, 1e-9);
+        assertEquals(90f, mid.bearing, 0.1f);
+        assertTrue(mid.speed > 0);
+
+        RoutePlayer.Sample second = player.sample(2000);
+        assertEquals(30.001, second.lat, 1e-9);
+        assertEquals(0f, second.bearing, 0.1f);
+    }
+
+    @Test
+    public void clampsAtEndsAndSeeksBackwards() throws IOException {
+        RoutePlayer player = writeRoute(false, new double[][]{
+                {0, 1.0, 1.0},
+                {1000, 2.0, 1.0},
+                {2000, 3.0, 1.0},
+        });
+        assertEquals(3.0, player.sample(5000).lat, 1e-9);
+        assertEquals(0f, player.sample(5000).speed, 0f);
+        assertEquals(1.5, player.sample(500).lat, 1e-9);
+        assertEquals(1.0, player.sample(-10).lat, 1e-9);
+    }
+
+    @Test
+    public void loopsAroundDuration() throws IOException {
+        RoutePlayer player = writeRoute(true, new double[][]{
+                {0, 0.0, 0.0},
+                {1000, 1.0, 0.0},
+        });
+        assertEquals(0.25, player.sample(1250).lat, 1e-9);
+    }
+
+    @Test
+    public void interpolatesAcrossAntimeridian() throws IOException {
+        RoutePlayer player = writeRoute(false, new double[][]{
+                {0, 10.0, 179.9},
+                {1000, 10.0, -179.9},
+        });
+        assertEquals(-180.0, player.sample(500).lng, 1e-9);
+        assertEquals(179.95, player.sample(250).lng, 1e-9);
+        assertEquals(-179.95, player.sample(750).lng, 1e-9);
+
+        RoutePlayer back = writeRoute(false, new double[][]{
+                {0, 10.0, -179.9},
+                {1000, 10.0, 179.9},
+        });
+        assertEquals(-179.95, back.sample(250).lng, 1e-9);
+        assertEquals(179.95, back.sample(750).lng, 1e-9);
+    }
+
+    @Test
+    public void dropsNonIncreasingTimestamps() throws IOException {
+        RoutePlayer player = writeRoute(false, new double[][]{
+                {0, 0.0, 0.0},
+                {0, 5.0, 5.0},
+                {1000, 1.0, 0.0},
+        });
+        assertEquals(2, player.pointCount());
+    }
+
+    @Test
+    public void largeRouteLookupStaysCorrect() throws IOException {
+        int n = 100_000;
+        try (RouteFile.Writer writer = new RouteFile.Writer(file)) {
+            for (int i = 0; i < n; i++) {
+                writer.add(i * 1000L, i * 1e-5, 0.0, 0f, 0f);
+            }
+        }
+        RoutePlayer player = RoutePlayer.open(file.getAbsolutePath(), false);
+        assertNotNull(player);
+        for (long t = 0; t < (n - 1) * 1000L; t += 997) {
+            assertEquals(t * 1e-8, player.sample(t).lat, 1e-9);
+        }
+        // 大幅回退后仍然正确
+        assertEquals(0.5e-5, player.sample(500).lat, 1e-12);
+    }
+
+    @Test
+    public void captureCarriesEnvironmentIntoRoute() throws IOException {
+        LocationRecord before = new LocationRecord();
+        before.wifiBssids = Arrays.asList("aa:bb:cc:dd:ee:01", "aa:bb:cc:dd:ee:02");
+        before.wifiFingerprint = new WifiFingerprint(2);
+        before.wifiFingerprint.ssids[0] = "home";
+        before.wifiFingerprint.levels[0] = -48;
+        before.wifiFingerprint.frequencies[0] = 5180;
+        SerializableCellInfo nr = new SerializableCellInfo();
+        nr.networkType = "NR";
+        nr.mccStr = "460";
+        nr.mncStr = "001";
+        nr.lac = 4096;
+        nr.nci = 0x9_1234_5678L;
+        before.cellInfo = nr;
+        SerializableCellInfo neighbor = new SerializableCellInfo();
+        neighbor.networkType = "LTE";
+        neighbor.pci = 321;
+        before.neighborCells = Collections.singletonList(neighbor);
+
+        LocationRecord later = new LocationRecord();
+        later.wifiBssids = Collections.singletonList("aa:bb:cc:dd:ee:03");
+
+        File log = File.createTempFile("capture", ".log");
+        try {
+            try (CaptureLog.Writer writer = new CaptureLog.Writer(log)) {
+                // 首个定位点之前的快照从路线起点生效
+                writer.addEnvironment(9_000, BinaryConfig.encode(before, 0));
+                writer.addFix(10_000, 30.0, 120.0, 0f, 0f, 5f);
+                writer.addFix(11_000, 30.001, 120.0, 0f, 0f, 5f);
+                writer.addEnvironment(11_500, BinaryConfig.encode(later, 0));
+                writer.addFix(12_000, 30.002, 120.0, 0f, 0f, 5f);
+            }
+            CaptureLog.toRoute(log, file, 0);
+        } finally {
+            log.delete();
+        }
+
+        RoutePlayer player = RoutePlayer.open(file.getAbsolutePath(), false);
+        assertNotNull(player);
+        assertTrue(player.hasEnvironments());
+
+        LocationRecord first = player.environment(500);
+        assertEquals(before.wifiBssids, first.wifiBssids);
+        assertEquals("home", first.wifiFingerprint.ssids[0]);
+        assertEquals(5180, first.wifiFingerprint.frequencies[0]);
+        assertEquals("001", first.cellInfo.mncStr);
+        assertEquals(0x9_1234_5678L, first.cellInfo.nci);
+        assertEquals(321, first.neighborCells.get(0).pci);
+
+        assertSame(first, player.environment(1_400));
+        assertEquals(later.wifiBssids, player.environment(1_600).wifiBssids);
+        assertNull(player.environment(1_600).cellInfo);
+    }
+}
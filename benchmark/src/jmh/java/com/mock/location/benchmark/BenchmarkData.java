@@ -0,0 +1,91 @@
+package com.mock.location.benchmark;
+
+import com.mock.location.model.LocationRecord;
+import com.mock.location.model.MockConfig;
+import com.mock.location.model.SerializableCellInfo;
+import com.mock.location.model.WifiFingerprint;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+import java.util.Random;
+
+/**
+ * 基准用的确定性测试数据：固定种子，每次运行内容相同，结果可以跨提交对比。
+ */
+final class BenchmarkData {
+
+    private BenchmarkData() {
+    }
+
+    /**
+     * 一条完整的记录：bssidCount 个带指纹的 AP、一个 LTE 主小区与 neighborCount 个邻区。
+     */
+    static LocationRecord record(Random random, int bssidCount, int neighborCount) {
+        LocationRecord record = new LocationRecord(39.9 + random.nextDouble() * 0.1, 116.3 + random.nextDouble() * 0.1);
+        record.name = "记录" + random.nextInt(100_000);
+        record.accuracy = 5 + random.nextFloat() * 20;
+        record.altitude = 40 + random.nextDouble() * 10;
+
+        List<String> bssids = new ArrayList<>(bssidCount);
+        WifiFingerprint fp = new WifiFingerprint(bssidCount);
+        for (int i = 0; i < bssidCount; i++) {
+            long mac = random.nextLong() & 0xFEFFFFFFFFFFL;
+            bssids.add(String.format(Locale.US, "%02x:%02x:%02x:%02x:%02x:%02x",
+                    (mac >> 40) & 0xFF, (mac >> 32) & 0xFF, (mac >> 24) & 0xFF,
+                    (mac >> 16) & 0xFF, (mac >> 8) & 0xFF, mac & 0xFF));
+            fp.ssids[i] = "AP-" + Integer.toHexString((int) mac);
+            fp.levels[i] = -40 - random.nextInt(50);
+            fp.frequencies[i] = random.nextBoolean() ? 2412 + 5 * random.nextInt(11) : 5180 + 20 * random.nextInt(8);
+            fp.capabilities[i] = "[WPA2-PSK-CCMP][RSN-PSK-CCMP][ESS]";
+        }
+        record.wifiBssids = bssids;
+        record.wifiFingerprint = bssidCount > 0 ? fp : null;
+
+        record.cellInfo = cell(random, true);
+        if (neighborCount > 0) {
+            List<SerializableCellInfo> neighbors = new ArrayList<>(neighborCount);
+            for (int i = 0; i < neighborCount; i++) {
+                neighbors.add(cell(random, false));
+            }
+            record.neighborCells = neighbors;
+        }
+        return record;
+    }
+
+    static MockConfig config(int bssidCount, int neighborCount) {
+        MockConfig config = MockConfig.from(record(new Random(42), bssidCount, neighborCount));
+        config.generation = 2;
+        config.hookPlans.put("com.example.map", MockConfig.HOOK_ALL);
+        config.hookPlans.put("com.example.taxi", MockConfig.HOOK_LOCATION | MockConfig.HOOK_WIFI);
+        config.hookPlans.put("com.example.shop", MockConfig.HOOK_LOCATION);
+        return config;
+    }
+
+    static List<LocationRecord> records(int count) {
+        Random random = new Random(42);
+        List<LocationRecord> records = new ArrayList<>(count);
+        for (int i = 0; i < count; i++) {
+            LocationRecord record = record(random, 8, 2);
+            record.id = i + 1;
+            records.add(record);
+        }
+        return records;
+    }
+
+    private static SerializableCellInfo cell(Random random, boolean serving) {
+        SerializableCellInfo cell = new SerializableCellInfo();
+        cell.networkType = "LTE";
+        cell.pci = random.nextInt(504);
+        cell.arfcn = 1850;
+        cell.dbm = -80 - random.nextInt(40);
+        if (serving) {
+            // 邻区通常只有 PCI 与频点
+            cell.mcc = 460;
+            cell.mnc = 0;
+            cell.lac = random.nextInt(65_536);
+            cell.cid = random.nextInt(1 << 28);
+        }
+        return cell;
+    }
+}
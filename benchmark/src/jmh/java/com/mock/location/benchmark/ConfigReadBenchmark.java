@@ -0,0 +1,83 @@
+package com.mock.location.benchmark;
+
+import com.mock.location.model.MockConfig;
+import com.mock.location.util.BinaryConfig;
+import com.mock.location.util.JsonUtils;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.MappedByteBuffer;
+import java.nio.file.Files;
+
+/**
+ * Hook 进程中 ConfigWatcher 后台线程加载配置的各条路径，都不在 Hook 回调中执行：
+ * <ul>
+ *   <li>{@link #sequence}：每 2 秒的兜底轮询只比较映射文件的序列号，配置未变化时的常态</li>
+ *   <li>{@link #decodeBinary}：序列号变化后按序列锁解码一次二进制配置</li>
+ *   <li>{@link #parseJson}：二进制配置不可用时回退的 JSON 解析</li>
+ *   <li>{@link #encodeBinary}：App 侧每次发布时的编码</li>
+ * </ul>
+ * 按 BSSID 数量从无到上限 {@link BinaryConfig#MAX_BSSIDS} 参数化，每个 AP 都带指纹。
+ * <p>
+ * Hook 回调每次调用只对 ConfigWatcher 的快照做一次 volatile 读，依赖 Android 类，
+ * 由设备上的 InjectorBenchmark#currentSnapshotRead 测量，不要用这里的数值估计单次 Hook 的开销。
+ */
+@State(Scope.Benchmark)
+public class ConfigReadBenchmark {
+
+    @Param({"0", "16", "64"})
+    public int bssidCount;
+
+    @Param({"0", "16"})
+    public int neighborCount;
+
+    private MockConfig config;
+    private File file;
+    private MappedByteBuffer mapped;
+    private String json;
+
+    @Setup(Level.Trial)
+    public void setUp() throws IOException {
+        config = BenchmarkData.config(bssidCount, neighborCount);
+        file = File.createTempFile("mock_location", ".bin");
+        Files.write(file.toPath(), BinaryConfig.encode(config, config.generation));
+        mapped = BinaryConfig.map(file.getAbsolutePath());
+        if (mapped == null || BinaryConfig.decode(mapped) == null) {
+            throw new IllegalStateException("Binary config round trip failed");
+        }
+        json = JsonUtils.toJson(config);
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        file.delete();
+    }
+
+    @Benchmark
+    public long sequence() {
+        return BinaryConfig.sequence(mapped);
+    }
+
+    @Benchmark
+    public MockConfig decodeBinary() {
+        return BinaryConfig.decode(mapped);
+    }
+
+    @Benchmark
+    public MockConfig parseJson() {
+        return JsonUtils.fromJson(json, MockConfig.class);
+    }
+
+    @Benchmark
+    public byte[] encodeBinary() {
+        return BinaryConfig.encode(config, config.generation);
+    }
+}
@@ -0,0 +1,47 @@
+package com.mock.location.benchmark;
+
+import com.google.gson.reflect.TypeToken;
+import com.mock.location.model.LocationRecord;
+import com.mock.location.util.JsonUtils;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+import java.lang.reflect.Type;
+import java.util.List;
+
+/**
+ * 记录列表的 JSON 读写（旧版 mock_records.json 的迁移、导入导出），记录数从 1 到 10 万。
+ * 数据库读写本身依赖 SQLite，在设备上由 androidTest 中的 RecordManagerBenchmark 测量。
+ */
+@State(Scope.Benchmark)
+public class RecordJsonBenchmark {
+
+    private static final Type LIST_TYPE = new TypeToken<List<LocationRecord>>(){}.getType();
+
+    @Param({"1", "100", "10000", "100000"})
+    public int recordCount;
+
+    private List<LocationRecord> records;
+    private String json;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        records = BenchmarkData.records(recordCount);
+        json = JsonUtils.GSON.toJson(records, LIST_TYPE);
+    }
+
+    @Benchmark
+    public List<LocationRecord> parse() {
+        return JsonUtils.GSON.fromJson(json, LIST_TYPE);
+    }
+
+    @Benchmark
+    public String write() {
+        return JsonUtils.GSON.toJson(records, LIST_TYPE);
+    }
+}